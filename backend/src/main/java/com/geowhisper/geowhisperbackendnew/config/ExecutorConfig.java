@@ -0,0 +1,100 @@
+package com.geowhisper.geowhisperbackendnew.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bounded thread pools for work that runs off the request thread.
+ * Each pool has its own queue so a burst in one pipeline cannot starve another.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${posts.pipeline.pool-size:8}")
+    private int postPipelinePoolSize;
+
+    @Value("${posts.pipeline.queue-capacity:200}")
+    private int postPipelineQueueCapacity;
+
+    @Value("${storage.upload.pool-size:8}")
+    private int storageUploadPoolSize;
+
+    @Value("${storage.upload.queue-capacity:100}")
+    private int storageUploadQueueCapacity;
+
+    @Value("${images.variants.pool-size:2}")
+    private int imageVariantPoolSize;
+
+    @Value("${images.variants.queue-capacity:500}")
+    private int imageVariantQueueCapacity;
+
+    // 0 = one worker per core
+    @Value("${heatmap.parallelism:0}")
+    private int heatmapParallelism;
+
+    /**
+     * Runs the concurrent stages of post creation (tower resolution, image
+     * uploads) and the background media finalization of async posts.
+     */
+    @Bean(name = "postPipelineExecutor")
+    public ThreadPoolTaskExecutor postPipelineExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(postPipelinePoolSize);
+        executor.setMaxPoolSize(postPipelinePoolSize);
+        executor.setQueueCapacity(postPipelineQueueCapacity);
+        executor.setThreadNamePrefix("post-pipeline-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs individual image uploads to Firebase Storage so the images of one
+     * post are uploaded concurrently.
+     */
+    @Bean(name = "storageUploadExecutor")
+    public ThreadPoolTaskExecutor storageUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(storageUploadPoolSize);
+        executor.setMaxPoolSize(storageUploadPoolSize);
+        executor.setQueueCapacity(storageUploadQueueCapacity);
+        executor.setThreadNamePrefix("storage-upload-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Decodes and resizes post images in the background. Kept small because
+     * each task is CPU-bound and holds a decoded image in memory.
+     */
+    @Bean(name = "imageVariantExecutor")
+    public ThreadPoolTaskExecutor imageVariantExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageVariantPoolSize);
+        executor.setMaxPoolSize(imageVariantPoolSize);
+        executor.setQueueCapacity(imageVariantQueueCapacity);
+        executor.setThreadNamePrefix("image-variant-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Fork/join pool for heatmap tile rasterization, kept apart from the
+     * common pool so CPU-bound rendering does not delay other parallel work.
+     */
+    @Bean(name = "heatmapPool", destroyMethod = "shutdown")
+    public ForkJoinPool heatmapPool() {
+        return new ForkJoinPool(heatmapParallelism > 0
+                ? heatmapParallelism
+                : Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,32 @@
+package com.geowhisper.geowhisperbackendnew.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Binary encoding for map payloads.
+ * 
+ * Clients that send "Accept: application/cbor" get the same response objects
+ * encoded as CBOR instead of JSON. CBOR stores numbers as binary (a double is
+ * 9 bytes instead of up to 20 characters) and needs no quoting or escaping,
+ * which makes tower, hot zone and nearby-post lists noticeably smaller.
+ * JSON stays the default for every other Accept header.
+ */
+@Configuration
+public class PayloadEncodingConfig {
+
+    /**
+     * CBOR converter built from Spring Boot's Jackson builder so it shares the
+     * same modules and settings as the JSON converter.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+            Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper cborMapper = builder.factory(new CBORFactory()).build();
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+}
@@ -0,0 +1,12 @@
+package com.geowhisper.geowhisperbackendnew.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (e.g. post deletion cleanup).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
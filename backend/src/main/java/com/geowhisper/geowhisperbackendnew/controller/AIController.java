@@ -1,6 +1,7 @@
 package com.geowhisper.geowhisperbackendnew.controller;
 
 import com.geowhisper.geowhisperbackendnew.dto.ApiResponse;
+import com.geowhisper.geowhisperbackendnew.model.Post;
 import com.geowhisper.geowhisperbackendnew.service.AIAgentService;
 import com.geowhisper.geowhisperbackendnew.service.PostService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,7 +45,7 @@ public class AIController {
         }
 
         try {
-            List<Map<String, Object>> posts = postService.getPostsForTower(towerId, limit);
+            List<Post> posts = postService.getPostsForTower(towerId, limit);
             
             System.out.println("📊 Fetched " + (posts != null ? posts.size() : 0) + " posts for tower: " + towerId);
 
@@ -1,6 +1,7 @@
 package com.geowhisper.geowhisperbackendnew.controller;
 
 import com.geowhisper.geowhisperbackendnew.dto.*;
+import com.geowhisper.geowhisperbackendnew.service.ChatHistoryService;
 import com.geowhisper.geowhisperbackendnew.service.ChatModerationService;
 import com.geowhisper.geowhisperbackendnew.service.ChatService;
 import com.geowhisper.geowhisperbackendnew.service.ChatSummaryService;
@@ -27,6 +28,7 @@ public class ChatController {
         private final ChatModerationService chatModerationService;
         private final ChatSummaryService chatSummaryService;
         private final ChatService chatService;
+        private final ChatHistoryService chatHistoryService;
 
         /**
          * Generate AI-powered summary of chat messages
@@ -182,6 +184,33 @@ public class ChatController {
                                 });
         }
 
+        /**
+         * Get a page of chat messages, newest page first
+         * GET /api/chat/{towerId}/messages?before=&beforeId=&limit=50
+         *
+         * Messages are returned oldest first. To load older messages, pass the
+         * nextBefore and nextBeforeId of the previous page.
+         */
+        @GetMapping("/{towerId}/messages")
+        @Operation(summary = "Get chat messages", description = "Get a page of tower chat history older than a cursor")
+        public CompletableFuture<ResponseEntity<ApiResponse>> getMessages(
+                        @PathVariable String towerId,
+                        @RequestParam(required = false) Long before,
+                        @RequestParam(required = false) String beforeId,
+                        @RequestParam(required = false) Integer limit) {
+
+                return chatHistoryService.getMessages(towerId, before, beforeId, limit)
+                                .thenApply(page -> ResponseEntity.ok(ApiResponse.success(
+                                                "Messages retrieved successfully", page)))
+                                .exceptionally(ex -> {
+                                        log.error("Error fetching messages for tower {}: {}", towerId,
+                                                        ex.getMessage(), ex);
+                                        return ResponseEntity.internalServerError()
+                                                        .body(ApiResponse.error(
+                                                                        "Failed to fetch messages: " + ex.getMessage()));
+                                });
+        }
+
         /**
          * Check if user can send messages to a tower
          * GET /api/chat/{towerId}/can-send?latitude=X&longitude=Y
@@ -0,0 +1,90 @@
+package com.geowhisper.geowhisperbackendnew.controller;
+
+import com.geowhisper.geowhisperbackendnew.dto.ApiResponse;
+import com.geowhisper.geowhisperbackendnew.dto.HeatmapTileResponse;
+import com.geowhisper.geowhisperbackendnew.service.HeatmapService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/heatmap")
+@Slf4j
+public class HeatmapController {
+
+        // Short enough that map clients pick up new activity soon
+        private static final CacheControl TILE_CACHE_CONTROL = CacheControl.maxAge(30, TimeUnit.SECONDS);
+
+        @Autowired
+        private HeatmapService heatmapService;
+
+        /**
+         * Get a heatmap tile as PNG
+         *
+         * GET /api/heatmap/tiles/{z}/{x}/{y}.png?bandwidthMeters=250
+         *
+         * Standard XYZ (Web Mercator) tile of recent post and chat activity,
+         * usable directly as a map overlay layer. bandwidthMeters sets the
+         * kernel smoothing radius (default and limits in heatmap.bandwidth.*).
+         *
+         * Example:
+         * curl -o tile.png http://localhost:8080/api/heatmap/tiles/12/2930/1712.png
+         */
+        @GetMapping(value = "/tiles/{z}/{x}/{y}.png", produces = MediaType.IMAGE_PNG_VALUE)
+        public ResponseEntity<byte[]> getTilePng(
+                        @PathVariable int z,
+                        @PathVariable int x,
+                        @PathVariable int y,
+                        @RequestParam(required = false) Integer bandwidthMeters) {
+                try {
+                        return ResponseEntity.ok()
+                                        .cacheControl(TILE_CACHE_CONTROL)
+                                        .body(heatmapService.getTilePng(z, x, y, bandwidthMeters));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                } catch (Exception e) {
+                        log.error("Error rendering heatmap tile {}/{}/{}: {}", z, x, y, e.getMessage(), e);
+                        return ResponseEntity.internalServerError().build();
+                }
+        }
+
+        /**
+         * Get a heatmap tile as an intensity grid
+         *
+         * GET /api/heatmap/tiles/{z}/{x}/{y}?bandwidthMeters=250
+         *
+         * Returns size x size 8-bit intensities (base64 in JSON, raw bytes with
+         * "Accept: application/cbor") for clients that colour the heatmap
+         * themselves, plus the tile's maximum density in weight per km².
+         *
+         * Example:
+         * curl http://localhost:8080/api/heatmap/tiles/12/2930/1712
+         */
+        @GetMapping("/tiles/{z}/{x}/{y}")
+        public ResponseEntity<ApiResponse> getTile(
+                        @PathVariable int z,
+                        @PathVariable int x,
+                        @PathVariable int y,
+                        @RequestParam(required = false) Integer bandwidthMeters) {
+                try {
+                        HeatmapTileResponse tile = heatmapService.getTile(z, x, y, bandwidthMeters);
+                        // JSON or CBOR depending on Accept, so shared caches must key on it
+                        return ResponseEntity.ok()
+                                        .cacheControl(TILE_CACHE_CONTROL)
+                                        .varyBy(HttpHeaders.ACCEPT)
+                                        .body(ApiResponse.success("Heatmap tile retrieved successfully", tile));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+                } catch (Exception e) {
+                        log.error("Error rendering heatmap tile {}/{}/{}: {}", z, x, y, e.getMessage(), e);
+                        return ResponseEntity.internalServerError()
+                                        .body(ApiResponse.error("Failed to render heatmap tile: " + e.getMessage()));
+                }
+        }
+}
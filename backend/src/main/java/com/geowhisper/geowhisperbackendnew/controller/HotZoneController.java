@@ -1,24 +1,50 @@
 package com.geowhisper.geowhisperbackendnew.controller;
 
+import com.geowhisper.geowhisperbackendnew.dto.ActivityTrendResponse;
 import com.geowhisper.geowhisperbackendnew.dto.ApiResponse;
+import com.geowhisper.geowhisperbackendnew.dto.HotZoneDelta;
+import com.geowhisper.geowhisperbackendnew.dto.HotZoneHistoryResponse;
 import com.geowhisper.geowhisperbackendnew.dto.HotZoneRequest;
 import com.geowhisper.geowhisperbackendnew.dto.HotZonesMapResponse;
+import com.geowhisper.geowhisperbackendnew.dto.TrendingTowerResponse;
+import com.geowhisper.geowhisperbackendnew.service.ActivityRollupService;
 import com.geowhisper.geowhisperbackendnew.service.HotZoneService;
+import com.geowhisper.geowhisperbackendnew.service.HotZoneStreamService;
+import com.geowhisper.geowhisperbackendnew.util.CoordinateQuantizer;
+import com.geowhisper.geowhisperbackendnew.util.ETagUtils;
+import com.geowhisper.geowhisperbackendnew.util.Viewport;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/hotzones")
 @Slf4j
 public class HotZoneController {
 
+        private static final long DEFAULT_HISTORY_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
         @Autowired
         private HotZoneService hotZoneService;
 
+        @Autowired
+        private HotZoneStreamService hotZoneStreamService;
+
+        @Autowired
+        private ActivityRollupService activityRollupService;
+
         /**
          * Get all hot zones based on message activity
          * 
@@ -44,10 +70,27 @@ public class HotZoneController {
          * curl -X POST http://localhost:8080/api/hotzones \
          * -H "Content-Type: application/json" \
          * -d '{"messageThreshold":50,"timeRangeHours":24}'
+         * 
+         * Responses carry an ETag; send it back in If-None-Match to get a 304
+         * without any Firestore or Realtime Database reads.
+         * 
+         * Optional ?coordinatePrecision=N rounds coordinates to N decimals, and
+         * "Accept: application/cbor" returns a binary (CBOR) encoding.
+         * 
+         * If some towers could not be analysed before the request deadline the
+         * response has "partial": true, lists them in "skippedTowerIds" and is
+         * sent without an ETag.
+         * 
+         * Requests for the default 24 h window are served from a periodically
+         * refreshed snapshot; "ageMs" (and the Age header) tell how old it is and
+         * "refreshing" whether a newer one is being computed.
          */
         @PostMapping
         public CompletableFuture<ResponseEntity<ApiResponse>> getHotZones(
-                        @RequestBody(required = false) HotZoneRequest request) {
+                        @RequestBody(required = false) HotZoneRequest request,
+                        @RequestParam(required = false) Integer coordinatePrecision,
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
                 log.info("Fetching hot zones with threshold: {}",
                                 request != null ? request.getMessageThreshold() : 50);
 
@@ -55,19 +98,22 @@ public class HotZoneController {
                         request = new HotZoneRequest();
                 }
 
-                return hotZoneService.getHotZones(request)
+                final HotZoneRequest finalRequest = request;
+                return conditional(hotZoneService.currentETag(request, coordinatePrecision,
+                                ETagUtils.selectedMediaType(accept)), ifNoneMatch,
+                                () -> hotZoneService.getHotZones(finalRequest)
                                 .thenApply(response -> {
                                         log.info("Found {} hot zones", response.getTotalHotZones());
-                                        return ResponseEntity.ok(ApiResponse.success(
+                                        return hotZonesResponse(response, ApiResponse.success(
                                                         "Hot zones retrieved successfully",
-                                                        response));
+                                                        CoordinateQuantizer.hotZones(response, coordinatePrecision)));
                                 })
                                 .exceptionally(ex -> {
                                         log.error("Error fetching hot zones: {}", ex.getMessage(), ex);
                                         return ResponseEntity.badRequest()
                                                         .body(ApiResponse.error("Failed to fetch hot zones: "
                                                                         + ex.getMessage()));
-                                });
+                                }));
         }
 
         /**
@@ -90,7 +136,11 @@ public class HotZoneController {
          * -d '{"latitude":28.6139,"longitude":77.2090,"radiusKm":5.0}'
          */
         @PostMapping("/nearby")
-        public CompletableFuture<ResponseEntity<ApiResponse>> getNearbyHotZones(@RequestBody HotZoneRequest request) {
+        public CompletableFuture<ResponseEntity<ApiResponse>> getNearbyHotZones(
+                        @RequestBody HotZoneRequest request,
+                        @RequestParam(required = false) Integer coordinatePrecision,
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
                 if (request.getLatitude() == null || request.getLongitude() == null) {
                         return CompletableFuture.completedFuture(
                                         ResponseEntity.badRequest()
@@ -101,19 +151,21 @@ public class HotZoneController {
                 log.info("Fetching hot zones near ({}, {}) within {} km",
                                 request.getLatitude(), request.getLongitude(), request.getRadiusKm());
 
-                return hotZoneService.getHotZones(request)
+                return conditional(hotZoneService.currentETag(request, coordinatePrecision,
+                                ETagUtils.selectedMediaType(accept)), ifNoneMatch,
+                                () -> hotZoneService.getHotZones(request)
                                 .thenApply(response -> {
                                         log.info("Found {} hot zones nearby", response.getTotalHotZones());
-                                        return ResponseEntity.ok(ApiResponse.success(
+                                        return hotZonesResponse(response, ApiResponse.success(
                                                         "Nearby hot zones retrieved successfully",
-                                                        response));
+                                                        CoordinateQuantizer.hotZones(response, coordinatePrecision)));
                                 })
                                 .exceptionally(ex -> {
                                         log.error("Error fetching nearby hot zones: {}", ex.getMessage(), ex);
                                         return ResponseEntity.badRequest()
                                                         .body(ApiResponse.error("Failed to fetch nearby hot zones: "
                                                                         + ex.getMessage()));
-                                });
+                                }));
         }
 
         /**
@@ -136,7 +188,8 @@ public class HotZoneController {
         @GetMapping("/tower/{towerId}")
         public CompletableFuture<ResponseEntity<ApiResponse>> getTowerHotZoneStatus(
                         @PathVariable String towerId,
-                        @RequestParam(defaultValue = "50") Integer messageThreshold) {
+                        @RequestParam(defaultValue = "50") Integer messageThreshold,
+                        @RequestParam(required = false) Integer coordinatePrecision) {
 
                 log.info("Checking hot zone status for tower: {}", towerId);
 
@@ -149,12 +202,12 @@ public class HotZoneController {
                                         }
 
                                         log.info("Tower {} is {} with {} messages",
-                                                        towerId, response.getActivityLevel(),
-                                                        response.getMessageCount());
+                                                        towerId, response.activityLevel(),
+                                                        response.messageCount());
 
                                         return ResponseEntity.ok(ApiResponse.success(
                                                         "Tower hot zone status retrieved successfully",
-                                                        response));
+                                                        CoordinateQuantizer.hotZone(response, coordinatePrecision)));
                                 })
                                 .exceptionally(ex -> {
                                         log.error("Error checking tower hot zone status: {}", ex.getMessage(), ex);
@@ -164,6 +217,143 @@ public class HotZoneController {
                                 });
         }
 
+        /**
+         * Get the currently trending towers
+         * 
+         * GET /api/hotzones/trending?limit=10&minLat=..&minLon=..&maxLat=..&maxLon=..
+         * 
+         * Towers are ranked by a message count that decays with a configurable
+         * half-life, so a tower busy right now outranks one that was busy hours
+         * ago. Without a viewport the ranking is city-wide.
+         * 
+         * Example:
+         * curl "http://localhost:8080/api/hotzones/trending?limit=5"
+         */
+        @GetMapping("/trending")
+        public ResponseEntity<ApiResponse> getTrendingTowers(
+                        @RequestParam(defaultValue = "10") Integer limit,
+                        @RequestParam(required = false) Double minLat,
+                        @RequestParam(required = false) Double minLon,
+                        @RequestParam(required = false) Double maxLat,
+                        @RequestParam(required = false) Double maxLon) {
+                try {
+                        Viewport viewport = Viewport.of(minLat, minLon, maxLat, maxLon);
+                        List<TrendingTowerResponse> towers = hotZoneService.getTrendingTowers(
+                                        Math.max(1, Math.min(limit, 100)), viewport);
+                        return ResponseEntity.ok(ApiResponse.success(
+                                        "Trending towers retrieved successfully", towers));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+                }
+        }
+
+        /**
+         * Stream hot zone changes as Server-Sent Events
+         * 
+         * GET /api/hotzones/stream?minLat=..&minLon=..&maxLat=..&maxLon=..&messageThreshold=50&minScoreChange=5
+         * 
+         * The first "snapshot" event lists every zone visible in the viewport
+         * (all zones if no viewport is given). Each later "delta" event holds
+         * only zones that entered, left, changed activity level or moved their
+         * score by at least minScoreChange. Slow clients receive one combined
+         * delta instead of a backlog. Comment heartbeats keep proxies from
+         * closing idle streams; streams end after a while and EventSource
+         * reconnects on its own.
+         * 
+         * Example:
+         * curl -N "http://localhost:8080/api/hotzones/stream?minLat=28.4&minLon=76.8&maxLat=28.9&maxLon=77.4"
+         */
+        @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+        public Flux<ServerSentEvent<HotZoneDelta>> streamHotZones(
+                        @RequestParam(required = false) Double minLat,
+                        @RequestParam(required = false) Double minLon,
+                        @RequestParam(required = false) Double maxLat,
+                        @RequestParam(required = false) Double maxLon,
+                        @RequestParam(defaultValue = "50") Integer messageThreshold,
+                        @RequestParam(defaultValue = "5.0") Double minScoreChange) {
+
+                Viewport viewport;
+                try {
+                        viewport = Viewport.of(minLat, minLon, maxLat, maxLon);
+                } catch (IllegalArgumentException e) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+                }
+
+                log.info("Opening hot zone stream (viewport: {}, threshold: {})", viewport, messageThreshold);
+                return hotZoneStreamService.stream(viewport, Math.max(0, messageThreshold),
+                                Math.max(0, minScoreChange));
+        }
+
+        /**
+         * Get hot zones of a past time range from the hourly rollups
+         * 
+         * GET /api/hotzones/history?from=..&to=..&messageThreshold=50&latitude=..&longitude=..&radiusKm=10
+         * 
+         * from/to are epoch milliseconds (default: the last 7 days) and are
+         * widened to whole hours. Ranges are limited to
+         * hotzones.rollups.max-range-days. The current, not yet completed hour
+         * is not included.
+         * 
+         * Example:
+         * curl "http://localhost:8080/api/hotzones/history?from=1760745600000&to=1760918400000"
+         */
+        @GetMapping("/history")
+        public ResponseEntity<ApiResponse> getHotZoneHistory(
+                        @RequestParam(required = false) Long from,
+                        @RequestParam(required = false) Long to,
+                        @RequestParam(defaultValue = "50") Integer messageThreshold,
+                        @RequestParam(required = false) Double latitude,
+                        @RequestParam(required = false) Double longitude,
+                        @RequestParam(required = false) Double radiusKm) {
+                long end = to != null ? to : System.currentTimeMillis();
+                long start = from != null ? from : end - DEFAULT_HISTORY_MILLIS;
+                try {
+                        HotZoneHistoryResponse response = activityRollupService.getHistoricalHotZones(
+                                        start, end, messageThreshold, latitude, longitude, radiusKm);
+                        return ResponseEntity.ok(ApiResponse.success(
+                                        "Hot zone history retrieved successfully", response));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+                } catch (Exception e) {
+                        log.error("Error fetching hot zone history: {}", e.getMessage(), e);
+                        return ResponseEntity.internalServerError()
+                                        .body(ApiResponse.error("Failed to fetch hot zone history: "
+                                                        + e.getMessage()));
+                }
+        }
+
+        /**
+         * Get message, post and unique user counts over time from the hourly
+         * rollups, for one tower or city-wide
+         * 
+         * GET /api/hotzones/history/trend?towerId=..&from=..&to=..&granularity=hour|day
+         * 
+         * Example:
+         * curl "http://localhost:8080/api/hotzones/history/trend?towerId=RwvBgwnDbPsupDsZ7rH1&granularity=day"
+         */
+        @GetMapping("/history/trend")
+        public ResponseEntity<ApiResponse> getActivityTrend(
+                        @RequestParam(required = false) String towerId,
+                        @RequestParam(required = false) Long from,
+                        @RequestParam(required = false) Long to,
+                        @RequestParam(defaultValue = "day") String granularity) {
+                long end = to != null ? to : System.currentTimeMillis();
+                long start = from != null ? from : end - DEFAULT_HISTORY_MILLIS;
+                try {
+                        ActivityTrendResponse response = activityRollupService.getActivityTrend(
+                                        towerId, start, end, granularity);
+                        return ResponseEntity.ok(ApiResponse.success(
+                                        "Activity trend retrieved successfully", response));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+                } catch (Exception e) {
+                        log.error("Error fetching activity trend: {}", e.getMessage(), e);
+                        return ResponseEntity.internalServerError()
+                                        .body(ApiResponse.error("Failed to fetch activity trend: "
+                                                        + e.getMessage()));
+                }
+        }
+
         /**
          * Get hot zones summary statistics
          * 
@@ -181,7 +371,9 @@ public class HotZoneController {
         @GetMapping("/stats")
         public CompletableFuture<ResponseEntity<ApiResponse>> getHotZonesStats(
                         @RequestParam(defaultValue = "50") Integer messageThreshold,
-                        @RequestParam(defaultValue = "24") Integer timeRangeHours) {
+                        @RequestParam(defaultValue = "24") Integer timeRangeHours,
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
 
                 log.info("Fetching hot zones statistics");
 
@@ -189,11 +381,13 @@ public class HotZoneController {
                 request.setMessageThreshold(messageThreshold);
                 request.setTimeRangeHours(timeRangeHours);
 
-                return hotZoneService.getHotZones(request)
+                return conditional(hotZoneService.currentETag(request, null,
+                                ETagUtils.selectedMediaType(accept)), ifNoneMatch,
+                                () -> hotZoneService.getHotZones(request)
                                 .thenApply(response -> {
                                         HotZonesMapResponse.HotZoneStatistics stats = response.getStatistics();
 
-                                        return ResponseEntity.ok(ApiResponse.success(
+                                        return hotZonesResponse(response, ApiResponse.success(
                                                         "Hot zones statistics retrieved successfully",
                                                         stats));
                                 })
@@ -202,6 +396,62 @@ public class HotZoneController {
                                         return ResponseEntity.badRequest()
                                                         .body(ApiResponse.error(
                                                                         "Failed to fetch stats: " + ex.getMessage()));
-                                });
+                                }));
+        }
+
+        /**
+         * 200 response for a hot zone computation. Snapshot responses carry
+         * their age in an Age header; partial results are marked no-store so
+         * neither caches nor the ETag check keep them around.
+         */
+        private ResponseEntity<ApiResponse> hotZonesResponse(HotZonesMapResponse response, ApiResponse body) {
+                ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+                if (response.getAgeMs() != null) {
+                        builder.header(HttpHeaders.AGE, String.valueOf(response.getAgeMs() / 1000));
+                }
+                if (Boolean.TRUE.equals(response.getPartial())) {
+                        builder.cacheControl(CacheControl.noStore());
+                }
+                return builder.body(body);
+        }
+
+        /**
+         * Answer with 304 if the client's ETag is still current, otherwise run
+         * the computation and attach the ETag to a complete successful response.
+         * Both carry Vary: Accept, since the ETag depends on the negotiated
+         * representation.
+         */
+        private CompletableFuture<ResponseEntity<ApiResponse>> conditional(
+                        String etag,
+                        String ifNoneMatch,
+                        Supplier<CompletableFuture<ResponseEntity<ApiResponse>>> computation) {
+
+                if (etag == null) {
+                        return computation.get();
+                }
+
+                if (ETagUtils.matches(ifNoneMatch, etag)) {
+                        return CompletableFuture.completedFuture(
+                                        ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                                        .eTag(etag)
+                                                        .varyBy(HttpHeaders.ACCEPT)
+                                                        .build());
+                }
+
+                return computation.get().thenApply(response -> {
+                        if (!response.getStatusCode().is2xxSuccessful() || isNoStore(response)) {
+                                return response;
+                        }
+                        return ResponseEntity.status(response.getStatusCode())
+                                        .headers(response.getHeaders())
+                                        .eTag(etag)
+                                        .varyBy(HttpHeaders.ACCEPT)
+                                        .body(response.getBody());
+                });
+        }
+
+        private static boolean isNoStore(ResponseEntity<?> response) {
+                String cacheControl = response.getHeaders().getCacheControl();
+                return cacheControl != null && cacheControl.contains("no-store");
         }
 }
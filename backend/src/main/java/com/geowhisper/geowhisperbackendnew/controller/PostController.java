@@ -1,17 +1,31 @@
 package com.geowhisper.geowhisperbackendnew.controller;
 
 import com.geowhisper.geowhisperbackendnew.dto.ApiResponse;
+import com.geowhisper.geowhisperbackendnew.dto.BulkCreatePostsRequest;
+import com.geowhisper.geowhisperbackendnew.dto.BulkCreatePostsResponse;
 import com.geowhisper.geowhisperbackendnew.dto.CreatePostRequest;
+import com.geowhisper.geowhisperbackendnew.dto.CreatedPostResponse;
+import com.geowhisper.geowhisperbackendnew.dto.NearbyPostResponse;
 import com.geowhisper.geowhisperbackendnew.dto.NearbyPostsRequest;
 import com.geowhisper.geowhisperbackendnew.dto.TowerResponse;
 import com.geowhisper.geowhisperbackendnew.dto.TowersRequest;
+import com.geowhisper.geowhisperbackendnew.model.ImageVariants;
+import com.geowhisper.geowhisperbackendnew.model.Post;
+import com.geowhisper.geowhisperbackendnew.model.TowerCollectionVersion;
 import com.geowhisper.geowhisperbackendnew.service.PostService;
 import com.geowhisper.geowhisperbackendnew.service.StorageService;
+import com.geowhisper.geowhisperbackendnew.service.TowerService;
+import com.geowhisper.geowhisperbackendnew.util.CoordinateQuantizer;
+import com.geowhisper.geowhisperbackendnew.util.ETagUtils;
+import com.geowhisper.geowhisperbackendnew.util.ImageVariantSelector;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -20,12 +34,26 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class PostController {
 
+    private static final Comparator<Post> BY_CREATED_AT = Comparator.comparing(
+            Post::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+
     @Autowired
     private PostService postService;
 
     @Autowired
     private StorageService storageService;
 
+    @Autowired
+    private TowerService towerService;
+
+    /**
+     * Create a post
+     * 
+     * POST /api/posts (multipart/form-data)
+     * With ?async=true the post is saved and 202 Accepted is returned right
+     * away; images are uploaded in the background and the post's mediaStatus
+     * changes from "processing" to "ready" (or "failed").
+     */
     @PostMapping(consumes = { "multipart/form-data" })
     public ResponseEntity<?> createPost(
             @RequestHeader("X-User-Id") String userId,
@@ -33,7 +61,8 @@ public class PostController {
             @RequestParam("content") String content,
             @RequestParam("latitude") double latitude,
             @RequestParam("longitude") double longitude,
-            @RequestParam(value = "images", required = false) MultipartFile[] images) {
+            @RequestParam(value = "images", required = false) MultipartFile[] images,
+            @RequestParam(value = "async", defaultValue = "false") boolean async) {
         try {
             // Validate images if provided
             if (images != null && images.length > 0) {
@@ -46,9 +75,16 @@ public class PostController {
             request.setLatitude(latitude);
             request.setLongitude(longitude);
 
+            if (async) {
+                Post post = postService.createPostAsync(userId, username, request, images);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(ApiResponse.success("Post accepted, images are being processed",
+                                CreatedPostResponse.of(post)));
+            }
+
             // Create post with images
-            Map<String, Object> post = postService.createPost(userId, username, request, images);
-            return ResponseEntity.ok(ApiResponse.success("Post created successfully", post));
+            Post post = postService.createPost(userId, username, request, images);
+            return ResponseEntity.ok(ApiResponse.success("Post created successfully", CreatedPostResponse.of(post)));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Validation error: " + e.getMessage()));
@@ -58,14 +94,54 @@ public class PostController {
         }
     }
 
+    /**
+     * Create many posts in one call (seeding, imports)
+     * 
+     * POST /api/posts/bulk
+     * Body: { "posts": [ { "userId", "username", "content", "latitude", "longitude" }, ... ] }
+     * 
+     * Towers are assigned to the whole batch at once and writes are batched,
+     * so thousands of posts take seconds instead of one round trip chain per
+     * post. The response lists a result per post in request order; failed
+     * items do not affect the others.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createPostsBulk(@RequestBody BulkCreatePostsRequest request) {
+        try {
+            BulkCreatePostsResponse response = postService.createPostsBulk(request.getPosts());
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Created " + response.getCreated() + " of " + response.getRequested() + " posts",
+                    response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Validation error: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to create posts: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Get posts near a location
+     * 
+     * POST /api/posts/nearby?coordinatePrecision=5&variant=thumbnail
+     * Optional coordinatePrecision rounds coordinates to that many decimals.
+     * Optional variant (thumbnail, medium, original) picks the image size.
+     * Send "Accept: application/cbor" for a binary (CBOR) response.
+     */
     @PostMapping("/nearby")
-    public ResponseEntity<?> getNearbyPosts(@RequestBody NearbyPostsRequest request) {
+    public ResponseEntity<?> getNearbyPosts(
+            @RequestBody NearbyPostsRequest request,
+            @RequestParam(required = false) Integer coordinatePrecision,
+            @RequestParam(required = false) String variant) {
         try {
-            List<Map<String, Object>> posts = postService.getNearbyPosts(
+            ImageVariantSelector.validate(variant);
+            List<NearbyPostResponse> posts = CoordinateQuantizer.nearbyPosts(postService.getNearbyPosts(
                     request.getLatitude(),
                     request.getLongitude(),
                     request.getRadiusMeters(),
-                    request.getLimit());
+                    request.getLimit()), coordinatePrecision);
+            posts = ImageVariantSelector.nearbyPosts(posts, variant);
 
             return ResponseEntity.ok(ApiResponse.success(
                     "Found " + posts.size() + " nearby posts",
@@ -84,6 +160,7 @@ public class PostController {
      * - limit: Maximum number of posts (default: 100, max: 1000)
      * - sortBy: Sort order - "newest" or "oldest" (default: "newest")
      * - includeStats: Include post statistics (default: false)
+     * - variant: Image size - "thumbnail", "medium" or "original" (default: as stored)
      * 
      * Example: /api/posts/user/abc123?limit=50&sortBy=newest&includeStats=true
      */
@@ -92,7 +169,8 @@ public class PostController {
             @PathVariable String userId,
             @RequestParam(defaultValue = "100") int limit,
             @RequestParam(defaultValue = "newest") String sortBy,
-            @RequestParam(defaultValue = "false") boolean includeStats) {
+            @RequestParam(defaultValue = "false") boolean includeStats,
+            @RequestParam(required = false) String variant) {
 
         // Validate userId
         if (userId == null || userId.trim().isEmpty()) {
@@ -112,8 +190,14 @@ public class PostController {
                     .body(ApiResponse.error("sortBy must be 'newest' or 'oldest'"));
         }
 
+        // Validate variant
+        if (variant != null && !ImageVariants.isKnown(variant)) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("variant must be 'thumbnail', 'medium' or 'original'"));
+        }
+
         try {
-            List<Map<String, Object>> posts = postService.getUserPosts(userId);
+            List<Post> posts = postService.getUserPosts(userId);
 
             // Handle empty result
             if (posts == null || posts.isEmpty()) {
@@ -124,32 +208,16 @@ public class PostController {
 
             // Sort posts
             if (sortBy.equals("oldest")) {
-                posts.sort((a, b) -> {
-                    try {
-                        String dateA = (String) a.get("createdAt");
-                        String dateB = (String) b.get("createdAt");
-                        return dateA.compareTo(dateB);
-                    } catch (Exception e) {
-                        return 0;
-                    }
-                });
+                posts.sort(BY_CREATED_AT);
             } else {
                 // Default: newest first
-                posts.sort((a, b) -> {
-                    try {
-                        String dateA = (String) a.get("createdAt");
-                        String dateB = (String) b.get("createdAt");
-                        return dateB.compareTo(dateA);
-                    } catch (Exception e) {
-                        return 0;
-                    }
-                });
+                posts.sort(BY_CREATED_AT.reversed());
             }
 
             // Apply limit
-            List<Map<String, Object>> limitedPosts = posts.stream()
+            List<Post> limitedPosts = ImageVariantSelector.posts(posts.stream()
                     .limit(limit)
-                    .toList();
+                    .toList(), variant);
 
             // Add statistics if requested
             if (includeStats) {
@@ -160,11 +228,11 @@ public class PostController {
                 stats.put("sortBy", sortBy);
 
                 // Calculate total interactions
-                int totalLikes = posts.stream()
-                        .mapToInt(p -> (Integer) p.getOrDefault("likes", 0))
+                long totalLikes = posts.stream()
+                        .mapToLong(Post::likes)
                         .sum();
-                int totalComments = posts.stream()
-                        .mapToInt(p -> (Integer) p.getOrDefault("commentCount", 0))
+                long totalComments = posts.stream()
+                        .mapToLong(Post::commentCount)
                         .sum();
 
                 stats.put("totalLikes", totalLikes);
@@ -173,10 +241,8 @@ public class PostController {
 
                 // Most liked post
                 posts.stream()
-                        .max((a, b) -> Integer.compare(
-                                (Integer) a.getOrDefault("likes", 0),
-                                (Integer) b.getOrDefault("likes", 0)))
-                        .ifPresent(mostLiked -> stats.put("mostLikedPostId", mostLiked.get("id")));
+                        .max(Comparator.comparingLong(Post::likes))
+                        .ifPresent(mostLiked -> stats.put("mostLikedPostId", mostLiked.id()));
 
                 // Create response with stats
                 Map<String, Object> response = new java.util.HashMap<>();
@@ -266,7 +332,7 @@ public class PostController {
         }
 
         try {
-            List<Map<String, Object>> posts = postService.getUserPosts(userId);
+            List<Post> posts = postService.getUserPosts(userId);
 
             Map<String, Object> stats = new java.util.HashMap<>();
             stats.put("userId", userId);
@@ -286,11 +352,11 @@ public class PostController {
             }
 
             // Calculate statistics
-            int totalLikes = posts.stream()
-                    .mapToInt(p -> (Integer) p.getOrDefault("likes", 0))
+            long totalLikes = posts.stream()
+                    .mapToLong(Post::likes)
                     .sum();
-            int totalComments = posts.stream()
-                    .mapToInt(p -> (Integer) p.getOrDefault("commentCount", 0))
+            long totalComments = posts.stream()
+                    .mapToLong(Post::commentCount)
                     .sum();
 
             stats.put("totalLikes", totalLikes);
@@ -300,30 +366,20 @@ public class PostController {
             stats.put("averageComments", (double) totalComments / posts.size());
 
             // Date range
-            posts.sort((a, b) -> {
-                String dateA = (String) a.get("createdAt");
-                String dateB = (String) b.get("createdAt");
-                return dateA.compareTo(dateB);
-            });
+            posts.sort(BY_CREATED_AT);
 
-            stats.put("firstPostDate", posts.get(0).get("createdAt"));
-            stats.put("lastPostDate", posts.get(posts.size() - 1).get("createdAt"));
+            stats.put("firstPostDate", posts.get(0).createdAt());
+            stats.put("lastPostDate", posts.get(posts.size() - 1).createdAt());
 
             // Most engaged post
             posts.stream()
-                    .max((a, b) -> {
-                        int engagementA = (Integer) a.getOrDefault("likes", 0) +
-                                (Integer) a.getOrDefault("commentCount", 0);
-                        int engagementB = (Integer) b.getOrDefault("likes", 0) +
-                                (Integer) b.getOrDefault("commentCount", 0);
-                        return Integer.compare(engagementA, engagementB);
-                    })
+                    .max(Comparator.comparingLong(p -> p.likes() + p.commentCount()))
                     .ifPresent(mostEngaged -> {
                         stats.put("mostEngagedPost", Map.of(
-                                "id", mostEngaged.get("id"),
-                                "content", mostEngaged.get("content"),
-                                "likes", mostEngaged.get("likes"),
-                                "comments", mostEngaged.get("commentCount")));
+                                "id", mostEngaged.id(),
+                                "content", String.valueOf(mostEngaged.content()),
+                                "likes", mostEngaged.likes(),
+                                "comments", mostEngaged.commentCount()));
                     });
 
             return ResponseEntity.ok(ApiResponse.success(
@@ -336,9 +392,29 @@ public class PostController {
         }
     }
 
+    /**
+     * Get posts grouped into towers
+     * 
+     * POST /api/posts/towers
+     * 
+     * Supports conditional requests: the response carries an ETag and
+     * Last-Modified derived from the tower collection version, which every
+     * tower, membership and listed post change bumps, and a matching
+     * If-None-Match is answered with 304 before any tower or post is read.
+     * 
+     * Optional coordinatePrecision query parameter rounds coordinates to that
+     * many decimals, and variant (thumbnail, medium, original) picks the
+     * image size. Send "Accept: application/cbor" for a binary response.
+     */
     @PostMapping("/towers")
-    public ResponseEntity<?> getPostsGroupedIntoTowers(@RequestBody TowersRequest request) {
+    public ResponseEntity<?> getPostsGroupedIntoTowers(
+            @RequestBody TowersRequest request,
+            @RequestParam(required = false) Integer coordinatePrecision,
+            @RequestParam(required = false) String variant,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
+            ImageVariantSelector.validate(variant);
             int clusterRadius = request.getClusterRadiusMeters() != null
                     ? request.getClusterRadiusMeters()
                     : 50;
@@ -346,13 +422,28 @@ public class PostController {
                     ? request.getMaxPosts()
                     : 1000;
 
-            List<TowerResponse> towers = postService.getPostsGroupedIntoTowers(
+            TowerCollectionVersion version = towerService.getCollectionVersion();
+            String etag = ETagUtils.weakETag("towers", version.version(), clusterRadius, maxPosts,
+                    coordinatePrecision, variant, ETagUtils.selectedMediaType(accept));
+
+            HttpHeaders validators = ETagUtils.validatorHeaders(etag, version.lastModifiedMillis());
+
+            if (ETagUtils.matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .headers(validators)
+                        .build();
+            }
+
+            List<TowerResponse> towers = CoordinateQuantizer.towers(postService.getPostsGroupedIntoTowers(
                     clusterRadius,
-                    maxPosts);
+                    maxPosts), coordinatePrecision);
+            towers = ImageVariantSelector.towers(towers, variant);
 
-            return ResponseEntity.ok(ApiResponse.success(
+            return ResponseEntity.ok()
+                    .headers(validators)
+                    .body(ApiResponse.success(
                     "Found " + towers.size() + " towers with " +
-                            towers.stream().mapToInt(TowerResponse::getPostCount).sum() + " total posts",
+                            towers.stream().mapToInt(TowerResponse::postCount).sum() + " total posts",
                     towers));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -365,13 +456,21 @@ public class PostController {
      * 
      * GET /api/posts/tower/{towerId}/images
      * 
-     * Returns all posts that have images for the specified tower
+     * Returns all posts that have images for the specified tower.
+     * Optional ?variant=thumbnail|medium|original picks the image size.
      */
     @GetMapping("/tower/{towerId}/images")
-    public ResponseEntity<?> getTowerImages(@PathVariable String towerId) {
+    public ResponseEntity<?> getTowerImages(
+            @PathVariable String towerId,
+            @RequestParam(required = false) String variant) {
         System.out.println("🖼️ Received request for tower images: " + towerId);
+        if (variant != null && !ImageVariants.isKnown(variant)) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("variant must be 'thumbnail', 'medium' or 'original'"));
+        }
         try {
-            List<Map<String, Object>> postsWithImages = postService.getPostsWithImagesByTower(towerId);
+            List<Post> postsWithImages = ImageVariantSelector.posts(
+                    postService.getPostsWithImagesByTower(towerId), variant);
             System.out.println("✅ Found " + postsWithImages.size() + " posts with images");
             
             return ResponseEntity.ok(ApiResponse.success(
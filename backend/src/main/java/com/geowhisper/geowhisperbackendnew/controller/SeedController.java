@@ -1,7 +1,9 @@
 package com.geowhisper.geowhisperbackendnew.controller;
 
 import com.geowhisper.geowhisperbackendnew.dto.ApiResponse;
-import com.geowhisper.geowhisperbackendnew.dto.CreatePostRequest;
+import com.geowhisper.geowhisperbackendnew.dto.BulkCreatePostsResponse;
+import com.geowhisper.geowhisperbackendnew.dto.BulkPostItem;
+import com.geowhisper.geowhisperbackendnew.model.Tower;
 import com.geowhisper.geowhisperbackendnew.service.PostService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -91,10 +93,8 @@ public class SeedController {
         }
 
         try {
-            List<String> createdPostIds = new ArrayList<>();
+            List<BulkPostItem> items = new ArrayList<>();
             Random random = new Random();
-            int successCount = 0;
-            int failedCount = 0;
 
             if (clustered) {
                 // Create posts in clusters for tower testing
@@ -111,77 +111,36 @@ public class SeedController {
                     int postsInThisCluster = postsPerCluster + (cluster < remainder ? 1 : 0);
 
                     for (int i = 0; i < postsInThisCluster; i++) {
-                        try {
-                            // Generate posts within 20-40 meters of cluster center
-                            // 0.0001 degrees ≈ 11 meters at Delhi's latitude
-                            double offset = 0.0002 + random.nextDouble() * 0.0002; // 22-44 meters
-                            double angle = random.nextDouble() * 2 * Math.PI;
-
-                            double latitude = clusterCenterLat + offset * Math.cos(angle);
-                            double longitude = clusterCenterLon + offset * Math.sin(angle);
-
-                            // Random content and user
-                            String content = POST_CONTENTS[random.nextInt(POST_CONTENTS.length)];
-                            String username = USERNAMES[random.nextInt(USERNAMES.length)];
-                            String userId = "seed_user_" + random.nextInt(1000);
-
-                            // Create post request
-                            CreatePostRequest request = new CreatePostRequest();
-                            request.setContent(content);
-                            request.setLatitude(latitude);
-                            request.setLongitude(longitude);
-
-                            // Create post
-                            Map<String, Object> post = postService.createPost(userId, username, request, null);
-                            createdPostIds.add((String) post.get("id"));
-                            successCount++;
-
-                        } catch (Exception e) {
-                            failedCount++;
-                            System.err.println(
-                                    "Failed to create post in cluster " + (cluster + 1) + ": " + e.getMessage());
-                        }
+                        // Generate posts within 20-40 meters of cluster center
+                        // 0.0001 degrees ≈ 11 meters at Delhi's latitude
+                        double offset = 0.0002 + random.nextDouble() * 0.0002; // 22-44 meters
+                        double angle = random.nextDouble() * 2 * Math.PI;
+
+                        double latitude = clusterCenterLat + offset * Math.cos(angle);
+                        double longitude = clusterCenterLon + offset * Math.sin(angle);
+
+                        items.add(randomPost(random, latitude, longitude));
                     }
                 }
             } else {
                 // Original behavior: randomly scattered posts
                 for (int i = 0; i < count; i++) {
-                    try {
-                        // Generate random location within ~10km radius of Delhi center
-                        double latOffset = (random.nextDouble() - 0.5) * 0.18; // ~10km
-                        double lonOffset = (random.nextDouble() - 0.5) * 0.18; // ~10km
-
-                        double latitude = DELHI_LAT + latOffset;
-                        double longitude = DELHI_LON + lonOffset;
-
-                        // Random content
-                        String content = POST_CONTENTS[random.nextInt(POST_CONTENTS.length)];
-
-                        // Random username
-                        String username = USERNAMES[random.nextInt(USERNAMES.length)];
-                        String userId = "seed_user_" + random.nextInt(1000);
-
-                        // Create post request
-                        CreatePostRequest request = new CreatePostRequest();
-                        request.setContent(content);
-                        request.setLatitude(latitude);
-                        request.setLongitude(longitude);
+                    // Generate random location within ~10km radius of Delhi center
+                    double latOffset = (random.nextDouble() - 0.5) * 0.18; // ~10km
+                    double lonOffset = (random.nextDouble() - 0.5) * 0.18; // ~10km
 
-                        // Create post
-                        Map<String, Object> post = postService.createPost(userId, username, request, null);
-                        createdPostIds.add((String) post.get("id"));
-                        successCount++;
-
-                    } catch (Exception e) {
-                        failedCount++;
-                        System.err.println("Failed to create post " + (i + 1) + ": " + e.getMessage());
-                    }
+                    items.add(randomPost(random, DELHI_LAT + latOffset, DELHI_LON + lonOffset));
                 }
             }
 
+            // Create all posts with one bulk call
+            List<String> createdPostIds = new ArrayList<>();
+            BulkCreatePostsResponse bulk = createAll(items, createdPostIds);
+            int successCount = bulk.getCreated();
+
             Map<String, Object> result = new HashMap<>();
             result.put("successCount", successCount);
-            result.put("failedCount", failedCount);
+            result.put("failedCount", bulk.getFailed());
             result.put("totalRequested", count);
             result.put("clustered", clustered);
             result.put("location", "Delhi, India");
@@ -217,50 +176,28 @@ public class SeedController {
         }
 
         try {
-            List<String> createdPostIds = new ArrayList<>();
+            List<BulkPostItem> items = new ArrayList<>();
             Random random = new Random();
-            int successCount = 0;
-            int failedCount = 0;
 
             // Convert km to approximate degrees (rough approximation)
             double radiusDegrees = radiusKm / 111.0;
 
             for (int i = 0; i < count; i++) {
-                try {
-                    // Generate random location within specified radius
-                    double latOffset = (random.nextDouble() - 0.5) * 2 * radiusDegrees;
-                    double lonOffset = (random.nextDouble() - 0.5) * 2 * radiusDegrees;
-
-                    double postLatitude = latitude + latOffset;
-                    double postLongitude = longitude + lonOffset;
-
-                    // Random content
-                    String content = POST_CONTENTS[random.nextInt(POST_CONTENTS.length)];
-
-                    // Random username
-                    String username = USERNAMES[random.nextInt(USERNAMES.length)];
-                    String userId = "seed_user_" + random.nextInt(1000);
-
-                    // Create post request
-                    CreatePostRequest request = new CreatePostRequest();
-                    request.setContent(content);
-                    request.setLatitude(postLatitude);
-                    request.setLongitude(postLongitude);
-
-                    // Create post
-                    Map<String, Object> post = postService.createPost(userId, username, request, null);
-                    createdPostIds.add((String) post.get("id"));
-                    successCount++;
-
-                } catch (Exception e) {
-                    failedCount++;
-                    System.err.println("Failed to create post " + (i + 1) + ": " + e.getMessage());
-                }
+                // Generate random location within specified radius
+                double latOffset = (random.nextDouble() - 0.5) * 2 * radiusDegrees;
+                double lonOffset = (random.nextDouble() - 0.5) * 2 * radiusDegrees;
+
+                items.add(randomPost(random, latitude + latOffset, longitude + lonOffset));
             }
 
+            // Create all posts with one bulk call
+            List<String> createdPostIds = new ArrayList<>();
+            BulkCreatePostsResponse bulk = createAll(items, createdPostIds);
+            int successCount = bulk.getCreated();
+
             Map<String, Object> result = new HashMap<>();
             result.put("successCount", successCount);
-            result.put("failedCount", failedCount);
+            result.put("failedCount", bulk.getFailed());
             result.put("totalRequested", count);
             result.put("centerCoordinates", Map.of("latitude", latitude, "longitude", longitude));
             result.put("radiusKm", radiusKm);
@@ -292,11 +229,9 @@ public class SeedController {
         }
 
         try {
-            List<String> createdPostIds = new ArrayList<>();
+            List<BulkPostItem> items = new ArrayList<>();
             List<Map<String, Object>> towerCenters = new ArrayList<>();
             Random random = new Random();
-            int successCount = 0;
-            int failedCount = 0;
 
             // Create exactly the specified number of tower centers
             for (int tower = 0; tower < towerCount; tower++) {
@@ -308,51 +243,42 @@ public class SeedController {
                 towerInfo.put("centerLat", clusterCenterLat);
                 towerInfo.put("centerLon", clusterCenterLon);
                 towerInfo.put("expectedPosts", postsPerTower);
-                int towerSuccessCount = 0;
 
                 // Create posts clustered around this center
                 for (int i = 0; i < postsPerTower; i++) {
-                    try {
-                        // Generate posts within 20-40 meters of cluster center
-                        // 0.0001 degrees ≈ 11 meters at Delhi's latitude
-                        double offset = 0.0002 + random.nextDouble() * 0.0002; // 22-44 meters
-                        double angle = random.nextDouble() * 2 * Math.PI;
-
-                        double latitude = clusterCenterLat + offset * Math.cos(angle);
-                        double longitude = clusterCenterLon + offset * Math.sin(angle);
-
-                        // Random content and user
-                        String content = POST_CONTENTS[random.nextInt(POST_CONTENTS.length)];
-                        String username = USERNAMES[random.nextInt(USERNAMES.length)];
-                        String userId = "seed_user_" + random.nextInt(1000);
+                    // Generate posts within 20-40 meters of cluster center
+                    // 0.0001 degrees ≈ 11 meters at Delhi's latitude
+                    double offset = 0.0002 + random.nextDouble() * 0.0002; // 22-44 meters
+                    double angle = random.nextDouble() * 2 * Math.PI;
 
-                        // Create post request
-                        CreatePostRequest request = new CreatePostRequest();
-                        request.setContent(content);
-                        request.setLatitude(latitude);
-                        request.setLongitude(longitude);
-
-                        // Create post
-                        Map<String, Object> post = postService.createPost(userId, username, request, null);
-                        createdPostIds.add((String) post.get("id"));
-                        successCount++;
-                        towerSuccessCount++;
+                    double latitude = clusterCenterLat + offset * Math.cos(angle);
+                    double longitude = clusterCenterLon + offset * Math.sin(angle);
 
-                    } catch (Exception e) {
-                        failedCount++;
-                        System.err.println("Failed to create post in tower " + (tower + 1) + ": " + e.getMessage());
-                    }
+                    items.add(randomPost(random, latitude, longitude));
                 }
 
-                towerInfo.put("actualPosts", towerSuccessCount);
                 towerCenters.add(towerInfo);
             }
 
+            // Create all posts with one bulk call
+            List<String> createdPostIds = new ArrayList<>();
+            BulkCreatePostsResponse bulk = createAll(items, createdPostIds);
+            int successCount = bulk.getCreated();
+
+            // Posts were generated tower by tower, postsPerTower at a time
+            for (BulkCreatePostsResponse.BulkPostResult postResult : bulk.getResults()) {
+                if (postResult.getSuccess()) {
+                    Map<String, Object> towerInfo = towerCenters.get(postResult.getIndex() / postsPerTower);
+                    towerInfo.merge("actualPosts", 1, (a, b) -> (Integer) a + (Integer) b);
+                }
+            }
+            towerCenters.forEach(towerInfo -> towerInfo.putIfAbsent("actualPosts", 0));
+
             Map<String, Object> result = new HashMap<>();
             result.put("towersCreated", towerCount);
             result.put("postsPerTower", postsPerTower);
             result.put("totalPostsCreated", successCount);
-            result.put("failedPosts", failedCount);
+            result.put("failedPosts", bulk.getFailed());
             result.put("location", "Delhi, India");
             result.put("centerCoordinates", Map.of("latitude", DELHI_LAT, "longitude", DELHI_LON));
             result.put("towerCenters", towerCenters);
@@ -368,20 +294,48 @@ public class SeedController {
         }
     }
 
+    /**
+     * Generate a seed post with random content and author at a location
+     */
+    private static BulkPostItem randomPost(Random random, double latitude, double longitude) {
+        String content = POST_CONTENTS[random.nextInt(POST_CONTENTS.length)];
+        String username = USERNAMES[random.nextInt(USERNAMES.length)];
+        String userId = "seed_user_" + random.nextInt(1000);
+        return new BulkPostItem(userId, username, content, latitude, longitude);
+    }
+
+    /**
+     * Create generated posts with one bulk call, collecting the IDs of the
+     * posts that were created
+     */
+    private BulkCreatePostsResponse createAll(List<BulkPostItem> items, List<String> createdPostIds)
+            throws Exception {
+        BulkCreatePostsResponse bulk = postService.createPostsBulk(items);
+        for (BulkCreatePostsResponse.BulkPostResult postResult : bulk.getResults()) {
+            if (postResult.getSuccess()) {
+                createdPostIds.add(postResult.getPostId());
+            } else {
+                System.err.println("Failed to create post " + (postResult.getIndex() + 1) + ": "
+                        + postResult.getError());
+            }
+        }
+        return bulk;
+    }
+
     @PostMapping("/verify-towers")
     public ResponseEntity<?> verifyTowers() {
         try {
             // This endpoint verifies that towers are being created automatically
             // It provides statistics about existing towers
 
-            List<Map<String, Object>> towers = postService.getAllTowersWithStats();
+            List<Tower> towers = postService.getAllTowersWithStats();
 
             Map<String, Object> stats = new HashMap<>();
             stats.put("totalTowers", towers.size());
             stats.put("towers", towers);
 
             int totalPosts = towers.stream()
-                    .mapToInt(t -> (Integer) t.getOrDefault("postCount", 0))
+                    .mapToInt(Tower::getPostCount)
                     .sum();
             stats.put("totalPostsInTowers", totalPosts);
 
@@ -408,7 +362,7 @@ public class SeedController {
 
         try {
             // Get all towers
-            List<Map<String, Object>> towers = postService.getAllTowersWithStats();
+            List<Tower> towers = postService.getAllTowersWithStats();
 
             if (towers.isEmpty()) {
                 return ResponseEntity.badRequest()
@@ -461,8 +415,8 @@ public class SeedController {
             int failureCount = 0;
 
             for (int towerIndex = 0; towerIndex < maxTowers; towerIndex++) {
-                Map<String, Object> tower = towers.get(towerIndex);
-                String towerId = (String) tower.get("towerId");
+                Tower tower = towers.get(towerIndex);
+                String towerId = tower.getTowerId();
 
                 if (towerId == null || towerId.isEmpty()) {
                     continue;
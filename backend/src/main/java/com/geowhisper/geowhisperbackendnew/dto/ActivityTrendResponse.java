@@ -0,0 +1,31 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityTrendResponse {
+    private String towerId; // null for city-wide activity
+    private Long from;
+    private Long to;
+    private String granularity; // "hour" or "day"
+    private List<TrendPoint> points;
+
+    @Data
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrendPoint {
+        private Long start; // Bucket start (epoch ms, UTC)
+        private Integer messages;
+        private Integer posts;
+        private Integer uniqueUsers; // Estimated from rollup sketches
+    }
+}
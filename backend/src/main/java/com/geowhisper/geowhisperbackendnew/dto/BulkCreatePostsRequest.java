@@ -0,0 +1,14 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Request object for creating many posts in one call")
+public class BulkCreatePostsRequest {
+
+    @Schema(description = "Posts to create; towers are assigned to the whole batch at once", required = true)
+    private List<BulkPostItem> posts;
+}
@@ -0,0 +1,34 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreatePostsResponse {
+    private Integer requested;
+    private Integer created;
+    private Integer failed;
+    private Integer towersCreated;
+    private Integer towersUpdated;
+    private Long durationMs;
+    private List<BulkPostResult> results; // Same order as the request
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BulkPostResult {
+        private Integer index;
+        private Boolean success;
+        private String postId;
+        private String towerId;
+        private String error;
+    }
+}
@@ -0,0 +1,29 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One post in a bulk ingestion request")
+public class BulkPostItem {
+
+    @Schema(description = "ID of the user who authored the post", example = "user123", required = true)
+    private String userId;
+
+    @Schema(description = "Display name of the author", example = "CityWanderer", defaultValue = "Anonymous")
+    private String username;
+
+    @Schema(description = "Content of the post message", example = "Best chai in town! ☕", required = true,
+            maxLength = 500)
+    private String content;
+
+    @Schema(description = "Latitude coordinate of the post location", example = "28.6139", required = true)
+    private double latitude;
+
+    @Schema(description = "Longitude coordinate of the post location", example = "77.2090", required = true)
+    private double longitude;
+}
@@ -0,0 +1,21 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatHistoryResponse {
+    private String towerId;
+    private List<ChatMessageResponse> messages; // Oldest first
+    private Boolean hasMore; // true if older messages exist
+    private Long nextBefore; // Pass as ?before= (with nextBeforeId) to get the previous page
+    private String nextBeforeId;
+    private Boolean cached; // true if served from the in-memory recent window
+}
@@ -0,0 +1,25 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatMessageResponse {
+    private String messageId;
+    private String message;
+    private String userId;
+    private String username;
+    private Long timestamp; // epoch ms
+    private String image;
+    private Boolean hasImage;
+    private String replyTo;
+    private String repliedMessage;
+    private String repliedUsername;
+    private Boolean isPost; // Mirror of a post in the tower chat
+    private String postId;
+}
@@ -0,0 +1,22 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.geowhisper.geowhisperbackendnew.model.Post;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * A newly created post. The post fields are flattened, except that
+ * "createdAt" is epoch milliseconds, as the create endpoint has always
+ * returned it.
+ */
+@Schema(description = "Post returned by the create endpoint")
+public record CreatedPostResponse(
+        @JsonUnwrapped @JsonIgnoreProperties("createdAt") Post post,
+        @Schema(description = "Creation time in epoch milliseconds", example = "1760000000000") Long createdAt) {
+
+    public static CreatedPostResponse of(Post post) {
+        return new CreatedPostResponse(post,
+                post.createdAt() != null ? post.createdAt().toDate().getTime() : null);
+    }
+}
@@ -0,0 +1,23 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeatmapTileResponse {
+    private Integer zoom;
+    private Integer x;
+    private Integer y;
+    private Integer size; // Tile edge in pixels
+    private Integer bandwidthMeters; // Kernel bandwidth actually used
+    private Integer windowHours; // Activity window
+    private Double maxDensity; // Highest density in the tile (weight per km²)
+    private Double saturationDensity; // Density drawn at intensity 255
+    private Long renderedAt; // epoch ms
+    private byte[] intensities; // size x size, row-major from the top-left, log-scaled 0-255 (base64 in JSON)
+}
@@ -0,0 +1,33 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes to the hot zones a stream subscriber sees, relative to what was
+ * last sent to it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotZoneDelta {
+    private Long generation; // Snapshot generation the delta leads to
+    private Long generatedAt; // When that snapshot was computed (epoch ms)
+    private Boolean full; // true for the first event, which lists every visible zone as entered
+    private List<HotZoneResponse> entered; // Zones that became visible
+    private List<HotZoneResponse> changed; // Level changes and score moves above the threshold
+    private List<String> left; // Tower IDs of zones no longer visible
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return (entered == null || entered.isEmpty())
+                && (changed == null || changed.isEmpty())
+                && (left == null || left.isEmpty());
+    }
+}
@@ -0,0 +1,37 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotZoneHistoryResponse {
+    private Long from; // Start of the covered range (epoch ms, whole hour)
+    private Long to; // End of the covered range, exclusive
+    private Integer messageThreshold;
+    private List<HistoricalHotZone> hotZones;
+    private Integer totalHotZones;
+    private Integer totalMessages;
+    private Integer totalPosts;
+    private Integer totalUniqueUsers; // Distinct senders across all towers, estimated
+
+    @Data
+    @Builder(toBuilder = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HistoricalHotZone {
+        private String towerId;
+        private Double latitude;
+        private Double longitude;
+        private Integer messageCount;
+        private Integer postCount;
+        private Integer uniqueUsers; // Estimated from rollup sketches
+        private String activityLevel; // "hot", "very_hot", "extreme"
+    }
+}
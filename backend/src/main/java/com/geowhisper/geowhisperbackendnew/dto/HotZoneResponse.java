@@ -1,28 +1,42 @@
 package com.geowhisper.geowhisperbackendnew.dto;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
 
 import java.util.List;
 
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
-public class HotZoneResponse {
-    private String towerId;
-    private String towerName;
-    private Double latitude;
-    private Double longitude;
-    private Integer messageCount;
-    private Integer uniqueUsers;
-    private String activityLevel; // "hot", "very_hot", "extreme"
-    private Double activityScore; // Normalized score 0-100
-    private Integer messagesLast1Hour;
-    private Integer messagesLast24Hours;
-    private String trendingTopic; // Most discussed topic
-    private List<String> recentUsernames; // Sample of recent active users
-    private Long lastMessageTimestamp;
+/**
+ * Activity of one tower. Immutable, since the same instances are shared by
+ * the cached hot zone snapshot and every response built from it; use
+ * {@link #toBuilder()} for a modified copy.
+ */
+@Builder(toBuilder = true)
+public record HotZoneResponse(
+        String towerId,
+        String towerName,
+        Double latitude,
+        Double longitude,
+        Integer messageCount,
+        Integer uniqueUsers,
+        String activityLevel, // "hot", "very_hot", "extreme"
+        Double activityScore, // Normalized score 0-100
+        Double trendingScore, // Message count decayed by age, recent messages weigh more
+        Integer messagesLast1Hour,
+        Integer messagesLast24Hours,
+        String trendingTopic, // Most discussed topic
+        List<TrendingTopic> trendingTopics, // Top topics, highest score first
+        List<String> recentUsernames, // Sample of recent active users
+        Long lastMessageTimestamp) {
+
+    public HotZoneResponse {
+        trendingTopics = trendingTopics != null ? List.copyOf(trendingTopics) : null;
+        recentUsernames = recentUsernames != null ? List.copyOf(recentUsernames) : null;
+    }
+
+    /**
+     * @param topic Topic term
+     * @param score Recency-weighted number of mentions
+     */
+    @Builder
+    public record TrendingTopic(String topic, Double score) {
+    }
 }
@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class HotZonesMapResponse {
@@ -18,9 +18,14 @@ public class HotZonesMapResponse {
     private Integer timeRangeHours;
     private String searchArea;
     private HotZoneStatistics statistics;
+    private Boolean partial; // true if some towers could not be analysed in time
+    private List<String> skippedTowerIds;
+    private Long generatedAt; // When the underlying data was computed (epoch ms)
+    private Long ageMs; // Age of the data when served; > 0 for snapshot responses
+    private Boolean refreshing; // true if a newer snapshot is being computed
     
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     @NoArgsConstructor
     @AllArgsConstructor
     public static class HotZoneStatistics {
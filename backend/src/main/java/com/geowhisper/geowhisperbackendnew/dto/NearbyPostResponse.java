@@ -0,0 +1,16 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.geowhisper.geowhisperbackendnew.model.Post;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * A post together with its distance from the requesting user.
+ * The post fields are flattened so the JSON shape matches a plain post plus
+ * a "distance" field.
+ */
+@Schema(description = "Post returned by the nearby search, including its distance from the user")
+public record NearbyPostResponse(
+        @JsonUnwrapped Post post,
+        @Schema(description = "Distance from the user in meters (rounded)", example = "120") long distance) {
+}
@@ -0,0 +1,17 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingTowerResponse {
+    private String towerId;
+    private Double latitude;
+    private Double longitude;
+    private Double trendingScore; // Message count decayed by age, recent messages weigh more
+}
@@ -0,0 +1,9 @@
+package com.geowhisper.geowhisperbackendnew.model;
+
+/**
+ * A weighted location feeding the activity heatmap
+ *
+ * @param weight Number of events at the location (e.g. messages in a tower)
+ */
+public record HeatPoint(double latitude, double longitude, double weight) {
+}
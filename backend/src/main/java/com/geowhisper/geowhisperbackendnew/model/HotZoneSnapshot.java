@@ -0,0 +1,32 @@
+package com.geowhisper.geowhisperbackendnew.model;
+
+import com.geowhisper.geowhisperbackendnew.dto.HotZonesMapResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed hot zone state of every tower, published as a whole by the
+ * background refresher. Requests filter it instead of recomputing.
+ *
+ * @param generation            Increases whenever the published content changes
+ * @param computedAt            Time the snapshot was computed (epoch ms)
+ * @param timeRangeHours        Activity window the snapshot was computed for
+ * @param zones                 Every analysed tower (no threshold), busiest first
+ * @param statisticsByThreshold City-wide statistics, filled lazily per threshold
+ */
+public record HotZoneSnapshot(
+        long generation,
+        long computedAt,
+        int timeRangeHours,
+        HotZonesMapResponse zones,
+        Map<Integer, HotZonesMapResponse.HotZoneStatistics> statisticsByThreshold) {
+
+    public HotZoneSnapshot(long generation, long computedAt, int timeRangeHours, HotZonesMapResponse zones) {
+        this(generation, computedAt, timeRangeHours, zones, new ConcurrentHashMap<>());
+    }
+
+    public long ageMillis(long nowMillis) {
+        return Math.max(0, nowMillis - computedAt);
+    }
+}
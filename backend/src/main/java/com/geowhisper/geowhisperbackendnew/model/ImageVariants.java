@@ -0,0 +1,54 @@
+package com.geowhisper.geowhisperbackendnew.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Download URLs for the sizes generated from one post image.
+ * Stored on the post as a list of maps aligned with its "images" list.
+ */
+public record ImageVariants(String thumbnail, String medium, String original) {
+
+    public static final String THUMBNAIL = "thumbnail";
+    public static final String MEDIUM = "medium";
+    public static final String ORIGINAL = "original";
+
+    /**
+     * Variants for an image that could not be resized (every size is the original)
+     */
+    public static ImageVariants originalOnly(String original) {
+        return new ImageVariants(original, original, original);
+    }
+
+    /**
+     * URL of the requested variant, falling back to the original for unknown
+     * names or missing sizes
+     */
+    public String select(String variant) {
+        String url = switch (variant) {
+            case THUMBNAIL -> thumbnail;
+            case MEDIUM -> medium;
+            default -> original;
+        };
+        return url != null ? url : original;
+    }
+
+    public static boolean isKnown(String variant) {
+        return THUMBNAIL.equals(variant) || MEDIUM.equals(variant) || ORIGINAL.equals(variant);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put(THUMBNAIL, thumbnail);
+        map.put(MEDIUM, medium);
+        map.put(ORIGINAL, original);
+        return map;
+    }
+
+    public static ImageVariants fromMap(Map<?, ?> map) {
+        return new ImageVariants(
+                map.get(THUMBNAIL) instanceof String s ? s : null,
+                map.get(MEDIUM) instanceof String s ? s : null,
+                map.get(ORIGINAL) instanceof String s ? s : null);
+    }
+}
@@ -0,0 +1,170 @@
+package com.geowhisper.geowhisperbackendnew.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable read model for a post stored in the Firestore "posts" collection.
+ * Serializes with the same field names the map-based responses used.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Post(
+        String id,
+        String userId,
+        String username,
+        String content,
+        double latitude,
+        double longitude,
+        String towerId,
+        Timestamp createdAt,
+        long likes,
+        long commentCount,
+        List<String> images,
+        int imageCount,
+        String mediaStatus,
+        List<ImageVariants> imageVariants) {
+
+    /** Images of an async post are still being uploaded */
+    public static final String MEDIA_PROCESSING = "processing";
+    /** All images of an async post have been uploaded */
+    public static final String MEDIA_READY = "ready";
+    /** Background upload of an async post's images failed */
+    public static final String MEDIA_FAILED = "failed";
+
+    public Post {
+        images = images != null ? List.copyOf(images) : List.of();
+        imageVariants = imageVariants != null ? List.copyOf(imageVariants) : null;
+    }
+
+    /**
+     * Map a Firestore document straight onto the record without going through
+     * an intermediate {@code Map<String, Object>}.
+     *
+     * @return the post, or null if the document does not exist
+     */
+    public static Post fromDocument(DocumentSnapshot doc) {
+        if (!doc.exists()) {
+            return null;
+        }
+
+        List<String> images = readImages(doc.get("images"));
+        Long imageCount = doc.getLong("imageCount");
+
+        return new Post(
+                doc.getId(),
+                doc.getString("userId"),
+                doc.getString("username"),
+                doc.getString("content"),
+                doubleOrZero(doc.getDouble("latitude")),
+                doubleOrZero(doc.getDouble("longitude")),
+                doc.getString("towerId"),
+                doc.getTimestamp("createdAt"),
+                longOrZero(doc.getLong("likes")),
+                longOrZero(doc.getLong("commentCount")),
+                images,
+                imageCount != null ? imageCount.intValue() : images.size(),
+                doc.getString("mediaStatus"),
+                readImageVariants(doc.get("imageVariants")));
+    }
+
+    /**
+     * Copy of this post with different coordinates (used for quantized payloads)
+     */
+    public Post withCoordinates(double newLatitude, double newLongitude) {
+        return new Post(id, userId, username, content, newLatitude, newLongitude, towerId,
+                createdAt, likes, commentCount, images, imageCount, mediaStatus, imageVariants);
+    }
+
+    /**
+     * Copy of this post whose "images" are the requested variant
+     * (thumbnail, medium or original). Posts without generated variants keep
+     * their original images. The variant table is dropped from the copy since
+     * the caller has already chosen a size.
+     */
+    public Post withImageVariant(String variant) {
+        if (imageVariants == null || imageVariants.size() != images.size()) {
+            return this;
+        }
+        List<String> selected = imageVariants.stream()
+                .map(variants -> variants.select(variant))
+                .toList();
+        return new Post(id, userId, username, content, latitude, longitude, towerId,
+                createdAt, likes, commentCount, selected, imageCount, mediaStatus, null);
+    }
+
+    /**
+     * Every stored URL of this post's images: one entry per original image
+     * (repeated if the post holds the same image twice, since each holds a
+     * storage reference) followed by the distinct generated variants
+     */
+    public List<String> allImageUrls() {
+        if (imageVariants == null) {
+            return images;
+        }
+        List<String> urls = new ArrayList<>(images);
+        Set<String> seen = new HashSet<>(images);
+        for (ImageVariants variants : imageVariants) {
+            for (String url : new String[] { variants.thumbnail(), variants.medium() }) {
+                if (url != null && seen.add(url)) {
+                    urls.add(url);
+                }
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Whether this post was generated by the seed endpoints (not serialized;
+     * the map-based responses never had this field)
+     */
+    @JsonIgnore
+    public boolean isSeeded() {
+        return userId != null && userId.startsWith("seed_user_");
+    }
+
+    public boolean hasImages() {
+        return !images.isEmpty();
+    }
+
+    private static List<String> readImages(Object imagesObj) {
+        if (!(imagesObj instanceof List<?> list) || list.isEmpty()) {
+            return List.of();
+        }
+        List<String> images = new ArrayList<>(list.size());
+        for (Object o : list) {
+            if (o instanceof String url) {
+                images.add(url);
+            }
+        }
+        return images;
+    }
+
+    private static List<ImageVariants> readImageVariants(Object variantsObj) {
+        if (!(variantsObj instanceof List<?> list)) {
+            return null;
+        }
+        List<ImageVariants> variants = new ArrayList<>(list.size());
+        for (Object o : list) {
+            if (o instanceof Map<?, ?> map) {
+                variants.add(ImageVariants.fromMap(map));
+            }
+        }
+        return variants;
+    }
+
+    private static double doubleOrZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static long longOrZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,26 @@
+package com.geowhisper.geowhisperbackendnew.model;
+
+import com.geowhisper.geowhisperbackendnew.util.TopKTermTracker;
+
+import java.util.List;
+
+/**
+ * Chat activity of one tower over a time window, as used for hot zones.
+ *
+ * @param messageCount         Messages in the window
+ * @param messagesLastHour     Messages in the last hour
+ * @param uniqueUsers          Distinct senders in the window
+ * @param recentUsernames      Up to 5 distinct senders from the last hour
+ * @param lastMessageTimestamp Time of the newest message, or null if none
+ * @param topics               Most discussed terms, highest first
+ * @param trendingScore        Message count decayed by age (recent messages weigh more)
+ */
+public record TowerActivity(
+        int messageCount,
+        int messagesLastHour,
+        int uniqueUsers,
+        List<String> recentUsernames,
+        Long lastMessageTimestamp,
+        List<TopKTermTracker.TermCount> topics,
+        double trendingScore) {
+}
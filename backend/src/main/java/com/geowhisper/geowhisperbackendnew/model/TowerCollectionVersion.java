@@ -0,0 +1,22 @@
+package com.geowhisper.geowhisperbackendnew.model;
+
+import com.google.cloud.Timestamp;
+
+/**
+ * Version of the towers collection, bumped on every tower create, update or
+ * delete, when posts join or leave a tower, and when a listed post changes.
+ * Used to build validators (ETag / Last-Modified) for listings that are
+ * derived from towers.
+ *
+ * @param version   Monotonic counter, 0 if no tower has been written yet
+ * @param updatedAt Time of the last version bump, or null if unknown
+ */
+public record TowerCollectionVersion(long version, Timestamp updatedAt) {
+
+    /**
+     * Last modification time in epoch milliseconds, or -1 if unknown
+     */
+    public long lastModifiedMillis() {
+        return updatedAt != null ? updatedAt.toDate().getTime() : -1;
+    }
+}
@@ -1,11 +1,11 @@
 package com.geowhisper.geowhisperbackendnew.service;
 
+import com.geowhisper.geowhisperbackendnew.model.Post;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -14,7 +14,7 @@ public class AIAgentService {
     @Autowired(required = false)
     private ChatClient.Builder chatClientBuilder;
 
-    public String generateVibeSummary(List<Map<String, Object>> posts) {
+    public String generateVibeSummary(List<Post> posts) {
         // Handle AI service not configured
         if (chatClientBuilder == null) {
             return "AI not available";
@@ -29,11 +29,10 @@ public class AIAgentService {
             // Extract post content with usernames if available
             String postsText = posts.stream()
                 .limit(20)
-                .filter(post -> post != null && post.get("content") != null)
+                .filter(post -> post != null && post.content() != null)
                 .map(post -> {
-                    String username = post.get("username") != null ? post.get("username").toString() : "Anonymous";
-                    String content = post.get("content").toString();
-                    return username + ": " + content;
+                    String username = post.username() != null ? post.username() : "Anonymous";
+                    return username + ": " + post.content();
                 })
                 .collect(Collectors.joining("\n- ", "- ", ""));
 
@@ -124,7 +123,7 @@ public class AIAgentService {
         }
     }
 
-    public String analyzeTrendingZone(List<Map<String, Object>> posts, String zoneName) {
+    public String analyzeTrendingZone(List<Post> posts, String zoneName) {
         if (posts.isEmpty()) {
             return String.format("%s is quiet right now.", zoneName);
         }
@@ -0,0 +1,530 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.geowhisper.geowhisperbackendnew.dto.ActivityTrendResponse;
+import com.geowhisper.geowhisperbackendnew.dto.HotZoneHistoryResponse;
+import com.geowhisper.geowhisperbackendnew.util.GeoUtils;
+import com.geowhisper.geowhisperbackendnew.util.HyperLogLog;
+import com.geowhisper.geowhisperbackendnew.util.SlidingWindowCounter;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Persistent hourly activity rollups, for hot zone and trend queries over
+ * past days without re-reading chat history.
+ *
+ * Every hour the completed hours of each tracked tower are written to one
+ * Firestore document per tower and UTC day ("activityRollups/{towerId}_{yyyyMMdd}"),
+ * holding per-hour message and post counts and a distinct-sender
+ * HyperLogLog sketch. Writes are idempotent merges, and the last few hours
+ * are rewritten each run so restarts and late messages are covered. Once a
+ * day has ended it is downsampled: daily totals and a merged daily sketch
+ * are added, and after a retention period the hourly sketches are dropped
+ * while the hourly counts stay.
+ *
+ * Queries read one Firestore query per day in the range. Days that can no
+ * longer change are kept in a small LRU cache, so repeated queries over
+ * past weeks are answered from memory.
+ */
+@Service
+@Slf4j
+public class ActivityRollupService {
+
+    private static final String COLLECTION = "activityRollups";
+    private static final long HOUR_MILLIS = SlidingWindowCounter.HOUR_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    private static final int MAX_BATCH_WRITES = 400;
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd")
+            .withZone(ZoneOffset.UTC);
+
+    @Autowired
+    private Firestore firestore;
+
+    @Autowired
+    private TowerActivityTracker activityTracker;
+
+    @Value("${hotzones.rollups.enabled:true}")
+    private boolean enabled;
+
+    // Completed hours rewritten on every run (at most 24)
+    @Value("${hotzones.rollups.rewrite-hours:3}")
+    private int rewriteHours;
+
+    @Value("${hotzones.rollups.hourly-sketch-retention-days:30}")
+    private int hourlySketchRetentionDays;
+
+    @Value("${hotzones.rollups.max-range-days:92}")
+    private int maxRangeDays;
+
+    @Value("${hotzones.rollups.cache-days:62}")
+    private int cacheDays;
+
+    /**
+     * One rollup document, parsed. Sketches stay serialized until needed.
+     */
+    private record DayRollup(String towerId, long dayStart, Double latitude, Double longitude,
+            int[] messages, int[] posts, byte[][] sketches, byte[] daySketch) {
+    }
+
+    /**
+     * Running totals for one tower or bucket
+     */
+    private static class Totals {
+        Double latitude;
+        Double longitude;
+        int messages;
+        int posts;
+        final HyperLogLog senders = new HyperLogLog();
+    }
+
+    // Days that can no longer change, by day key
+    private final Map<String, List<DayRollup>> closedDays = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<DayRollup>> eldest) {
+            return size() > cacheDays;
+        }
+    };
+
+    /**
+     * Persist the last completed hours, then downsample ended days and drop
+     * expired hourly sketches
+     */
+    @Scheduled(cron = "${hotzones.rollups.cron:0 5 * * * *}", zone = "UTC")
+    public void rollUp() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int written = writeHours(System.currentTimeMillis());
+            int downsampled = downsampleEndedDays();
+            int pruned = pruneHourlySketches();
+            log.info("Activity rollups: {} tower-hours written, {} days downsampled, {} days pruned",
+                    written, downsampled, pruned);
+        } catch (Exception e) {
+            log.warn("Activity rollup failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Hot zones over a past range, from the rollups
+     *
+     * @param from Range start (epoch ms), rounded down to the hour
+     * @param to   Range end (epoch ms, exclusive), rounded up to the hour
+     */
+    public HotZoneHistoryResponse getHistoricalHotZones(long from, long to, int messageThreshold,
+            Double latitude, Double longitude, Double radiusKm) throws ExecutionException, InterruptedException {
+        long start = floorHour(from);
+        long end = ceilHour(to);
+        validateRange(start, end);
+
+        Map<String, Totals> byTower = new HashMap<>();
+        HyperLogLog allSenders = new HyperLogLog();
+        int totalMessages = 0;
+        int totalPosts = 0;
+        for (DayRollup rollup : load(start, end, null)) {
+            Totals totals = byTower.computeIfAbsent(rollup.towerId(), id -> new Totals());
+            accumulate(rollup, start, end, totals);
+        }
+
+        List<HotZoneHistoryResponse.HistoricalHotZone> zones = new ArrayList<>();
+        for (Map.Entry<String, Totals> entry : byTower.entrySet()) {
+            Totals totals = entry.getValue();
+            if (latitude != null && longitude != null && (totals.latitude == null || totals.longitude == null
+                    || !GeoUtils.isWithinRadius(latitude, longitude, totals.latitude, totals.longitude,
+                            radiusKm != null ? radiusKm : 10.0))) {
+                continue;
+            }
+            totalMessages += totals.messages;
+            totalPosts += totals.posts;
+            allSenders.merge(totals.senders);
+            if (totals.messages < messageThreshold) {
+                continue;
+            }
+            zones.add(HotZoneHistoryResponse.HistoricalHotZone.builder()
+                    .towerId(entry.getKey())
+                    .latitude(totals.latitude)
+                    .longitude(totals.longitude)
+                    .messageCount(totals.messages)
+                    .postCount(totals.posts)
+                    .uniqueUsers((int) totals.senders.estimate())
+                    .activityLevel(activityLevel(totals.messages))
+                    .build());
+        }
+        zones.sort(Comparator.comparing(HotZoneHistoryResponse.HistoricalHotZone::getMessageCount).reversed());
+
+        return HotZoneHistoryResponse.builder()
+                .from(start)
+                .to(end)
+                .messageThreshold(messageThreshold)
+                .hotZones(zones)
+                .totalHotZones(zones.size())
+                .totalMessages(totalMessages)
+                .totalPosts(totalPosts)
+                .totalUniqueUsers((int) allSenders.estimate())
+                .build();
+    }
+
+    /**
+     * Activity over a past range as a time series
+     *
+     * @param towerId     Tower to report, or null for all towers
+     * @param granularity "hour" or "day" (UTC days)
+     */
+    public ActivityTrendResponse getActivityTrend(String towerId, long from, long to, String granularity)
+            throws ExecutionException, InterruptedException {
+        boolean hourly = "hour".equalsIgnoreCase(granularity);
+        if (!hourly && !"day".equalsIgnoreCase(granularity)) {
+            throw new IllegalArgumentException("Granularity must be 'hour' or 'day'");
+        }
+        long bucketMillis = hourly ? HOUR_MILLIS : DAY_MILLIS;
+        long start = hourly ? floorHour(from) : Math.floorDiv(from, DAY_MILLIS) * DAY_MILLIS;
+        long end = hourly ? ceilHour(to) : Math.floorDiv(to + DAY_MILLIS - 1, DAY_MILLIS) * DAY_MILLIS;
+        validateRange(start, end);
+
+        int bucketCount = (int) ((end - start) / bucketMillis);
+        Totals[] buckets = new Totals[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Totals();
+        }
+
+        for (DayRollup rollup : load(start, end, towerId)) {
+            long dayEnd = rollup.dayStart() + DAY_MILLIS;
+            // Buckets are whole hours or days, so they never straddle two rollups
+            for (long bucketStart = Math.max(start, rollup.dayStart()); bucketStart < Math.min(end, dayEnd);
+                    bucketStart += bucketMillis) {
+                int index = (int) ((bucketStart - start) / bucketMillis);
+                accumulate(rollup, bucketStart, bucketStart + bucketMillis, buckets[index]);
+            }
+        }
+
+        List<ActivityTrendResponse.TrendPoint> points = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            points.add(ActivityTrendResponse.TrendPoint.builder()
+                    .start(start + i * bucketMillis)
+                    .messages(buckets[i].messages)
+                    .posts(buckets[i].posts)
+                    .uniqueUsers((int) buckets[i].senders.estimate())
+                    .build());
+        }
+
+        return ActivityTrendResponse.builder()
+                .towerId(towerId)
+                .from(start)
+                .to(end)
+                .granularity(hourly ? "hour" : "day")
+                .points(points)
+                .build();
+    }
+
+    /**
+     * Write the last rewriteHours completed hours of every tracked tower
+     */
+    private int writeHours(long now) throws ExecutionException, InterruptedException {
+        int currentHour = (int) (now / HOUR_MILLIS);
+        int hours = Math.max(1, Math.min(23, rewriteHours));
+        int written = 0;
+        WriteBatch batch = firestore.batch();
+        int batched = 0;
+
+        for (int hour = currentHour - hours; hour < currentHour; hour++) {
+            long hourStart = hour * HOUR_MILLIS;
+            long dayStart = hourStart - hourStart % DAY_MILLIS;
+            String hourKey = String.format("%02d", (hourStart - dayStart) / HOUR_MILLIS);
+
+            for (TowerActivityTracker.HourRollup rollup : activityTracker.hourRollups(hour)) {
+                Map<String, Object> hourData = new HashMap<>();
+                hourData.put("messages", rollup.messages());
+                hourData.put("posts", rollup.posts());
+                hourData.put("uniqueUsers", rollup.senders().estimate());
+                hourData.put("sketch", Blob.fromBytes(rollup.senders().toByteArray()));
+
+                Map<String, Object> data = new HashMap<>();
+                data.put("towerId", rollup.towerId());
+                data.put("day", dayKey(dayStart));
+                data.put("dayStart", dayStart);
+                if (rollup.latitude() != null && rollup.longitude() != null) {
+                    data.put("latitude", rollup.latitude());
+                    data.put("longitude", rollup.longitude());
+                }
+                // Marks the day for downsampling once it has ended
+                data.put("openUntil", dayStart + DAY_MILLIS);
+                data.put("updatedAt", now);
+                data.put("hours", Map.of(hourKey, hourData));
+
+                batch.set(document(rollup.towerId(), dayStart), data, SetOptions.merge());
+                written++;
+                if (++batched == MAX_BATCH_WRITES) {
+                    batch.commit().get();
+                    batch = firestore.batch();
+                    batched = 0;
+                }
+            }
+        }
+        if (batched > 0) {
+            batch.commit().get();
+        }
+        return written;
+    }
+
+    /**
+     * Add daily totals and a merged daily sketch to every day that has ended
+     */
+    private int downsampleEndedDays() throws ExecutionException, InterruptedException {
+        long now = System.currentTimeMillis();
+        List<QueryDocumentSnapshot> ended = firestore.collection(COLLECTION)
+                .whereLessThanOrEqualTo("openUntil", now)
+                .get().get().getDocuments();
+
+        WriteBatch batch = firestore.batch();
+        int batched = 0;
+        for (QueryDocumentSnapshot document : ended) {
+            DayRollup rollup = parse(document);
+            int messages = 0;
+            int posts = 0;
+            HyperLogLog senders = new HyperLogLog();
+            for (int hour = 0; hour < 24; hour++) {
+                messages += rollup.messages()[hour];
+                posts += rollup.posts()[hour];
+                if (rollup.sketches()[hour] != null) {
+                    senders.merge(HyperLogLog.fromByteArray(rollup.sketches()[hour]));
+                }
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("messages", messages);
+            updates.put("posts", posts);
+            updates.put("uniqueUsers", senders.estimate());
+            updates.put("sketch", Blob.fromBytes(senders.toByteArray()));
+            updates.put("openUntil", FieldValue.delete());
+            updates.put("sketchesExpireAt", rollup.dayStart() + (hourlySketchRetentionDays + 1L) * DAY_MILLIS);
+            batch.update(document.getReference(), updates);
+            if (++batched == MAX_BATCH_WRITES) {
+                batch.commit().get();
+                batch = firestore.batch();
+                batched = 0;
+            }
+        }
+        if (batched > 0) {
+            batch.commit().get();
+        }
+        return ended.size();
+    }
+
+    /**
+     * Drop the hourly sketches of days past the retention period; hourly
+     * counts and the daily sketch stay
+     */
+    @SuppressWarnings("unchecked")
+    private int pruneHourlySketches() throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> expired = firestore.collection(COLLECTION)
+                .whereLessThanOrEqualTo("sketchesExpireAt", System.currentTimeMillis())
+                .get().get().getDocuments();
+
+        WriteBatch batch = firestore.batch();
+        int batched = 0;
+        for (QueryDocumentSnapshot document : expired) {
+            Map<String, Object> hours = new HashMap<>();
+            Object stored = document.get("hours");
+            if (stored instanceof Map) {
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) stored).entrySet()) {
+                    if (entry.getValue() instanceof Map) {
+                        Map<String, Object> hourData = new HashMap<>((Map<String, Object>) entry.getValue());
+                        hourData.remove("sketch");
+                        hours.put(entry.getKey(), hourData);
+                    }
+                }
+            }
+            batch.update(document.getReference(), "hours", hours, "sketchesExpireAt", FieldValue.delete());
+            if (++batched == MAX_BATCH_WRITES) {
+                batch.commit().get();
+                batch = firestore.batch();
+                batched = 0;
+            }
+        }
+        if (batched > 0) {
+            batch.commit().get();
+        }
+        return expired.size();
+    }
+
+    /**
+     * Rollups of the days overlapping [start, end), for one tower or all.
+     * Uncached days are read in parallel.
+     */
+    private List<DayRollup> load(long start, long end, String towerId)
+            throws ExecutionException, InterruptedException {
+        long now = System.currentTimeMillis();
+        List<DayRollup> rollups = new ArrayList<>();
+        Map<String, ApiFuture<QuerySnapshot>> dayQueries = new LinkedHashMap<>();
+        List<DocumentReference> towerDays = new ArrayList<>();
+
+        for (long dayStart = start - start % DAY_MILLIS; dayStart < end; dayStart += DAY_MILLIS) {
+            String day = dayKey(dayStart);
+            List<DayRollup> cached;
+            synchronized (closedDays) {
+                cached = closedDays.get(day);
+            }
+            if (cached != null) {
+                for (DayRollup rollup : cached) {
+                    if (towerId == null || towerId.equals(rollup.towerId())) {
+                        rollups.add(rollup);
+                    }
+                }
+            } else if (towerId != null) {
+                towerDays.add(document(towerId, dayStart));
+            } else {
+                dayQueries.put(day, firestore.collection(COLLECTION).whereEqualTo("day", day).get());
+            }
+        }
+
+        if (!towerDays.isEmpty()) {
+            for (DocumentSnapshot document : firestore.getAll(towerDays.toArray(new DocumentReference[0])).get()) {
+                if (document.exists()) {
+                    rollups.add(parse(document));
+                }
+            }
+        }
+
+        for (Map.Entry<String, ApiFuture<QuerySnapshot>> query : dayQueries.entrySet()) {
+            List<DayRollup> day = new ArrayList<>();
+            boolean closed = true;
+            for (QueryDocumentSnapshot document : query.getValue().get().getDocuments()) {
+                day.add(parse(document));
+                closed &= document.get("openUntil") == null;
+            }
+            rollups.addAll(day);
+
+            // Days are rewritten for a few hours after they end, then frozen
+            long dayEnd = day.isEmpty() ? Long.MAX_VALUE : day.get(0).dayStart() + DAY_MILLIS;
+            if (closed && !day.isEmpty() && now > dayEnd + (rewriteHours + 1L) * HOUR_MILLIS) {
+                synchronized (closedDays) {
+                    closedDays.put(query.getKey(), List.copyOf(day));
+                }
+            }
+        }
+        return rollups;
+    }
+
+    /**
+     * Add the part of a day's rollup that falls in [from, to). Distinct
+     * senders come from the hourly sketches; once those have expired the
+     * daily sketch is used, which counts the whole day's senders.
+     */
+    private static void accumulate(DayRollup rollup, long from, long to, Totals totals) {
+        if (totals.latitude == null) {
+            totals.latitude = rollup.latitude();
+            totals.longitude = rollup.longitude();
+        }
+
+        boolean wholeDay = from <= rollup.dayStart() && to >= rollup.dayStart() + DAY_MILLIS;
+        boolean active = false;
+        boolean hourSketches = false;
+        for (int hour = 0; hour < 24; hour++) {
+            long hourStart = rollup.dayStart() + hour * HOUR_MILLIS;
+            if (hourStart < from || hourStart >= to || rollup.messages()[hour] == 0) {
+                continue;
+            }
+            active = true;
+            totals.messages += rollup.messages()[hour];
+            totals.posts += rollup.posts()[hour];
+            if (!wholeDay && rollup.sketches()[hour] != null) {
+                totals.senders.merge(HyperLogLog.fromByteArray(rollup.sketches()[hour]));
+                hourSketches = true;
+            }
+        }
+
+        if (active && !hourSketches) {
+            if (rollup.daySketch() != null) {
+                totals.senders.merge(HyperLogLog.fromByteArray(rollup.daySketch()));
+            } else {
+                // Day not downsampled yet
+                for (byte[] sketch : rollup.sketches()) {
+                    if (sketch != null) {
+                        totals.senders.merge(HyperLogLog.fromByteArray(sketch));
+                    }
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DayRollup parse(DocumentSnapshot document) {
+        int[] messages = new int[24];
+        int[] posts = new int[24];
+        byte[][] sketches = new byte[24][];
+
+        Object stored = document.get("hours");
+        if (stored instanceof Map) {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) stored).entrySet()) {
+                if (!(entry.getValue() instanceof Map)) {
+                    continue;
+                }
+                int hour = Integer.parseInt(entry.getKey());
+                Map<String, Object> hourData = (Map<String, Object>) entry.getValue();
+                messages[hour] = intValue(hourData.get("messages"));
+                posts[hour] = intValue(hourData.get("posts"));
+                if (hourData.get("sketch") instanceof Blob sketch) {
+                    sketches[hour] = sketch.toBytes();
+                }
+            }
+        }
+
+        Blob daySketch = document.getBlob("sketch");
+        Long dayStart = document.getLong("dayStart");
+        return new DayRollup(document.getString("towerId"), dayStart != null ? dayStart : 0,
+                document.getDouble("latitude"), document.getDouble("longitude"),
+                messages, posts, sketches, daySketch != null ? daySketch.toBytes() : null);
+    }
+
+    private void validateRange(long start, long end) {
+        if (end <= start) {
+            throw new IllegalArgumentException("'to' must be after 'from'");
+        }
+        if (end - start > maxRangeDays * DAY_MILLIS) {
+            throw new IllegalArgumentException("Range must not exceed " + maxRangeDays + " days");
+        }
+    }
+
+    private DocumentReference document(String towerId, long dayStart) {
+        return firestore.collection(COLLECTION).document(towerId + "_" + dayKey(dayStart));
+    }
+
+    private static String dayKey(long dayStart) {
+        return DAY_FORMAT.format(Instant.ofEpochMilli(dayStart));
+    }
+
+    private static long floorHour(long millis) {
+        return Math.floorDiv(millis, HOUR_MILLIS) * HOUR_MILLIS;
+    }
+
+    private static long ceilHour(long millis) {
+        return Math.floorDiv(millis + HOUR_MILLIS - 1, HOUR_MILLIS) * HOUR_MILLIS;
+    }
+
+    private static int intValue(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    /**
+     * Same levels as live hot zones
+     */
+    private static String activityLevel(int messageCount) {
+        if (messageCount >= 200) {
+            return "extreme";
+        } else if (messageCount >= 100) {
+            return "very_hot";
+        } else {
+            return "hot";
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.geowhisper.geowhisperbackendnew.dto.ChatHistoryResponse;
+import com.geowhisper.geowhisperbackendnew.dto.ChatMessageResponse;
+import com.google.firebase.database.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cursor-paginated chat history of a tower.
+ *
+ * Pages are read newest first with orderByChild("timestamp") and
+ * limitToLast, ending just before the cursor: the timestamp and key of the
+ * oldest message of the previous page, so messages sharing a timestamp are
+ * neither skipped nor repeated.
+ *
+ * Pages that fall within the tower's newest messages, including the first
+ * page, are served from {@link TowerMessageBuffer} without a database
+ * round trip; only older pages query RTDB.
+ */
+@Service
+@Slf4j
+public class ChatHistoryService {
+
+    private static final long QUERY_TIMEOUT_SECONDS = 10;
+
+    @Autowired
+    private TowerMessageBuffer messageBuffer;
+
+    @Value("${chat.history.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * Page of messages older than the cursor, or the newest page without one
+     *
+     * @param before   Timestamp of the cursor message, or null for the newest page
+     * @param beforeId Key of the cursor message, to break timestamp ties (optional)
+     */
+    public CompletableFuture<ChatHistoryResponse> getMessages(String towerId, Long before, String beforeId,
+            Integer limit) {
+        int pageSize = Math.max(1, Math.min(maxPageSize, limit != null ? limit : 50));
+
+        return messageBuffer.snapshot(towerId)
+                .thenApply(snapshot -> pageFromBuffer(towerId, snapshot, before, beforeId, pageSize))
+                .exceptionally(ex -> null)
+                .thenCompose(page -> page != null
+                        ? CompletableFuture.completedFuture(page)
+                        : query(towerId, before, beforeId, pageSize + 1).thenApply(messages -> page(towerId,
+                                messages, pageSize, messages.size() > pageSize, false)));
+    }
+
+    /**
+     * Page from the buffered messages, or null if it reaches past them
+     */
+    private ChatHistoryResponse pageFromBuffer(String towerId, TowerMessageBuffer.Snapshot snapshot, Long before,
+            String beforeId, int pageSize) {
+        List<ChatMessageResponse> messages = snapshot.messages();
+        int end = messages.size();
+        if (before != null) {
+            while (end > 0 && !isBeforeCursor(messages.get(end - 1), before, beforeId)) {
+                end--;
+            }
+        }
+        int start = Math.max(0, end - pageSize);
+        if (end - start < pageSize && !snapshot.complete()) {
+            // Older messages are only in RTDB
+            return null;
+        }
+        return page(towerId, messages.subList(start, end), pageSize, start > 0 || !snapshot.complete(), true);
+    }
+
+    private ChatHistoryResponse page(String towerId, List<ChatMessageResponse> messages, int pageSize,
+            boolean hasMore, boolean cached) {
+        List<ChatMessageResponse> pageMessages = messages.size() > pageSize
+                ? messages.subList(messages.size() - pageSize, messages.size())
+                : messages;
+        ChatMessageResponse oldest = pageMessages.isEmpty() ? null : pageMessages.get(0);
+        return ChatHistoryResponse.builder()
+                .towerId(towerId)
+                .messages(List.copyOf(pageMessages))
+                .hasMore(hasMore && oldest != null)
+                .nextBefore(hasMore && oldest != null ? oldest.getTimestamp() : null)
+                .nextBeforeId(hasMore && oldest != null ? oldest.getMessageId() : null)
+                .cached(cached)
+                .build();
+    }
+
+    /**
+     * Up to count messages older than the cursor, oldest first
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<List<ChatMessageResponse>> query(String towerId, Long before, String beforeId,
+            int count) {
+        CompletableFuture<List<ChatMessageResponse>> future = new CompletableFuture<>();
+        Query query = FirebaseDatabase.getInstance()
+                .getReference("chats/" + towerId + "/messages")
+                .orderByChild("timestamp");
+        if (before != null && beforeId != null) {
+            // endAt(value, key) includes the cursor message itself; it is dropped below
+            query = query.endAt(before, beforeId).limitToLast(count + 1);
+        } else if (before != null) {
+            query = query.endAt(before - 1).limitToLast(count);
+        } else {
+            query = query.limitToLast(count);
+        }
+
+        Query finalQuery = query;
+        ValueEventListener listener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                List<ChatMessageResponse> messages = new ArrayList<>();
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    Object value = child.getValue();
+                    if (value instanceof Map && ((Map<String, Object>) value).containsKey("message")
+                            && !child.getKey().equals(beforeId)) {
+                        messages.add(TowerMessageBuffer.parse(child.getKey(), (Map<String, Object>) value));
+                    }
+                }
+                future.complete(messages.size() > count ? messages.subList(messages.size() - count,
+                        messages.size()) : messages);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                future.completeExceptionally(error.toException());
+            }
+        };
+        finalQuery.addListenerForSingleValueEvent(listener);
+
+        return future.orTimeout(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .whenComplete((messages, ex) -> {
+                    if (ex != null) {
+                        finalQuery.removeEventListener(listener);
+                        log.warn("Chat history query failed for tower {}: {}", towerId, ex.getMessage());
+                    }
+                });
+    }
+
+    private static boolean isBeforeCursor(ChatMessageResponse message, long before, String beforeId) {
+        if (message.getTimestamp() != before) {
+            return message.getTimestamp() < before;
+        }
+        return beforeId != null && message.getMessageId().compareTo(beforeId) < 0;
+    }
+}
@@ -22,6 +22,9 @@ public class ChatService {
     @Autowired
     private LocationPermissionService locationPermissionService;
 
+    @Autowired
+    private TowerActivityTracker activityTracker;
+
     /**
      * Send a chat message to a tower with location validation
      * 
@@ -82,6 +85,7 @@ public class ChatService {
             }
 
             newMessageRef.setValueAsync(messageData);
+            activityTracker.record(towerId, messageId, messageData);
 
             Map<String, Object> response = new HashMap<>();
             response.put("messageId", messageId);
@@ -1,5 +1,6 @@
 package com.geowhisper.geowhisperbackendnew.service;
 
+import com.geowhisper.geowhisperbackendnew.dto.ChatMessageResponse;
 import com.geowhisper.geowhisperbackendnew.dto.ChatSummaryRequest;
 import com.geowhisper.geowhisperbackendnew.dto.ChatSummaryResponse;
 import com.google.firebase.database.*;
@@ -19,6 +20,7 @@ import java.util.stream.Collectors;
 public class ChatSummaryService {
     
     private final OpenAIService openAIService;
+    private final TowerMessageBuffer messageBuffer;
     
     /**
      * Generate AI-powered chat summary for a tower
@@ -43,10 +45,9 @@ public class ChatSummaryService {
         }
         
         try {
-            // Fetch actual messages from Firebase Realtime Database
             log.info("Fetching chat messages for tower: {}", request.getTowerId());
             
-            List<ChatMessage> messages = fetchMessagesFromFirebase(
+            List<ChatMessageResponse> messages = fetchMessages(
                 request.getTowerId(), 
                 request.getMessageLimit(),
                 request.getTimeRangeHours()
@@ -73,7 +74,7 @@ public class ChatSummaryService {
                     .collect(Collectors.toList());
             
             int uniqueParticipants = (int) messages.stream()
-                    .map(ChatMessage::getUserId)
+                    .map(ChatMessageResponse::getUserId)
                     .distinct()
                     .count();
             
@@ -196,11 +197,38 @@ public class ChatSummaryService {
         return "Last " + request.getMessageLimit() + " messages";
     }
     
+    /**
+     * Newest messages of a tower, from the shared message buffer when it
+     * holds enough of them
+     */
+    private List<ChatMessageResponse> fetchMessages(String towerId, Integer messageLimit, Integer timeRangeHours) {
+        int limit = messageLimit != null ? messageLimit : 100;
+        if (limit > messageBuffer.capacity()) {
+            return fetchMessagesFromFirebase(towerId, messageLimit, timeRangeHours);
+        }
+
+        try {
+            // The newest `capacity` messages include the newest `limit` of any time range
+            List<ChatMessageResponse> buffered = messageBuffer.snapshot(towerId).get(10, TimeUnit.SECONDS).messages();
+            long timeThreshold = timeRangeHours != null && timeRangeHours > 0
+                    ? System.currentTimeMillis() - (timeRangeHours * 60 * 60 * 1000L)
+                    : Long.MIN_VALUE;
+            List<ChatMessageResponse> messages = buffered.stream()
+                    .filter(msg -> msg.getTimestamp() >= timeThreshold)
+                    .toList();
+            return messages.subList(Math.max(0, messages.size() - limit), messages.size());
+        } catch (Exception e) {
+            log.warn("Message buffer unavailable for tower {}, querying Firebase: {}", towerId, e.getMessage());
+            return fetchMessagesFromFirebase(towerId, messageLimit, timeRangeHours);
+        }
+    }
+    
     /**
      * Fetch chat messages from Firebase Realtime Database for a specific tower
      */
-    private List<ChatMessage> fetchMessagesFromFirebase(String towerId, Integer messageLimit, Integer timeRangeHours) {
-        List<ChatMessage> messages = new ArrayList<>();
+    private List<ChatMessageResponse> fetchMessagesFromFirebase(String towerId, Integer messageLimit,
+            Integer timeRangeHours) {
+        List<ChatMessageResponse> messages = new ArrayList<>();
         CountDownLatch latch = new CountDownLatch(1);
         
         try {
@@ -230,22 +258,7 @@ public class ChatSummaryService {
                             try {
                                 Map<String, Object> data = (Map<String, Object>) messageSnapshot.getValue();
                                 if (data != null && data.containsKey("message")) {
-                                    ChatMessage msg = new ChatMessage();
-                                    msg.setMessageId(messageSnapshot.getKey());
-                                    msg.setMessage(String.valueOf(data.get("message")));
-                                    msg.setUserId(String.valueOf(data.getOrDefault("userId", "unknown")));
-                                    msg.setUsername(String.valueOf(data.getOrDefault("username", "Anonymous")));
-                                    
-                                    Object timestampObj = data.get("timestamp");
-                                    if (timestampObj instanceof Long) {
-                                        msg.setTimestamp((Long) timestampObj);
-                                    } else if (timestampObj instanceof Integer) {
-                                        msg.setTimestamp(((Integer) timestampObj).longValue());
-                                    } else {
-                                        msg.setTimestamp(System.currentTimeMillis());
-                                    }
-                                    
-                                    messages.add(msg);
+                                    messages.add(TowerMessageBuffer.parse(messageSnapshot.getKey(), data));
                                 }
                             } catch (Exception e) {
                                 log.warn("Error parsing message {}: {}", messageSnapshot.getKey(), e.getMessage());
@@ -275,30 +288,4 @@ public class ChatSummaryService {
         
         return messages;
     }
-    
-    /**
-     * Inner class to represent a chat message
-     */
-    private static class ChatMessage {
-        private String messageId;
-        private String message;
-        private String userId;
-        private String username;
-        private Long timestamp;
-        
-        public String getMessageId() { return messageId; }
-        public void setMessageId(String messageId) { this.messageId = messageId; }
-        
-        public String getMessage() { return message; }
-        public void setMessage(String message) { this.message = message; }
-        
-        public String getUserId() { return userId; }
-        public void setUserId(String userId) { this.userId = userId; }
-        
-        public String getUsername() { return username; }
-        public void setUsername(String username) { this.username = username; }
-        
-        public Long getTimestamp() { return timestamp; }
-        public void setTimestamp(Long timestamp) { this.timestamp = timestamp; }
-    }
 }
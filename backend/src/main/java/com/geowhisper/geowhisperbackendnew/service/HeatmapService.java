@@ -0,0 +1,423 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.geowhisper.geowhisperbackendnew.dto.HeatmapTileResponse;
+import com.geowhisper.geowhisperbackendnew.model.HeatPoint;
+import com.geowhisper.geowhisperbackendnew.util.KernelDensityRaster;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Activity heatmap tiles: a kernel density estimate of recent posts (at
+ * their own location) and chat messages (at their tower), rendered per
+ * Web Mercator tile.
+ *
+ * Rendered tiles are kept in a bounded LRU cache. A new or deleted post or
+ * a new message evicts every cached tile within the kernel's reach of its
+ * location, so only tiles whose picture can have changed are re-rendered; a
+ * maximum age also lets tiles fade as old activity leaves the window. Renders
+ * in progress are tracked the same way, so a tile is not cached if activity
+ * within its reach arrived while it was being rendered.
+ */
+@Service
+@Slf4j
+public class HeatmapService {
+
+    private static final long HOUR_MILLIS = 60 * 60 * 1000L;
+
+    @Autowired
+    private Firestore firestore;
+
+    @Autowired
+    private TowerActivityTracker activityTracker;
+
+    @Autowired
+    @Qualifier("heatmapPool")
+    private ForkJoinPool heatmapPool;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // At most 24, the span of the tracker's post counts
+    @Value("${heatmap.window-hours:24}")
+    private int windowHours;
+
+    @Value("${heatmap.tile-size:256}")
+    private int tileSize;
+
+    @Value("${heatmap.max-zoom:20}")
+    private int maxZoom;
+
+    @Value("${heatmap.bandwidth.default-meters:250}")
+    private int defaultBandwidthMeters;
+
+    @Value("${heatmap.bandwidth.min-meters:25}")
+    private int minBandwidthMeters;
+
+    @Value("${heatmap.bandwidth.max-meters:5000}")
+    private int maxBandwidthMeters;
+
+    // Requested bandwidths are rounded to this step to bound the cache keys
+    @Value("${heatmap.bandwidth.step-meters:25}")
+    private int bandwidthStepMeters;
+
+    @Value("${heatmap.post-weight:1.0}")
+    private double postWeight;
+
+    // Density (weight per km²) shown at full intensity
+    @Value("${heatmap.saturation-per-km2:200}")
+    private double saturationPerKm2;
+
+    @Value("${heatmap.posts.max-points:100000}")
+    private int maxPostPoints;
+
+    @Value("${heatmap.cache.max-tiles:1024}")
+    private int maxCachedTiles;
+
+    @Value("${heatmap.cache.max-age-seconds:300}")
+    private long maxTileAgeSeconds;
+
+    private record TileKey(int zoom, int x, int y, int bandwidthMeters) {
+    }
+
+    private record PostPoint(String postId, double latitude, double longitude, long timestamp) {
+    }
+
+    /**
+     * Area in which activity changes a tile: its bounds widened by the
+     * kernel's reach
+     */
+    private record Reach(double minLat, double minLon, double maxLat, double maxLon) {
+
+        static Reach of(TileKey key) {
+            double[] bounds = KernelDensityRaster.tileBounds(key.zoom(), key.x(), key.y());
+            double reachDegrees = KernelDensityRaster.reachDegrees(key.bandwidthMeters());
+            double lonReach = reachDegrees
+                    / Math.max(0.01, Math.cos(Math.toRadians(Math.max(Math.abs(bounds[0]), Math.abs(bounds[2])))));
+            return new Reach(bounds[0] - reachDegrees, bounds[1] - lonReach,
+                    bounds[2] + reachDegrees, bounds[3] + lonReach);
+        }
+
+        boolean contains(double latitude, double longitude) {
+            return latitude >= minLat && latitude <= maxLat && longitude >= minLon && longitude <= maxLon;
+        }
+    }
+
+    /**
+     * A rendered tile with the area in which activity changes it
+     */
+    private static final class Tile {
+        final byte[] intensities;
+        final double maxDensity;
+        final long renderedAt;
+        final Reach reach;
+        volatile byte[] png;
+
+        Tile(byte[] intensities, double maxDensity, long renderedAt, Reach reach) {
+            this.intensities = intensities;
+            this.maxDensity = maxDensity;
+            this.renderedAt = renderedAt;
+            this.reach = reach;
+        }
+    }
+
+    /**
+     * A tile being rendered; marked stale (under the cache lock) by activity
+     * within its reach, which the render may have missed
+     */
+    private static final class PendingRender {
+        final Reach reach;
+        boolean stale;
+
+        PendingRender(Reach reach) {
+            this.reach = reach;
+        }
+    }
+
+    // Transparent blue through green and yellow to red, by intensity
+    private static final int[] PALETTE = buildPalette();
+
+    private final ConcurrentLinkedDeque<PostPoint> recentPosts = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger recentPostCount = new AtomicInteger();
+    private volatile boolean postsLoaded;
+
+    private final Map<TileKey, Tile> tiles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, Tile> eldest) {
+            return size() > maxCachedTiles;
+        }
+    };
+
+    // Guarded by the cache lock
+    private final List<PendingRender> pendingRenders = new ArrayList<>();
+
+    private Counter tilesRendered;
+    private Counter tilesInvalidated;
+
+    @PostConstruct
+    void init() {
+        windowHours = Math.max(1, Math.min(24, windowHours));
+        activityTracker.addMessageListener((towerId, latitude, longitude) -> invalidate(latitude, longitude));
+        tilesRendered = Counter.builder("geowhisper.heatmap.tiles.rendered")
+                .description("Heatmap tiles rendered because they were not cached")
+                .register(meterRegistry);
+        tilesInvalidated = Counter.builder("geowhisper.heatmap.tiles.invalidated")
+                .description("Cached heatmap tiles evicted by new activity")
+                .register(meterRegistry);
+        meterRegistry.gauge("geowhisper.heatmap.tiles.cached", tiles, cache -> {
+            synchronized (cache) {
+                return cache.size();
+            }
+        });
+    }
+
+    /**
+     * Record a new post at its location
+     */
+    public void recordPost(String postId, Double latitude, Double longitude, long timestamp) {
+        if (latitude == null || longitude == null) {
+            return;
+        }
+        recentPosts.addLast(new PostPoint(postId, latitude, longitude, timestamp));
+        if (recentPostCount.incrementAndGet() > maxPostPoints && recentPosts.pollFirst() != null) {
+            recentPostCount.decrementAndGet();
+        }
+        invalidate(latitude, longitude);
+    }
+
+    /**
+     * Forget a deleted post, so it no longer shows on the heatmap
+     */
+    public void removePost(String postId, double latitude, double longitude) {
+        for (Iterator<PostPoint> it = recentPosts.iterator(); it.hasNext();) {
+            PostPoint post = it.next();
+            if (post.postId().equals(postId) && recentPosts.removeFirstOccurrence(post)) {
+                recentPostCount.decrementAndGet();
+                invalidate(latitude, longitude);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Heatmap tile as 8-bit intensities, row-major from the top-left pixel
+     *
+     * @param bandwidthMeters Kernel bandwidth, or null for the default
+     */
+    public HeatmapTileResponse getTile(int zoom, int x, int y, Integer bandwidthMeters) {
+        TileKey key = key(zoom, x, y, bandwidthMeters);
+        Tile tile = tile(key);
+        return HeatmapTileResponse.builder()
+                .zoom(zoom)
+                .x(x)
+                .y(y)
+                .size(tileSize)
+                .bandwidthMeters(key.bandwidthMeters())
+                .windowHours(windowHours)
+                .maxDensity(Math.round(tile.maxDensity * 100) / 100.0)
+                .saturationDensity(saturationPerKm2)
+                .renderedAt(tile.renderedAt)
+                .intensities(tile.intensities)
+                .build();
+    }
+
+    /**
+     * Heatmap tile as a PNG with a transparent background
+     */
+    public byte[] getTilePng(int zoom, int x, int y, Integer bandwidthMeters) throws IOException {
+        Tile tile = tile(key(zoom, x, y, bandwidthMeters));
+        byte[] png = tile.png;
+        if (png == null) {
+            png = encodePng(tile.intensities);
+            tile.png = png;
+        }
+        return png;
+    }
+
+    /**
+     * Drop posts that left the window; loads recent posts on the first run
+     */
+    @Scheduled(fixedDelayString = "${heatmap.posts.refresh-interval-ms:60000}", initialDelay = 5000)
+    public void refreshPosts() {
+        long since = System.currentTimeMillis() - windowHours * HOUR_MILLIS;
+        if (!postsLoaded) {
+            try {
+                loadRecentPosts(since);
+                postsLoaded = true;
+            } catch (Exception e) {
+                log.warn("Could not load recent posts for the heatmap: {}", e.getMessage());
+            }
+        }
+        for (PostPoint head = recentPosts.peekFirst(); head != null && head.timestamp() < since;
+                head = recentPosts.peekFirst()) {
+            if (recentPosts.remove(head)) {
+                recentPostCount.decrementAndGet();
+            }
+        }
+    }
+
+    private TileKey key(int zoom, int x, int y, Integer bandwidthMeters) {
+        if (zoom < 0 || zoom > maxZoom) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + maxZoom);
+        }
+        int tiles = 1 << zoom;
+        if (x < 0 || x >= tiles || y < 0 || y >= tiles) {
+            throw new IllegalArgumentException("Tile " + x + "/" + y + " does not exist at zoom " + zoom);
+        }
+        int bandwidth = bandwidthMeters != null ? bandwidthMeters : defaultBandwidthMeters;
+        bandwidth = Math.max(minBandwidthMeters, Math.min(maxBandwidthMeters, bandwidth));
+        int step = Math.max(1, bandwidthStepMeters);
+        bandwidth = Math.max(step, Math.round((float) bandwidth / step) * step);
+        return new TileKey(zoom, x, y, bandwidth);
+    }
+
+    private Tile tile(TileKey key) {
+        long now = System.currentTimeMillis();
+        PendingRender pending = new PendingRender(Reach.of(key));
+        synchronized (tiles) {
+            Tile cached = tiles.get(key);
+            if (cached != null && now - cached.renderedAt < maxTileAgeSeconds * 1000) {
+                return cached;
+            }
+            pendingRenders.add(pending);
+        }
+
+        Tile rendered = null;
+        try {
+            rendered = render(key, pending.reach, now);
+        } finally {
+            synchronized (tiles) {
+                pendingRenders.remove(pending);
+                // Activity within reach during the render may be missing from it
+                if (rendered != null && !pending.stale) {
+                    tiles.put(key, rendered);
+                }
+            }
+        }
+        return rendered;
+    }
+
+    private Tile render(TileKey key, Reach reach, long now) {
+        List<HeatPoint> points = new ArrayList<>(activityTracker.messageLocations(windowHours));
+        long since = now - windowHours * HOUR_MILLIS;
+        for (PostPoint post : recentPosts) {
+            if (post.timestamp() >= since) {
+                points.add(new HeatPoint(post.latitude(), post.longitude(), postWeight));
+            }
+        }
+
+        float[] density = KernelDensityRaster.render(points, key.zoom(), key.x(), key.y(), tileSize,
+                key.bandwidthMeters(), heatmapPool);
+
+        // Logarithmic scale, so quiet areas stay visible next to busy ones
+        double scale = 255 / Math.log1p(saturationPerKm2);
+        byte[] intensities = new byte[density.length];
+        double max = 0;
+        for (int i = 0; i < density.length; i++) {
+            max = Math.max(max, density[i]);
+            intensities[i] = (byte) Math.min(255, Math.round(Math.log1p(density[i]) * scale));
+        }
+
+        tilesRendered.increment();
+        return new Tile(intensities, max, now, reach);
+    }
+
+    /**
+     * Evict cached tiles that activity at this location changes, and keep
+     * tiles being rendered around it out of the cache
+     */
+    private void invalidate(double latitude, double longitude) {
+        int evicted = 0;
+        synchronized (tiles) {
+            for (PendingRender pending : pendingRenders) {
+                if (pending.reach.contains(latitude, longitude)) {
+                    pending.stale = true;
+                }
+            }
+            for (Iterator<Tile> it = tiles.values().iterator(); it.hasNext();) {
+                if (it.next().reach.contains(latitude, longitude)) {
+                    it.remove();
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            tilesInvalidated.increment(evicted);
+        }
+    }
+
+    private void loadRecentPosts(long since) throws Exception {
+        List<QueryDocumentSnapshot> documents = firestore.collection("posts")
+                .whereGreaterThanOrEqualTo("createdAt", Timestamp.ofTimeMicroseconds(since * 1000))
+                .orderBy("createdAt")
+                .select("latitude", "longitude", "createdAt")
+                .get().get().getDocuments();
+
+        List<PostPoint> loaded = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot document : documents) {
+            Double latitude = document.getDouble("latitude");
+            Double longitude = document.getDouble("longitude");
+            Timestamp createdAt = document.getTimestamp("createdAt");
+            if (latitude != null && longitude != null && createdAt != null) {
+                loaded.add(new PostPoint(document.getId(), latitude, longitude, createdAt.toDate().getTime()));
+            }
+        }
+
+        // Posts created meanwhile are already queued and stay behind the loaded ones
+        for (int i = loaded.size() - 1; i >= 0; i--) {
+            recentPosts.addFirst(loaded.get(i));
+            recentPostCount.incrementAndGet();
+        }
+        while (recentPostCount.get() > maxPostPoints && recentPosts.pollFirst() != null) {
+            recentPostCount.decrementAndGet();
+        }
+        log.info("Loaded {} recent posts for the heatmap", loaded.size());
+    }
+
+    private byte[] encodePng(byte[] intensities) throws IOException {
+        int[] argb = new int[intensities.length];
+        for (int i = 0; i < intensities.length; i++) {
+            argb[i] = PALETTE[intensities[i] & 0xff];
+        }
+        BufferedImage image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, tileSize, tileSize, argb, 0, tileSize);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static int[] buildPalette() {
+        int[][] stops = { { 0, 0, 255 }, { 0, 255, 255 }, { 0, 255, 0 }, { 255, 255, 0 }, { 255, 0, 0 } };
+        int[] palette = new int[256];
+        for (int i = 1; i < 256; i++) {
+            double position = (i / 255.0) * (stops.length - 1);
+            int stop = Math.min(stops.length - 2, (int) position);
+            double t = position - stop;
+            int r = (int) Math.round(stops[stop][0] + t * (stops[stop + 1][0] - stops[stop][0]));
+            int g = (int) Math.round(stops[stop][1] + t * (stops[stop + 1][1] - stops[stop][1]));
+            int b = (int) Math.round(stops[stop][2] + t * (stops[stop + 1][2] - stops[stop][2]));
+            // Fade in over the lowest intensities
+            int alpha = Math.min(200, i * 4);
+            palette[i] = (alpha << 24) | (r << 16) | (g << 8) | b;
+        }
+        return palette;
+    }
+}
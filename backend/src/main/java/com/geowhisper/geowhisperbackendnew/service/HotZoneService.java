@@ -1,17 +1,42 @@
 package com.geowhisper.geowhisperbackendnew.service;
 
+import com.geowhisper.geowhisperbackendnew.dto.ChatMessageResponse;
 import com.geowhisper.geowhisperbackendnew.dto.HotZoneRequest;
 import com.geowhisper.geowhisperbackendnew.dto.HotZoneResponse;
 import com.geowhisper.geowhisperbackendnew.dto.HotZonesMapResponse;
+import com.geowhisper.geowhisperbackendnew.dto.TrendingTowerResponse;
+import com.geowhisper.geowhisperbackendnew.model.HotZoneSnapshot;
+import com.geowhisper.geowhisperbackendnew.model.Tower;
+import com.geowhisper.geowhisperbackendnew.model.TowerActivity;
+import com.geowhisper.geowhisperbackendnew.model.TowerCollectionVersion;
+import com.geowhisper.geowhisperbackendnew.util.AdaptiveConcurrencyLimiter;
+import com.geowhisper.geowhisperbackendnew.util.ETagUtils;
+import com.geowhisper.geowhisperbackendnew.util.GeoUtils;
+import com.geowhisper.geowhisperbackendnew.util.HyperLogLog;
+import com.geowhisper.geowhisperbackendnew.util.SingleFlight;
+import com.geowhisper.geowhisperbackendnew.util.TermTokenizer;
+import com.geowhisper.geowhisperbackendnew.util.TopKTermTracker;
+import com.geowhisper.geowhisperbackendnew.util.Viewport;
 import com.google.firebase.database.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,17 +44,285 @@ import java.util.stream.Collectors;
 public class HotZoneService {
 
     @Autowired
-    private PostService postService;
+    private TowerService towerService;
+
+    @Autowired
+    private TowerActivityTracker activityTracker;
+
+    @Autowired
+    private TowerMessageBuffer messageBuffer;
+
+    // Hot zones also depend on chat activity, which has no version of its own,
+    // so validators are additionally bucketed by time to bound staleness
+    @Value("${hotzones.etag.window-seconds:30}")
+    private long etagWindowSeconds;
+
+    @Value("${hotzones.tower.timeout-ms:10000}")
+    private long towerTimeoutMs;
+
+    // Whole-request budget; towers not analysed by then are reported as skipped
+    @Value("${hotzones.request.deadline-ms:12000}")
+    private long requestDeadlineMs;
+
+    @Value("${hotzones.fanout.initial-limit:20}")
+    private int fanoutInitialLimit;
+
+    @Value("${hotzones.fanout.min-limit:4}")
+    private int fanoutMinLimit;
+
+    @Value("${hotzones.fanout.max-limit:200}")
+    private int fanoutMaxLimit;
+
+    @Value("${hotzones.trending.capacity:64}")
+    private int trendingCapacity;
+
+    @Value("${hotzones.trending.topics:5}")
+    private int trendingTopicCount;
+
+    @Value("${hotzones.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${hotzones.snapshot.time-range-hours:24}")
+    private int snapshotTimeRangeHours;
+
+    @Value("${hotzones.tower-status.ttl-ms:5000}")
+    private long towerStatusTtlMs;
+
+    @Value("${hotzones.tower-status.max-entries:10000}")
+    private int towerStatusMaxEntries;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicReference<HotZoneSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean snapshotRefreshing = new AtomicBoolean(false);
+    // Replays the latest snapshot to new subscribers, then every changed one
+    private final Sinks.Many<HotZoneSnapshot> snapshotUpdates = Sinks.many().replay().latest();
+
+    private Counter towerTimeouts;
+    private Counter towersSkipped;
+
+    // Shared by all requests, since they all go through the same RTDB connection
+    private AdaptiveConcurrencyLimiter fanoutLimiter;
+
+    private record TowerStatusKey(String towerId, int messageThreshold) {
+    }
+
+    private SingleFlight<TowerStatusKey, HotZoneResponse> towerStatusFlights;
+
+    @PostConstruct
+    void init() {
+        fanoutLimiter = new AdaptiveConcurrencyLimiter(fanoutInitialLimit, fanoutMinLimit, fanoutMaxLimit);
+        towerStatusFlights = new SingleFlight<>(towerStatusTtlMs, towerStatusMaxEntries);
+
+        towerTimeouts = Counter.builder("geowhisper.hotzones.tower.timeouts")
+                .description("Tower activity queries abandoned after the timeout")
+                .register(meterRegistry);
+        towersSkipped = Counter.builder("geowhisper.hotzones.towers.skipped")
+                .description("Towers left out of a hot zone response because they were not analysed in time")
+                .register(meterRegistry);
+        meterRegistry.gauge("geowhisper.hotzones.fanout.limit", fanoutLimiter, AdaptiveConcurrencyLimiter::getLimit);
+        meterRegistry.gauge("geowhisper.hotzones.fanout.waiting", fanoutLimiter, AdaptiveConcurrencyLimiter::getWaiting);
+        meterRegistry.gauge("geowhisper.hotzones.tower-status.entries", towerStatusFlights, SingleFlight::size);
+    }
 
     /**
-     * Get all hot zones based on message activity
+     * Build the ETag for a hot zone request. Requests served from the snapshot
+     * use its generation; others use the tower collection version and the
+     * current freshness window. Both include the request parameters and the
+     * negotiated media type.
+     * 
+     * @return ETag, or null if the version could not be read
+     */
+    public String currentETag(HotZoneRequest request, Integer coordinatePrecision, MediaType mediaType) {
+        HotZoneSnapshot current = servingSnapshot(request);
+        if (current != null) {
+            return ETagUtils.weakETag("hotzones-snapshot", current.generation(), request, coordinatePrecision,
+                    mediaType);
+        }
+
+        try {
+            TowerCollectionVersion version = towerService.getCollectionVersion();
+            long window = System.currentTimeMillis() / (Math.max(1, etagWindowSeconds) * 1000);
+            return ETagUtils.weakETag("hotzones", version.version(), window, request, coordinatePrecision,
+                    mediaType);
+        } catch (Exception e) {
+            log.warn("Could not read tower collection version: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get all hot zones based on message activity.
+     * 
+     * Requests for the snapshot's time range are answered from the latest
+     * published snapshot, filtered in memory; while a refresh is running the
+     * previous snapshot is served together with its age. Other requests, and
+     * requests before the first snapshot, are computed directly.
      */
     public CompletableFuture<HotZonesMapResponse> getHotZones(HotZoneRequest request) {
+        HotZoneSnapshot current = servingSnapshot(request);
+        if (current != null) {
+            return CompletableFuture.completedFuture(fromSnapshot(current, request));
+        }
+        return computeHotZones(request);
+    }
+
+    /**
+     * Recompute the hot zone snapshot of all towers and publish it atomically
+     */
+    @Scheduled(fixedDelayString = "${hotzones.snapshot.refresh-interval-ms:15000}",
+            initialDelayString = "${hotzones.snapshot.initial-delay-ms:5000}")
+    public void refreshSnapshot() {
+        if (!snapshotEnabled || !snapshotRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        HotZoneRequest all = new HotZoneRequest();
+        all.setMessageThreshold(0);
+        all.setTimeRangeHours(snapshotTimeRangeHours);
+
+        long started = System.currentTimeMillis();
+        try {
+            computeHotZones(all).whenComplete((zones, ex) -> {
+                try {
+                    if (ex != null) {
+                        log.warn("Hot zone snapshot refresh failed, keeping previous: {}", ex.getMessage());
+                        return;
+                    }
+                    HotZoneSnapshot previous = snapshot.get();
+                    long generation = previous == null ? 1
+                            : sameZones(previous.zones(), zones) ? previous.generation() : previous.generation() + 1;
+                    HotZoneSnapshot next = new HotZoneSnapshot(generation, started, snapshotTimeRangeHours, zones);
+                    snapshot.set(next);
+                    if (previous == null || generation != previous.generation()) {
+                        snapshotUpdates.tryEmitNext(next);
+                    }
+                } finally {
+                    snapshotRefreshing.set(false);
+                }
+            });
+        } catch (Exception e) {
+            snapshotRefreshing.set(false);
+            log.warn("Could not start hot zone snapshot refresh: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Published snapshots whose content changed, starting with the current one
+     */
+    public Flux<HotZoneSnapshot> snapshotUpdates() {
+        return snapshotUpdates.asFlux();
+    }
+
+    /**
+     * Latest snapshot if it can answer this request, otherwise null
+     */
+    private HotZoneSnapshot servingSnapshot(HotZoneRequest request) {
+        HotZoneSnapshot current = snapshot.get();
+        if (current == null || request.getTimeRangeHours() == null
+                || current.timeRangeHours() != request.getTimeRangeHours()) {
+            return null;
+        }
+        return current;
+    }
+
+    /**
+     * Whether two snapshots show the same activity. Time-decayed values
+     * (trending and activity scores, topic scores, last-hour counts) move on
+     * every refresh even without new messages, so they are not compared; only
+     * the activity level, which buckets them, is. The newer values are still
+     * served, but do not start a new generation on their own.
+     */
+    private static boolean sameZones(HotZonesMapResponse previous, HotZonesMapResponse next) {
+        return Objects.equals(activityKeys(previous.getHotZones()), activityKeys(next.getHotZones()))
+                && Objects.equals(previous.getSkippedTowerIds(), next.getSkippedTowerIds());
+    }
+
+    /**
+     * The parts of a hot zone that only change with new (or expired) messages
+     */
+    private record ZoneActivityKey(String towerId, String towerName, Double latitude, Double longitude,
+            Integer messageCount, Integer uniqueUsers, String activityLevel, String trendingTopic,
+            List<String> topics, List<String> recentUsernames, Long lastMessageTimestamp) {
+    }
+
+    private static List<ZoneActivityKey> activityKeys(List<HotZoneResponse> zones) {
+        if (zones == null) {
+            return null;
+        }
+        return zones.stream()
+                .map(zone -> new ZoneActivityKey(zone.towerId(), zone.towerName(), zone.latitude(),
+                        zone.longitude(), zone.messageCount(), zone.uniqueUsers(), zone.activityLevel(),
+                        zone.trendingTopic(),
+                        zone.trendingTopics() == null ? null
+                                : zone.trendingTopics().stream().map(HotZoneResponse.TrendingTopic::topic).toList(),
+                        zone.recentUsernames(), zone.lastMessageTimestamp()))
+                .toList();
+    }
+
+    /**
+     * Answer a request from a snapshot: filter by threshold and location and
+     * reuse cached city-wide statistics where possible
+     */
+    private HotZonesMapResponse fromSnapshot(HotZoneSnapshot current, HotZoneRequest request) {
+        HotZonesMapResponse all = current.zones();
+        boolean located = request.getLatitude() != null && request.getLongitude() != null;
+        int threshold = request.getMessageThreshold() != null ? request.getMessageThreshold() : 0;
+
+        List<HotZoneResponse> candidates = all.getHotZones();
+        if (located) {
+            double radiusMeters = request.getRadiusKm() * 1000;
+            candidates = candidates.stream()
+                    .filter(zone -> GeoUtils.isWithinRadius(
+                            request.getLatitude(), request.getLongitude(),
+                            zone.latitude(), zone.longitude(),
+                            radiusMeters))
+                    .toList();
+        }
+        List<HotZoneResponse> zones = candidates.stream()
+                .filter(zone -> zone.messageCount() >= threshold)
+                .toList();
+
+        HotZonesMapResponse.HotZoneStatistics stats = located
+                ? calculateStatistics(zones, request)
+                : current.statisticsByThreshold().computeIfAbsent(threshold,
+                        t -> calculateStatistics(zones, request));
+
+        int towerCount = located
+                ? candidates.size()
+                : all.getHotZones().size() + all.getSkippedTowerIds().size();
+        long now = System.currentTimeMillis();
+
+        return all.toBuilder()
+                .hotZones(zones)
+                .totalHotZones(zones.size())
+                .messageThreshold(request.getMessageThreshold())
+                .timeRangeHours(request.getTimeRangeHours())
+                .searchArea(getSearchAreaDescription(request, towerCount))
+                .statistics(stats)
+                .generatedAt(current.computedAt())
+                .ageMs(current.ageMillis(now))
+                .refreshing(snapshotRefreshing.get())
+                .build();
+    }
+
+    /**
+     * Compute hot zones from tower activity.
+     * 
+     * Activity is read from the in-memory tracker. Towers it does not cover
+     * yet are analysed from their messages; those queries are admitted
+     * through an adaptive concurrency limit and bounded by a per-request
+     * deadline. Towers that could not be analysed in time are listed in
+     * skippedTowerIds and the response is marked partial.
+     */
+    private CompletableFuture<HotZonesMapResponse> computeHotZones(HotZoneRequest request) {
         CompletableFuture<HotZonesMapResponse> future = new CompletableFuture<>();
+        long started = System.currentTimeMillis();
 
         try {
             // Get all towers
-            List<Map<String, Object>> towers = postService.getAllTowersWithStats();
+            List<Tower> towers = towerService.getAllTowers();
 
             if (towers.isEmpty()) {
                 future.complete(HotZonesMapResponse.builder()
@@ -38,6 +331,10 @@ public class HotZoneService {
                         .messageThreshold(request.getMessageThreshold())
                         .timeRangeHours(request.getTimeRangeHours())
                         .searchArea("No towers found")
+                        .generatedAt(started)
+                        .ageMs(0L)
+                        .partial(false)
+                        .skippedTowerIds(List.of())
                         .statistics(HotZonesMapResponse.HotZoneStatistics.builder()
                                 .totalMessages(0)
                                 .totalUniqueUsers(0)
@@ -50,7 +347,7 @@ public class HotZoneService {
             }
 
             // Filter towers by location if specified
-            List<Map<String, Object>> filteredTowers = towers;
+            List<Tower> filteredTowers = towers;
             if (request.getLatitude() != null && request.getLongitude() != null) {
                 filteredTowers = filterTowersByLocation(towers, 
                         request.getLatitude(), 
@@ -61,14 +358,14 @@ public class HotZoneService {
             log.info("Analyzing {} towers for hot zones", filteredTowers.size());
 
             // Analyze each tower's message activity
-            List<CompletableFuture<HotZoneResponse>> futures = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + requestDeadlineMs;
+            List<CompletableFuture<TowerOutcome>> futures = new ArrayList<>();
             
-            for (Map<String, Object> tower : filteredTowers) {
-                String towerId = (String) tower.get("towerId");
+            for (Tower tower : filteredTowers) {
+                String towerId = tower.getTowerId();
                 if (towerId != null && !towerId.isEmpty()) {
-                    CompletableFuture<HotZoneResponse> towerFuture = 
-                            analyzeTowerActivity(towerId, tower, request);
-                    futures.add(towerFuture);
+                    futures.add(analyzeTower(towerId, tower, request, deadline)
+                            .handle((zone, ex) -> new TowerOutcome(towerId, zone, ex != null)));
                 }
             }
 
@@ -79,15 +376,29 @@ public class HotZoneService {
             // Wait for all analyses to complete
             CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
                     .thenAccept(v -> {
-                        List<HotZoneResponse> allZones = futures.stream()
+                        List<TowerOutcome> outcomes = futures.stream()
                                 .map(CompletableFuture::join)
+                                .toList();
+
+                        List<String> skippedTowerIds = outcomes.stream()
+                                .filter(TowerOutcome::skipped)
+                                .map(TowerOutcome::towerId)
+                                .toList();
+                        if (!skippedTowerIds.isEmpty()) {
+                            towersSkipped.increment(skippedTowerIds.size());
+                            log.warn("Hot zone response is partial: {} of {} towers skipped",
+                                    skippedTowerIds.size(), outcomes.size());
+                        }
+
+                        List<HotZoneResponse> allZones = outcomes.stream()
+                                .map(TowerOutcome::zone)
                                 .filter(Objects::nonNull)
-                                .filter(zone -> zone.getMessageCount() >= finalRequest.getMessageThreshold())
-                                .sorted(Comparator.comparingInt(HotZoneResponse::getMessageCount).reversed())
+                                .filter(zone -> zone.messageCount() >= finalRequest.getMessageThreshold())
+                                .sorted(Comparator.comparingInt(HotZoneResponse::messageCount).reversed())
                                 .collect(Collectors.toList());
 
                         // Calculate statistics
-                        HotZonesMapResponse.HotZoneStatistics stats = calculateStatistics(allZones);
+                        HotZonesMapResponse.HotZoneStatistics stats = calculateStatistics(allZones, finalRequest);
 
                         HotZonesMapResponse response = HotZonesMapResponse.builder()
                                 .hotZones(allZones)
@@ -96,6 +407,10 @@ public class HotZoneService {
                                 .timeRangeHours(finalRequest.getTimeRangeHours())
                                 .searchArea(getSearchAreaDescription(finalRequest, filteredTowersCount))
                                 .statistics(stats)
+                                .partial(!skippedTowerIds.isEmpty())
+                                .skippedTowerIds(skippedTowerIds)
+                                .generatedAt(started)
+                                .ageMs(0L)
                                 .build();
 
                         future.complete(response);
@@ -115,175 +430,303 @@ public class HotZoneService {
     }
 
     /**
-     * Get hot zone status for a specific tower
+     * Get hot zone status for a specific tower. Concurrent requests for the
+     * same tower and threshold share one computation, and its result is
+     * reused for a short TTL.
      */
     public CompletableFuture<HotZoneResponse> getTowerHotZoneStatus(String towerId, Integer messageThreshold) {
-        CompletableFuture<HotZoneResponse> future = new CompletableFuture<>();
+        int threshold = messageThreshold != null ? messageThreshold : 50;
+        return towerStatusFlights.get(new TowerStatusKey(towerId, threshold),
+                () -> computeTowerHotZoneStatus(towerId, threshold));
+    }
 
+    private CompletableFuture<HotZoneResponse> computeTowerHotZoneStatus(String towerId, int messageThreshold) {
         try {
-            // Get tower details
-            List<Map<String, Object>> towers = postService.getAllTowersWithStats();
-            Map<String, Object> tower = towers.stream()
-                    .filter(t -> towerId.equals(t.get("towerId")))
-                    .findFirst()
-                    .orElse(null);
-
+            Tower tower = towerService.getTowerById(towerId).orElse(null);
             if (tower == null) {
-                future.complete(null);
-                return future;
+                return CompletableFuture.completedFuture(null);
             }
 
             HotZoneRequest request = new HotZoneRequest();
-            request.setMessageThreshold(messageThreshold != null ? messageThreshold : 50);
+            request.setMessageThreshold(messageThreshold);
             request.setTimeRangeHours(24);
 
-            return analyzeTowerActivity(towerId, tower, request);
+            long deadline = System.currentTimeMillis() + requestDeadlineMs;
+            return analyzeTower(towerId, tower, request, deadline)
+                    .exceptionally(ex -> null);
 
         } catch (Exception e) {
             log.error("Error getting tower hot zone status: {}", e.getMessage(), e);
-            future.completeExceptionally(e);
+            return CompletableFuture.failedFuture(e);
         }
+    }
 
-        return future;
+    /**
+     * Towers ranked by their decayed trending score, city-wide or within a
+     * viewport. Reads the head of the tracker's leaderboard; nothing is sorted
+     * per request.
+     */
+    public List<TrendingTowerResponse> getTrendingTowers(int limit, Viewport viewport) {
+        return activityTracker.topTowers(limit, viewport).stream()
+                .map(entry -> {
+                    double[] location = activityTracker.location(entry.key());
+                    return TrendingTowerResponse.builder()
+                            .towerId(entry.key())
+                            .latitude(location != null ? location[0] : null)
+                            .longitude(location != null ? location[1] : null)
+                            .trendingScore(Math.round(entry.score() * 100) / 100.0)
+                            .build();
+                })
+                .toList();
+    }
+
+    /**
+     * Outcome of one tower in a fan-out: zone is null when the tower is below
+     * the threshold, skipped is set when it was not analysed at all
+     */
+    private record TowerOutcome(String towerId, HotZoneResponse zone, boolean skipped) {
+    }
+
+    /**
+     * Hot zone of a tower from tracked in-memory activity, falling back to
+     * reading its messages while the tower is not tracked yet
+     */
+    private CompletableFuture<HotZoneResponse> analyzeTower(
+            String towerId,
+            Tower tower,
+            HotZoneRequest request,
+            long deadline) {
+
+        TowerActivity activity = activityTracker.activity(towerId, request.getTimeRangeHours());
+        if (activity != null) {
+            return CompletableFuture.completedFuture(toHotZone(towerId, tower, request, activity));
+        }
+
+        activityTracker.track(tower);
+        return analyzeWithinLimit(towerId, tower, request, deadline);
     }
 
     /**
-     * Analyze message activity for a specific tower
+     * Analyze a tower once the fan-out limiter grants a permit, giving up at
+     * the deadline. Completes exceptionally if the tower could not be analysed.
+     */
+    private CompletableFuture<HotZoneResponse> analyzeWithinLimit(
+            String towerId,
+            Tower tower,
+            HotZoneRequest request,
+            long deadline) {
+
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return CompletableFuture.failedFuture(new TimeoutException("Request deadline passed"));
+        }
+
+        return fanoutLimiter.acquire()
+                .orTimeout(remaining, TimeUnit.MILLISECONDS)
+                .thenCompose(permit -> {
+                    long budget = Math.min(towerTimeoutMs, deadline - System.currentTimeMillis());
+                    if (budget <= 0) {
+                        fanoutLimiter.onIgnore();
+                        return CompletableFuture.<HotZoneResponse>failedFuture(
+                                new TimeoutException("Request deadline passed"));
+                    }
+
+                    // A timeout cut short by the request deadline says nothing about RTDB load
+                    boolean clipped = budget < towerTimeoutMs;
+                    long start = System.nanoTime();
+                    return analyzeTowerActivity(towerId, tower, request, budget)
+                            .whenComplete((zone, ex) -> {
+                                if (ex == null) {
+                                    fanoutLimiter.onSuccess(System.nanoTime() - start);
+                                } else if (unwrap(ex) instanceof TimeoutException && !clipped) {
+                                    fanoutLimiter.onDropped();
+                                } else {
+                                    fanoutLimiter.onIgnore();
+                                }
+                            });
+                });
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    /**
+     * Analyze message activity for a specific tower, from the shared message
+     * buffer when the tower is already buffered and the buffer holds the
+     * whole time range, and from RTDB otherwise. Towers are not attached to
+     * the buffer for this, so a scan of many towers does not leave a
+     * listener behind on each of them.
+     * 
+     * Completes with null if the tower is below the threshold, and
+     * exceptionally if its messages could not be read within timeoutMs.
      */
     private CompletableFuture<HotZoneResponse> analyzeTowerActivity(
             String towerId, 
-            Map<String, Object> tower, 
-            HotZoneRequest request) {
+            Tower tower, 
+            HotZoneRequest request,
+            long timeoutMs) {
+
+        long now = System.currentTimeMillis();
+        long timeThreshold = now - (request.getTimeRangeHours() * 60 * 60 * 1000L);
+        TowerMessageBuffer.Snapshot buffered = messageBuffer.peek(towerId);
+        if (buffered != null && buffered.covers(timeThreshold)) {
+            TowerActivity activity = summarize(buffered.messages(), timeThreshold, now);
+            return CompletableFuture.completedFuture(toHotZone(towerId, tower, request, activity));
+        }
+        return queryTowerActivity(towerId, tower, request, timeoutMs);
+    }
+
+    /**
+     * Analyze a tower by reading all its messages in the time range
+     */
+    private CompletableFuture<HotZoneResponse> queryTowerActivity(
+            String towerId,
+            Tower tower,
+            HotZoneRequest request,
+            long timeoutMs) {
         
         CompletableFuture<HotZoneResponse> future = new CompletableFuture<>();
-        CountDownLatch latch = new CountDownLatch(1);
 
         try {
             DatabaseReference chatRef = FirebaseDatabase.getInstance()
                     .getReference("chats/" + towerId + "/messages");
 
-            // Calculate time thresholds
             long now = System.currentTimeMillis();
             long timeThreshold = now - (request.getTimeRangeHours() * 60 * 60 * 1000L);
-            long oneHourAgo = now - (60 * 60 * 1000L);
 
             Query query = chatRef.orderByChild("timestamp").startAt(timeThreshold);
 
-            query.addListenerForSingleValueEvent(new ValueEventListener() {
+            ValueEventListener listener = new ValueEventListener() {
                 @Override
                 public void onDataChange(DataSnapshot dataSnapshot) {
                     try {
-                        List<Map<String, Object>> messages = new ArrayList<>();
-                        Set<String> uniqueUsers = new HashSet<>();
-                        int messagesLast1Hour = 0;
-                        List<String> recentUsernames = new ArrayList<>();
-                        Long lastTimestamp = null;
-
+                        List<ChatMessageResponse> messages = new ArrayList<>();
                         for (DataSnapshot messageSnapshot : dataSnapshot.getChildren()) {
                             Map<String, Object> data = (Map<String, Object>) messageSnapshot.getValue();
                             if (data != null && data.containsKey("message")) {
-                                messages.add(data);
-                                
-                                String userId = String.valueOf(data.getOrDefault("userId", "unknown"));
-                                String username = String.valueOf(data.getOrDefault("username", "Anonymous"));
-                                uniqueUsers.add(userId);
-
-                                // Get timestamp
-                                Object timestampObj = data.get("timestamp");
-                                Long msgTimestamp = null;
-                                if (timestampObj instanceof Long) {
-                                    msgTimestamp = (Long) timestampObj;
-                                } else if (timestampObj instanceof Integer) {
-                                    msgTimestamp = ((Integer) timestampObj).longValue();
-                                }
-
-                                if (msgTimestamp != null) {
-                                    if (msgTimestamp > oneHourAgo) {
-                                        messagesLast1Hour++;
-                                        if (recentUsernames.size() < 5 && !recentUsernames.contains(username)) {
-                                            recentUsernames.add(username);
-                                        }
-                                    }
-                                    if (lastTimestamp == null || msgTimestamp > lastTimestamp) {
-                                        lastTimestamp = msgTimestamp;
-                                    }
-                                }
+                                messages.add(TowerMessageBuffer.parse(messageSnapshot.getKey(), data));
                             }
                         }
 
-                        int messageCount = messages.size();
-
-                        // Only create response if tower meets threshold
-                        if (messageCount >= request.getMessageThreshold()) {
-                            // Determine activity level
-                            String activityLevel = getActivityLevel(messageCount);
-                            
-                            // Calculate activity score (0-100)
-                            double activityScore = calculateActivityScore(
-                                    messageCount, 
-                                    messagesLast1Hour, 
-                                    uniqueUsers.size());
-
-                            // Extract trending topic (most common word in messages)
-                            String trendingTopic = extractTrendingTopic(messages);
-
-                            HotZoneResponse response = HotZoneResponse.builder()
-                                    .towerId(towerId)
-                                    .towerName((String) tower.getOrDefault("name", "Tower"))
-                                    .latitude((Double) tower.get("centerLatitude"))
-                                    .longitude((Double) tower.get("centerLongitude"))
-                                    .messageCount(messageCount)
-                                    .uniqueUsers(uniqueUsers.size())
-                                    .activityLevel(activityLevel)
-                                    .activityScore(activityScore)
-                                    .messagesLast1Hour(messagesLast1Hour)
-                                    .messagesLast24Hours(messageCount)
-                                    .trendingTopic(trendingTopic)
-                                    .recentUsernames(recentUsernames)
-                                    .lastMessageTimestamp(lastTimestamp)
-                                    .build();
-
-                            future.complete(response);
-                        } else {
-                            future.complete(null);
-                        }
+                        TowerActivity activity = summarize(messages, timeThreshold, now);
+                        future.complete(toHotZone(towerId, tower, request, activity));
 
                     } catch (Exception e) {
                         log.error("Error analyzing tower {}: {}", towerId, e.getMessage());
                         future.complete(null);
-                    } finally {
-                        latch.countDown();
                     }
                 }
 
                 @Override
                 public void onCancelled(DatabaseError databaseError) {
                     log.error("Error fetching messages for tower {}: {}", towerId, databaseError.getMessage());
-                    future.complete(null);
-                    latch.countDown();
+                    future.completeExceptionally(databaseError.toException());
                 }
-            });
-
-            // Timeout after 10 seconds
-            new Thread(() -> {
-                try {
-                    if (!latch.await(10, TimeUnit.SECONDS)) {
-                        log.warn("Timeout analyzing tower {}", towerId);
-                        future.complete(null);
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
+            };
+
+            query.addListenerForSingleValueEvent(listener);
+
+            // orTimeout schedules on the JDK's shared delayer thread, so pending
+            // towers cost a timer entry each rather than a waiting thread
+            return future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .whenComplete((zone, ex) -> {
+                        if (ex != null && unwrap(ex) instanceof TimeoutException) {
+                            // Stop the pending read so a late snapshot is not downloaded for nothing
+                            query.removeEventListener(listener);
+                            towerTimeouts.increment();
+                            log.warn("Timeout analyzing tower {}", towerId);
+                        }
+                    });
 
         } catch (Exception e) {
             log.error("Error setting up tower analysis: {}", e.getMessage(), e);
-            future.complete(null);
+            future.completeExceptionally(e);
         }
 
         return future;
     }
 
+    /**
+     * Activity of a tower's messages sent since timeThreshold
+     */
+    private TowerActivity summarize(List<ChatMessageResponse> messages, long timeThreshold, long now) {
+        long oneHourAgo = now - (60 * 60 * 1000L);
+        int messageCount = 0;
+        double trendingScore = 0;
+        TopKTermTracker topics = new TopKTermTracker(trendingCapacity, 0, now);
+        char[] termBuffer = new char[32];
+        HyperLogLog uniqueUsers = new HyperLogLog();
+        int messagesLast1Hour = 0;
+        List<String> recentUsernames = new ArrayList<>();
+        Long lastTimestamp = null;
+
+        for (ChatMessageResponse message : messages) {
+            long msgTimestamp = message.getTimestamp();
+            if (msgTimestamp < timeThreshold) {
+                continue;
+            }
+            messageCount++;
+            TermTokenizer.forEachTerm(message.getMessage(), termBuffer,
+                    (term, length, hash) -> topics.offer(term, length, hash, now));
+            uniqueUsers.add(message.getUserId());
+
+            trendingScore += activityTracker.decayWeight(msgTimestamp, now);
+            if (msgTimestamp > oneHourAgo) {
+                messagesLast1Hour++;
+                if (recentUsernames.size() < 5 && !recentUsernames.contains(message.getUsername())) {
+                    recentUsernames.add(message.getUsername());
+                }
+            }
+            if (lastTimestamp == null || msgTimestamp > lastTimestamp) {
+                lastTimestamp = msgTimestamp;
+            }
+        }
+
+        return new TowerActivity(messageCount, messagesLast1Hour, (int) uniqueUsers.estimate(), recentUsernames,
+                lastTimestamp, topics.top(trendingTopicCount, now), trendingScore);
+    }
+
+    /**
+     * Build the hot zone for a tower's activity, or null if the tower is
+     * below the message threshold
+     */
+    private HotZoneResponse toHotZone(String towerId, Tower tower, HotZoneRequest request, TowerActivity activity) {
+        int messageCount = activity.messageCount();
+        if (messageCount < request.getMessageThreshold()) {
+            return null;
+        }
+
+        // Calculate activity score (0-100)
+        double activityScore = calculateActivityScore(
+                messageCount,
+                activity.messagesLastHour(),
+                activity.uniqueUsers());
+
+        return HotZoneResponse.builder()
+                .towerId(towerId)
+                .towerName("Tower")
+                .latitude(tower.getLatitude())
+                .longitude(tower.getLongitude())
+                .messageCount(messageCount)
+                .uniqueUsers(activity.uniqueUsers())
+                .activityLevel(getActivityLevel(messageCount))
+                .activityScore(activityScore)
+                .messagesLast1Hour(activity.messagesLastHour())
+                .messagesLast24Hours(messageCount)
+                .trendingScore(Math.round(activity.trendingScore() * 100) / 100.0)
+                .trendingTopic(trendingTopic(activity))
+                .trendingTopics(activity.topics().stream()
+                        .map(topic -> HotZoneResponse.TrendingTopic.builder()
+                                .topic(topic.term())
+                                .score(Math.round(topic.count() * 100) / 100.0)
+                                .build())
+                        .toList())
+                .recentUsernames(activity.recentUsernames())
+                .lastMessageTimestamp(activity.lastMessageTimestamp())
+                .build();
+    }
+
     /**
      * Determine activity level based on message count
      */
@@ -314,106 +757,66 @@ public class HotZoneService {
     }
 
     /**
-     * Extract trending topic from messages (simple implementation)
+     * Most discussed word, capitalized
      */
-    private String extractTrendingTopic(List<Map<String, Object>> messages) {
-        if (messages.isEmpty()) {
+    private String trendingTopic(TowerActivity activity) {
+        if (activity.messageCount() == 0) {
             return "General discussion";
         }
-
-        // Count word frequency (simple approach)
-        Map<String, Integer> wordCount = new HashMap<>();
-        Set<String> stopWords = Set.of("the", "is", "at", "which", "on", "a", "an", "and", "or", "but", "in", "with", "to", "for");
-
-        for (Map<String, Object> message : messages) {
-            String text = String.valueOf(message.get("message")).toLowerCase();
-            String[] words = text.split("\\s+");
-            
-            for (String word : words) {
-                word = word.replaceAll("[^a-zA-Z]", "");
-                if (word.length() > 3 && !stopWords.contains(word)) {
-                    wordCount.put(word, wordCount.getOrDefault(word, 0) + 1);
-                }
-            }
-        }
-
-        // Find most common word
-        String trendingWord = wordCount.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("discussion");
-
+        String trendingWord = activity.topics().isEmpty() ? "discussion" : activity.topics().get(0).term();
         return Character.toUpperCase(trendingWord.charAt(0)) + trendingWord.substring(1);
     }
 
     /**
      * Filter towers by geographic location
      */
-    private List<Map<String, Object>> filterTowersByLocation(
-            List<Map<String, Object>> towers, 
+    private List<Tower> filterTowersByLocation(
+            List<Tower> towers, 
             double latitude, 
             double longitude, 
             double radiusKm) {
         
+        double radiusMeters = radiusKm * 1000;
         return towers.stream()
-                .filter(tower -> {
-                    Double towerLat = (Double) tower.get("centerLatitude");
-                    Double towerLon = (Double) tower.get("centerLongitude");
-                    
-                    if (towerLat == null || towerLon == null) {
-                        return false;
-                    }
-                    
-                    double distance = calculateDistance(latitude, longitude, towerLat, towerLon);
-                    return distance <= radiusKm;
-                })
+                .filter(tower -> GeoUtils.isWithinRadius(
+                        latitude, longitude,
+                        tower.getLatitude(), tower.getLongitude(),
+                        radiusMeters))
                 .collect(Collectors.toList());
     }
 
-    /**
-     * Calculate distance between two coordinates (Haversine formula)
-     */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radius of the Earth in km
-        
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return R * c;
-    }
-
     /**
      * Calculate statistics for hot zones
      */
-    private HotZonesMapResponse.HotZoneStatistics calculateStatistics(List<HotZoneResponse> zones) {
+    private HotZonesMapResponse.HotZoneStatistics calculateStatistics(List<HotZoneResponse> zones,
+            HotZoneRequest request) {
         int totalMessages = zones.stream()
-                .mapToInt(HotZoneResponse::getMessageCount)
+                .mapToInt(HotZoneResponse::messageCount)
                 .sum();
         
-        int totalUniqueUsers = zones.stream()
-                .mapToInt(HotZoneResponse::getUniqueUsers)
-                .sum();
+        // Merged sketches count a user active in several zones once; the
+        // per-zone sum is the fallback while some zone is not tracked yet
+        long mergedUniqueUsers = activityTracker.uniqueUsers(
+                zones.stream().map(HotZoneResponse::towerId).toList(),
+                request.getTimeRangeHours());
+        int totalUniqueUsers = mergedUniqueUsers >= 0
+                ? (int) mergedUniqueUsers
+                : zones.stream().mapToInt(HotZoneResponse::uniqueUsers).sum();
         
         HotZoneResponse mostActive = zones.stream()
-                .max(Comparator.comparingDouble(HotZoneResponse::getActivityScore))
+                .max(Comparator.comparingDouble(HotZoneResponse::activityScore))
                 .orElse(null);
         
         int hotCount = (int) zones.stream()
-                .filter(z -> "hot".equals(z.getActivityLevel()))
+                .filter(z -> "hot".equals(z.activityLevel()))
                 .count();
         
         int veryHotCount = (int) zones.stream()
-                .filter(z -> "very_hot".equals(z.getActivityLevel()))
+                .filter(z -> "very_hot".equals(z.activityLevel()))
                 .count();
         
         int extremeCount = (int) zones.stream()
-                .filter(z -> "extreme".equals(z.getActivityLevel()))
+                .filter(z -> "extreme".equals(z.activityLevel()))
                 .count();
         
         return HotZonesMapResponse.HotZoneStatistics.builder()
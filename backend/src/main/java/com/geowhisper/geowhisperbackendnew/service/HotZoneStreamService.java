@@ -0,0 +1,143 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.geowhisper.geowhisperbackendnew.dto.HotZoneDelta;
+import com.geowhisper.geowhisperbackendnew.dto.HotZoneResponse;
+import com.geowhisper.geowhisperbackendnew.model.HotZoneSnapshot;
+import com.geowhisper.geowhisperbackendnew.util.Viewport;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events of hot zone changes.
+ *
+ * Each subscriber remembers the zones it was last sent and receives only the
+ * difference to each new snapshot: zones entering or leaving its viewport or
+ * threshold, activity level transitions and score moves of at least
+ * minScoreChange. Snapshots are conflated per subscriber, so a slow client
+ * skips intermediate snapshots and gets one combined delta when it catches
+ * up instead of buffering without bound.
+ */
+@Service
+public class HotZoneStreamService {
+
+    @Autowired
+    private HotZoneService hotZoneService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${hotzones.stream.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    // Streams end after this long; EventSource clients reconnect on their own
+    @Value("${hotzones.stream.max-duration-minutes:25}")
+    private long maxDurationMinutes;
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+
+    /**
+     * What one stream has sent so far; only touched by its own pipeline
+     */
+    private static class Subscriber {
+        final Map<String, HotZoneResponse> sent = new HashMap<>();
+        boolean started;
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("geowhisper.hotzones.stream.clients", activeStreams);
+    }
+
+    /**
+     * Stream hot zone deltas for one subscriber
+     *
+     * @param viewport         Visible area, or null for all zones
+     * @param messageThreshold Minimum messages for a zone to be visible
+     * @param minScoreChange   Smallest activity score move that is reported
+     */
+    public Flux<ServerSentEvent<HotZoneDelta>> stream(Viewport viewport, int messageThreshold, double minScoreChange) {
+        return Flux.defer(() -> {
+            Subscriber subscriber = new Subscriber();
+
+            Flux<ServerSentEvent<HotZoneDelta>> deltas = hotZoneService.snapshotUpdates()
+                    .onBackpressureLatest()
+                    .publishOn(Schedulers.parallel(), 1)
+                    .map(snapshot -> diff(subscriber, snapshot, viewport, messageThreshold, minScoreChange))
+                    .filter(delta -> delta.getFull() || !delta.isEmpty())
+                    .map(delta -> ServerSentEvent.<HotZoneDelta>builder(delta)
+                            .id(String.valueOf(delta.getGeneration()))
+                            .event(delta.getFull() ? "snapshot" : "delta")
+                            .build());
+
+            Flux<ServerSentEvent<HotZoneDelta>> heartbeats = Flux.interval(Duration.ofSeconds(heartbeatSeconds))
+                    .onBackpressureDrop()
+                    .map(tick -> ServerSentEvent.<HotZoneDelta>builder().comment("keep-alive").build());
+
+            return Flux.merge(deltas, heartbeats)
+                    .take(Duration.ofMinutes(maxDurationMinutes))
+                    .doOnSubscribe(subscription -> activeStreams.incrementAndGet())
+                    .doFinally(signal -> activeStreams.decrementAndGet());
+        });
+    }
+
+    /**
+     * Compare a snapshot with what the subscriber has, and record what is
+     * being sent now
+     */
+    private HotZoneDelta diff(Subscriber subscriber, HotZoneSnapshot snapshot, Viewport viewport,
+            int messageThreshold, double minScoreChange) {
+        Map<String, HotZoneResponse> sent = subscriber.sent;
+        boolean full = !subscriber.started;
+        subscriber.started = true;
+        List<HotZoneResponse> entered = new ArrayList<>();
+        List<HotZoneResponse> changed = new ArrayList<>();
+        Set<String> visible = new HashSet<>();
+
+        for (HotZoneResponse zone : snapshot.zones().getHotZones()) {
+            if (zone.messageCount() < messageThreshold
+                    || (viewport != null && !viewport.contains(zone.latitude(), zone.longitude()))) {
+                continue;
+            }
+            visible.add(zone.towerId());
+
+            HotZoneResponse previous = sent.get(zone.towerId());
+            if (previous == null) {
+                entered.add(zone);
+                sent.put(zone.towerId(), zone);
+            } else if (!Objects.equals(previous.activityLevel(), zone.activityLevel())
+                    || Math.abs(zone.activityScore() - previous.activityScore()) >= minScoreChange) {
+                changed.add(zone);
+                sent.put(zone.towerId(), zone);
+            }
+            // Smaller moves keep the old baseline, so drift still adds up to a change
+        }
+
+        List<String> left = new ArrayList<>();
+        for (Iterator<String> it = sent.keySet().iterator(); it.hasNext();) {
+            String towerId = it.next();
+            if (!visible.contains(towerId)) {
+                left.add(towerId);
+                it.remove();
+            }
+        }
+
+        return HotZoneDelta.builder()
+                .generation(snapshot.generation())
+                .generatedAt(snapshot.computedAt())
+                .full(full)
+                .entered(entered)
+                .changed(changed)
+                .left(left)
+                .build();
+    }
+}
@@ -0,0 +1,214 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.google.cloud.firestore.*;
+import com.google.cloud.storage.BlobId;
+import com.google.firebase.cloud.StorageClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Reference-counted index of stored images keyed by content hash.
+ * Each document in "imageBlobs/{sha256}" records the blob holding that
+ * content and how many post images point at it, so identical uploads share
+ * one blob and the blob is deleted with its last reference. Download URLs
+ * are not stored here: signed URLs expire, so every post signs its own.
+ *
+ * Releasing the last reference does not remove the document but leaves a
+ * tombstone (refCount 0, deleting) until the blobs are deleted. The same
+ * content uploaded in the meantime reclaims the tombstone and is written
+ * again as a new generation, and the deleter only deletes content that is
+ * still tombstoned, and the original only in the generation it released
+ * (see {@link StorageService#deleteBlobs}).
+ */
+@Service
+public class ImageBlobService {
+
+    private static final String COLLECTION = "imageBlobs";
+
+    @Autowired
+    private Firestore firestore;
+
+    /**
+     * Result of {@link #acquire}: the blob to use and whether its content
+     * still has to be written (new content, or an earlier upload that never
+     * finished).
+     */
+    public record Reservation(String bucket, String blobName, boolean needsUpload) {
+    }
+
+    /**
+     * Content whose last reference was released and whose blobs are about
+     * to be deleted
+     *
+     * @param generation Generation of the original blob when it was released,
+     *                   or null if it was not recorded
+     */
+    public record Tombstone(Long generation) {
+    }
+
+    /**
+     * Add a reference to the content with this hash, registering the given
+     * blob if the content is new.
+     *
+     * @param sha256      Hex SHA-256 of the image content
+     * @param bucket      Bucket of the blob
+     * @param blobName    Blob name to use if the content is new
+     * @param contentType Content type of the image
+     * @param postId      Post that uploads the image (kept for diagnostics)
+     * @return The blob to reference
+     */
+    public Reservation acquire(String sha256, String bucket, String blobName, String contentType,
+            String postId) throws ExecutionException, InterruptedException {
+
+        DocumentReference ref = firestore.collection(COLLECTION).document(sha256);
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref).get();
+
+            if (snapshot.exists() && Boolean.TRUE.equals(snapshot.getBoolean("deleting"))) {
+                // Released, but the blobs may not be deleted yet: write the
+                // content again so it does not depend on the old generation
+                Map<String, Object> reclaim = new HashMap<>();
+                reclaim.put("bucket", bucket);
+                reclaim.put("blobName", blobName);
+                reclaim.put("contentType", contentType);
+                reclaim.put("refCount", 1);
+                reclaim.put("uploaded", false);
+                reclaim.put("deleting", false);
+                reclaim.put("generation", FieldValue.delete());
+                transaction.update(ref, reclaim);
+                return new Reservation(bucket, blobName, true);
+            }
+
+            if (snapshot.exists()) {
+                transaction.update(ref, "refCount", FieldValue.increment(1));
+                String storedBucket = snapshot.getString("bucket");
+                return new Reservation(
+                        storedBucket != null ? storedBucket : bucket,
+                        snapshot.getString("blobName"),
+                        !Boolean.TRUE.equals(snapshot.getBoolean("uploaded")));
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("bucket", bucket);
+            data.put("blobName", blobName);
+            data.put("contentType", contentType);
+            data.put("refCount", 1);
+            data.put("uploaded", false);
+            data.put("firstPostId", postId);
+            data.put("createdAt", FieldValue.serverTimestamp());
+            transaction.set(ref, data);
+            return new Reservation(bucket, blobName, true);
+        }).get();
+    }
+
+    /**
+     * Record that the content of a reserved blob has been written
+     *
+     * @param generation Generation of the written blob, or null if unknown
+     */
+    public void markUploaded(String sha256, Long generation) throws ExecutionException, InterruptedException {
+        firestore.collection(COLLECTION).document(sha256).update(
+                "uploaded", true,
+                "generation", generation != null ? generation : FieldValue.delete()).get();
+    }
+
+    /**
+     * Whether any post image still references the content with this hash
+     */
+    public boolean isReferenced(String sha256) throws ExecutionException, InterruptedException {
+        DocumentSnapshot snapshot = firestore.collection(COLLECTION).document(sha256).get().get();
+        return snapshot.exists() && !Boolean.TRUE.equals(snapshot.getBoolean("deleting"));
+    }
+
+    /**
+     * The tombstone of released content, or null if the content has been
+     * referenced again (or its tombstone already cleared), in which case its
+     * blobs must not be deleted
+     */
+    public Tombstone tombstone(String sha256) throws ExecutionException, InterruptedException {
+        DocumentSnapshot snapshot = firestore.collection(COLLECTION).document(sha256).get().get();
+        if (!snapshot.exists() || !Boolean.TRUE.equals(snapshot.getBoolean("deleting"))) {
+            return null;
+        }
+        return new Tombstone(snapshot.getLong("generation"));
+    }
+
+    /**
+     * Remove the tombstone of content whose blobs have been deleted, unless
+     * the content was reclaimed in the meantime
+     */
+    public void clearTombstone(String sha256) throws ExecutionException, InterruptedException {
+        DocumentReference ref = firestore.collection(COLLECTION).document(sha256);
+        firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref).get();
+            if (snapshot.exists() && Boolean.TRUE.equals(snapshot.getBoolean("deleting"))) {
+                transaction.delete(ref);
+            }
+            return null;
+        }).get();
+    }
+
+    /**
+     * Drop one reference to the content with this hash. The last reference
+     * leaves a tombstone, see {@link #tombstone}.
+     *
+     * @return Name of the blob if this was the last reference (the caller
+     *         must delete it), otherwise null
+     */
+    public String release(String sha256) throws ExecutionException, InterruptedException {
+        return release(sha256, null, null);
+    }
+
+    /**
+     * Drop one reference held by a document (e.g. a deletion job), at most
+     * once per reference key. The key is added to the holder's
+     * "releasedImages" in the same transaction, and if this was the last
+     * reference the blob is added to its "releasedBlobs", so a retried
+     * release neither decrements the count again nor loses the blob.
+     *
+     * @param holder       Document recording the released references, or null
+     * @param referenceKey Key of this reference, unique within the holder
+     * @return Name of the blob if this call released the last reference,
+     *         otherwise null
+     */
+    public String release(String sha256, DocumentReference holder, String referenceKey)
+            throws ExecutionException, InterruptedException {
+        DocumentReference ref = firestore.collection(COLLECTION).document(sha256);
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref).get();
+            if (holder != null) {
+                Object released = transaction.get(holder).get().get("releasedImages");
+                if (released instanceof List<?> keys && keys.contains(referenceKey)) {
+                    return null;
+                }
+                transaction.update(holder, "releasedImages", FieldValue.arrayUnion(referenceKey));
+            }
+            if (!snapshot.exists() || Boolean.TRUE.equals(snapshot.getBoolean("deleting"))) {
+                return null;
+            }
+
+            Long refCount = snapshot.getLong("refCount");
+            if (refCount == null || refCount <= 1) {
+                String blobName = snapshot.getString("blobName");
+                transaction.update(ref,
+                        "refCount", 0,
+                        "deleting", true,
+                        "releasedAt", FieldValue.serverTimestamp());
+                if (holder != null) {
+                    String bucket = snapshot.getString("bucket");
+                    transaction.update(holder, "releasedBlobs", FieldValue.arrayUnion(
+                            BlobId.of(bucket != null ? bucket : StorageClient.getInstance().bucket().getName(), blobName).toGsUtilUri()));
+                }
+                return blobName;
+            }
+
+            transaction.update(ref, "refCount", FieldValue.increment(-1));
+            return null;
+        }).get();
+    }
+}
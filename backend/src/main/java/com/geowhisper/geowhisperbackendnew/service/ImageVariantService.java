@@ -0,0 +1,217 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.geowhisper.geowhisperbackendnew.model.ImageVariants;
+import com.google.cloud.storage.BlobId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Generates smaller copies of post images so galleries and chat previews do
+ * not have to download the originals.
+ *
+ * Each image is read back from storage, scaled down with the JDK's ImageIO /
+ * Java2D and re-encoded as JPEG on a small dedicated pool. Formats ImageIO
+ * cannot decode (e.g. WebP) keep the original for every size.
+ *
+ * Uploads are untrusted, so the declared dimensions are checked before
+ * anything is decoded: images above images.variants.max-source-pixels are
+ * not processed, and large images are decoded subsampled, close to the size
+ * of the largest variant, instead of at full resolution.
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    @Qualifier("imageVariantExecutor")
+    private Executor imageVariantExecutor;
+
+    @Value("${images.variants.thumbnail-size:200}")
+    private int thumbnailSize;
+
+    @Value("${images.variants.medium-size:800}")
+    private int mediumSize;
+
+    @Value("${images.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    // Declared width x height above which an image is not decoded at all
+    @Value("${images.variants.max-source-pixels:50000000}")
+    private long maxSourcePixels;
+
+    /**
+     * Generate thumbnail and medium variants for each image. Variants are
+     * best-effort: images the pool has no room for keep the original for
+     * every size.
+     *
+     * @param imageUrls URLs of the uploaded originals
+     * @return Variants aligned with imageUrls
+     */
+    public CompletableFuture<List<ImageVariants>> generateVariants(List<String> imageUrls) {
+        List<CompletableFuture<ImageVariants>> tasks = new ArrayList<>(imageUrls.size());
+        for (String url : imageUrls) {
+            try {
+                tasks.add(CompletableFuture.supplyAsync(() -> generateVariants(url), imageVariantExecutor));
+            } catch (RejectedExecutionException e) {
+                log.warn("Image variant queue is full, keeping the original of {}", url);
+                tasks.add(CompletableFuture.completedFuture(ImageVariants.originalOnly(url)));
+            }
+        }
+
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]))
+                .thenApply(done -> tasks.stream().map(CompletableFuture::join).toList());
+    }
+
+    private ImageVariants generateVariants(String originalUrl) {
+        BlobId source = storageService.blobIdFromUrl(originalUrl);
+        if (source == null) {
+            return ImageVariants.originalOnly(originalUrl);
+        }
+
+        try {
+            BufferedImage original;
+            try (InputStream in = storageService.openImage(source)) {
+                original = decode(in, source.getName());
+            }
+            if (original == null) {
+                // No ImageIO reader for this format, or too large to decode
+                return ImageVariants.originalOnly(originalUrl);
+            }
+
+            String medium = variantUrl(source, ImageVariants.MEDIUM, original, mediumSize, originalUrl);
+            String thumbnail = variantUrl(source, ImageVariants.THUMBNAIL, original, thumbnailSize, originalUrl);
+            return new ImageVariants(thumbnail, medium, originalUrl);
+        } catch (Exception e) {
+            log.warn("Failed to generate image variants for {}: {}", source.getName(), e.getMessage());
+            return ImageVariants.originalOnly(originalUrl);
+        }
+    }
+
+    /**
+     * Decode an image no larger than needed for the variants. The header is
+     * read first, so images whose declared size exceeds maxSourcePixels are
+     * rejected before any pixel buffer is allocated, and large images are
+     * decoded with source subsampling to at least twice the medium size (so
+     * the halving steps in {@link #scaleToFit} still have detail to work with).
+     *
+     * @return The decoded image, or null if no reader supports the format or
+     *         the image is too large
+     */
+    private BufferedImage decode(InputStream in, String name) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > maxSourcePixels) {
+                    log.warn("Not generating variants for {}: {}x{} exceeds {} pixels",
+                            name, width, height, maxSourcePixels);
+                    return null;
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * Math.max(mediumSize, thumbnailSize)));
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Store a copy scaled to fit maxSize, or reuse the original if it is
+     * already that small
+     */
+    private String variantUrl(BlobId source, String variant, BufferedImage original, int maxSize,
+            String originalUrl) throws IOException {
+        if (Math.max(original.getWidth(), original.getHeight()) <= maxSize) {
+            return originalUrl;
+        }
+        return storageService.uploadVariant(source, variant, encodeJpeg(scaleToFit(original, maxSize)));
+    }
+
+    /**
+     * Downscale in halving steps so bilinear filtering keeps good quality
+     * without the cost of area-averaging scaling
+     */
+    private static BufferedImage scaleToFit(BufferedImage source, int maxSize) {
+        double scale = (double) maxSize / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = step.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                // JPEG has no alpha channel, so flatten transparency onto white
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
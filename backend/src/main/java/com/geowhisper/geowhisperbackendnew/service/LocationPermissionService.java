@@ -1,7 +1,6 @@
 package com.geowhisper.geowhisperbackendnew.service;
 
 import com.geowhisper.geowhisperbackendnew.config.ModeratorConfig;
-import com.geowhisper.geowhisperbackendnew.model.Tower;
 import com.geowhisper.geowhisperbackendnew.util.GeoUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,13 +16,17 @@ import java.util.concurrent.ExecutionException;
  * - Within 500m: Full access (post, chat, like, delete, comment)
  * - Beyond 500m: View-only (can view chats, use summarizers, but no
  * interactions)
+ * 
+ * Tower centers come from {@link TowerLocationCache}, so a check usually
+ * needs no Firestore read. Checks run on every chat message and only log at
+ * debug level.
  */
 @Service
 @Slf4j
 public class LocationPermissionService {
 
     @Autowired
-    private TowerService towerService;
+    private TowerLocationCache towerLocationCache;
 
     @Autowired
     private ModeratorConfig moderatorConfig;
@@ -46,7 +49,7 @@ public class LocationPermissionService {
 
         // Moderators can interact with any tower from anywhere
         if (username != null && moderatorConfig.isModerator(username)) {
-            log.info("✅ User {} is a MODERATOR - granting access to all towers", username);
+            log.debug("User {} is a moderator - granting access to all towers", username);
             return true;
         }
 
@@ -65,23 +68,12 @@ public class LocationPermissionService {
     public boolean canInteractWithTower(String towerId, double userLatitude, double userLongitude)
             throws ExecutionException, InterruptedException {
 
-        // Get tower details
-        Tower tower = towerService.getTowerById(towerId).orElse(null);
-
-        if (tower == null) {
-            log.warn("Tower not found: {}", towerId);
-            return false;
-        }
-
-        // Calculate distance between user and tower center
-        double distance = GeoUtils.calculateDistance(
-                userLatitude, userLongitude,
-                tower.getLatitude(), tower.getLongitude());
-
+        double distance = getDistanceFromTower(towerId, userLatitude, userLongitude);
         boolean canInteract = distance <= INTERACTION_RADIUS_METERS;
 
-        log.info("User distance from tower {}: {}m - Can interact: {}",
-                towerId, distance, canInteract);
+        if (log.isDebugEnabled()) {
+            log.debug("User distance from tower {}: {}m - Can interact: {}", towerId, distance, canInteract);
+        }
 
         return canInteract;
     }
@@ -97,22 +89,16 @@ public class LocationPermissionService {
     public double getDistanceFromTower(String towerId, double userLatitude, double userLongitude)
             throws ExecutionException, InterruptedException {
 
-        Tower tower = towerService.getTowerById(towerId).orElse(null);
+        TowerLocationCache.TowerLocation tower = towerLocationCache.get(towerId);
 
         if (tower == null) {
             log.warn("Tower not found: {}", towerId);
             return Double.MAX_VALUE;
         }
 
-        log.debug("Tower {} center: lat={}, lon={}", towerId, tower.getLatitude(), tower.getLongitude());
-
-        double distance = GeoUtils.calculateDistance(
+        return GeoUtils.calculateDistance(
                 userLatitude, userLongitude,
-                tower.getLatitude(), tower.getLongitude());
-
-        log.debug("Calculated distance: {:.2f}m", distance);
-
-        return distance;
+                tower.latitude(), tower.longitude());
     }
 
     /**
@@ -132,7 +118,7 @@ public class LocationPermissionService {
 
         // Moderators can interact with any tower from anywhere
         if (username != null && moderatorConfig.isModerator(username)) {
-            log.info("✅ MODERATOR {} granted permission to {} at tower {}", username, actionName, towerId);
+            log.debug("Moderator {} granted permission to {} at tower {}", username, actionName, towerId);
             return;
         }
 
@@ -156,22 +142,18 @@ public class LocationPermissionService {
 
         double distance = getDistanceFromTower(towerId, userLatitude, userLongitude);
 
-        log.info("=== VALIDATING INTERACTION ===");
-        log.info("Tower ID: {}", towerId);
-        log.info("User location: lat={}, lon={}", userLatitude, userLongitude);
-        log.info("Distance from tower center: {:.2f}m", distance);
-        log.info("Interaction radius: {:.0f}m", INTERACTION_RADIUS_METERS);
-        log.info("Can interact: {}", distance <= INTERACTION_RADIUS_METERS);
-
         if (distance > INTERACTION_RADIUS_METERS) {
             String errorMsg = String.format(
                     "You must be within %.0fm of the tower to %s. You are %.0fm away (view-only mode).",
                     INTERACTION_RADIUS_METERS, actionName, distance);
-            log.warn("Permission denied: {}", errorMsg);
+            log.debug("Permission denied at tower {}: {}", towerId, errorMsg);
             throw new IllegalStateException(errorMsg);
         }
 
-        log.info("Permission granted to {} at tower {}", actionName, towerId);
+        if (log.isDebugEnabled()) {
+            log.debug("Permission granted to {} at tower {} ({} m from center)",
+                    actionName, towerId, Math.round(distance));
+        }
     }
 
     /**
@@ -0,0 +1,376 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.geowhisper.geowhisperbackendnew.model.Post;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.*;
+import com.google.cloud.storage.BlobId;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background cleanup for deleted posts.
+ *
+ * Deleting a post commits the post delete together with a durable job in the
+ * "deletionJobs" collection. This service works through due jobs: it releases
+ * the post's images and deletes unreferenced blobs in batched storage
+ * requests, removes the post from its tower, and removes the mirrored chat
+ * messages with one multi-path Realtime Database update. Failed jobs are
+ * retried with exponential backoff until they run out of attempts.
+ */
+@Slf4j
+@Service
+public class PostDeletionService {
+
+    private static final String COLLECTION = "deletionJobs";
+    private static final String STATUS_PENDING = "pending";
+    private static final String STATUS_FAILED = "failed";
+
+    // A claimed job is hidden from other workers for this long
+    private static final long LEASE_MILLIS = 60_000;
+    private static final long BASE_BACKOFF_MILLIS = 5_000;
+    private static final long MAX_BACKOFF_MILLIS = 60 * 60 * 1000;
+    private static final long CHAT_LOOKUP_TIMEOUT_SECONDS = 10;
+
+    @Autowired
+    private Firestore firestore;
+
+    @Autowired
+    private StorageService storageService;
+
+    @Autowired
+    private TowerService towerService;
+
+    @Autowired
+    @Qualifier("postPipelineExecutor")
+    private Executor postPipelineExecutor;
+
+    @Value("${posts.deletion.batch-size:50}")
+    private int batchSize;
+
+    @Value("${posts.deletion.max-attempts:8}")
+    private int maxAttempts;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * Cleanup state of one deleted post, as stored in its job document
+     */
+    private record DeletionJob(
+            DocumentReference ref,
+            String postId,
+            String towerId,
+            List<String> imageUrls,
+            String chatMessageId,
+            boolean imagesReleased,
+            List<String> releasedBlobs,
+            long attempts) {
+    }
+
+    /**
+     * Add the cleanup job for a post to the batch that deletes it
+     *
+     * @param batch         Batch that also deletes the post
+     * @param post          The post being deleted
+     * @param chatMessageId Key of the mirrored chat message, if it was recorded
+     */
+    public void enqueue(WriteBatch batch, Post post, String chatMessageId) {
+        Map<String, Object> job = new HashMap<>();
+        job.put("postId", post.id());
+        job.put("userId", post.userId());
+        job.put("towerId", post.towerId());
+        job.put("imageUrls", post.allImageUrls());
+        job.put("chatMessageId", chatMessageId);
+        job.put("status", STATUS_PENDING);
+        job.put("attempts", 0);
+        job.put("createdAt", FieldValue.serverTimestamp());
+        job.put("nextAttemptAt", Timestamp.now());
+
+        batch.set(firestore.collection(COLLECTION).document(post.id()), job);
+    }
+
+    /**
+     * Run the cleanup now instead of waiting for the next scheduled pass.
+     * If the pool is busy the scheduled pass picks the job up.
+     */
+    public void processSoon() {
+        try {
+            postPipelineExecutor.execute(this::processPendingDeletions);
+        } catch (RejectedExecutionException e) {
+            // The scheduled pass will pick the job up
+        }
+    }
+
+    /**
+     * Claim and process the jobs that are due
+     */
+    @Scheduled(fixedDelayString = "${posts.deletion.poll-interval-ms:10000}",
+            initialDelayString = "${posts.deletion.poll-interval-ms:10000}")
+    public void processPendingDeletions() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            List<QueryDocumentSnapshot> due = firestore.collection(COLLECTION)
+                    .whereLessThanOrEqualTo("nextAttemptAt", Timestamp.now())
+                    .orderBy("nextAttemptAt")
+                    .limit(batchSize)
+                    .get()
+                    .get()
+                    .getDocuments();
+
+            List<DeletionJob> jobs = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : due) {
+                DeletionJob job = claim(doc.getReference());
+                if (job != null) {
+                    jobs.add(job);
+                }
+            }
+
+            if (!jobs.isEmpty()) {
+                runCascade(jobs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Failed to process post deletions: {}", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Take a lease on a due job so no other worker processes it at the same time
+     *
+     * @return The job, or null if it is no longer due
+     */
+    private DeletionJob claim(DocumentReference ref) throws ExecutionException, InterruptedException {
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(ref).get();
+            Timestamp nextAttemptAt = snapshot.exists() ? snapshot.getTimestamp("nextAttemptAt") : null;
+            Timestamp now = Timestamp.now();
+            if (nextAttemptAt == null || nextAttemptAt.compareTo(now) > 0) {
+                return null;
+            }
+
+            Long attempts = snapshot.getLong("attempts");
+            long attempt = (attempts != null ? attempts : 0) + 1;
+            transaction.update(ref,
+                    "nextAttemptAt", millisFromNow(LEASE_MILLIS),
+                    "attempts", attempt);
+
+            return new DeletionJob(
+                    ref,
+                    snapshot.getString("postId"),
+                    snapshot.getString("towerId"),
+                    stringList(snapshot.get("imageUrls")),
+                    snapshot.getString("chatMessageId"),
+                    Boolean.TRUE.equals(snapshot.getBoolean("imagesReleased")),
+                    stringList(snapshot.get("releasedBlobs")),
+                    attempt);
+        }).get();
+    }
+
+    private void runCascade(List<DeletionJob> jobs) throws InterruptedException {
+        Map<DeletionJob, Exception> failures = new LinkedHashMap<>();
+
+        // 1. Release image references. Each release is recorded on the job in
+        // the same transaction, so a retry never releases a reference twice.
+        Map<DeletionJob, List<BlobId>> blobsByJob = new LinkedHashMap<>();
+        for (DeletionJob job : jobs) {
+            try {
+                blobsByJob.put(job, releaseImages(job));
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failures.put(job, e);
+            }
+        }
+
+        // 2. Delete every unreferenced blob of this pass in batched requests
+        List<BlobId> blobs = new ArrayList<>();
+        blobsByJob.values().forEach(blobs::addAll);
+        try {
+            storageService.deleteBlobs(blobs);
+        } catch (Exception e) {
+            blobsByJob.forEach((job, jobBlobs) -> {
+                if (!jobBlobs.isEmpty()) {
+                    failures.putIfAbsent(job, e);
+                }
+            });
+        }
+
+        // 3. Remove the posts from their towers
+        for (DeletionJob job : jobs) {
+            if (failures.containsKey(job) || job.towerId() == null || job.towerId().isEmpty()) {
+                continue;
+            }
+            try {
+                towerService.removePostFromTower(job.towerId(), job.postId());
+            } catch (IllegalArgumentException e) {
+                // Tower already gone, nothing to clean up
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failures.put(job, e);
+            }
+        }
+
+        // 4. Remove the mirrored chat messages with one multi-path update
+        Map<String, Object> chatPaths = new HashMap<>();
+        List<DeletionJob> chatJobs = new ArrayList<>();
+        for (DeletionJob job : jobs) {
+            if (failures.containsKey(job) || job.towerId() == null || job.towerId().isEmpty()) {
+                continue;
+            }
+            try {
+                for (String key : chatMessageKeys(job)) {
+                    chatPaths.put("chats/" + job.towerId() + "/messages/" + key, null);
+                }
+                chatJobs.add(job);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failures.put(job, e);
+            }
+        }
+        if (!chatPaths.isEmpty()) {
+            try {
+                FirebaseDatabase.getInstance().getReference().updateChildrenAsync(chatPaths).get();
+            } catch (ExecutionException e) {
+                chatJobs.forEach(job -> failures.putIfAbsent(job, e));
+            }
+        }
+
+        // 5. Finish completed jobs and reschedule failed ones
+        WriteBatch done = firestore.batch();
+        int completed = 0;
+        for (DeletionJob job : jobs) {
+            Exception failure = failures.get(job);
+            if (failure == null) {
+                done.delete(job.ref());
+                completed++;
+            } else {
+                scheduleRetry(job, failure);
+            }
+        }
+        if (completed > 0) {
+            try {
+                done.commit().get();
+            } catch (ExecutionException e) {
+                log.warn("Failed to remove finished deletion jobs: {}", e.getMessage());
+            }
+        }
+
+        log.info("Processed {} post deletions ({} completed, {} to retry), {} blobs removed",
+                jobs.size(), completed, failures.size(), blobs.size());
+    }
+
+    /**
+     * Release the job's image references that are not released yet
+     *
+     * @return Every unreferenced blob of the post, including those released
+     *         by earlier attempts whose deletion may have failed
+     */
+    private List<BlobId> releaseImages(DeletionJob job) throws ExecutionException, InterruptedException {
+        List<BlobId> earlier = job.releasedBlobs().stream().map(BlobId::fromGsUtilUri).toList();
+        if (job.imagesReleased()) {
+            // Job from before references were recorded one by one
+            return earlier;
+        }
+
+        Set<BlobId> blobs = new LinkedHashSet<>(storageService.withVariants(earlier));
+        blobs.addAll(storageService.releaseImages(job.imageUrls(), job.ref()));
+        return new ArrayList<>(blobs);
+    }
+
+    /**
+     * Keys of the chat messages mirroring the post. Posts created before the
+     * key was stored on the post are looked up by postId.
+     */
+    private List<String> chatMessageKeys(DeletionJob job) throws Exception {
+        if (job.chatMessageId() != null) {
+            return List.of(job.chatMessageId());
+        }
+
+        CompletableFuture<List<String>> keys = new CompletableFuture<>();
+        FirebaseDatabase.getInstance()
+                .getReference("chats")
+                .child(job.towerId())
+                .child("messages")
+                .orderByChild("postId")
+                .equalTo(job.postId())
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(DataSnapshot snapshot) {
+                        List<String> found = new ArrayList<>();
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            found.add(child.getKey());
+                        }
+                        keys.complete(found);
+                    }
+
+                    @Override
+                    public void onCancelled(DatabaseError error) {
+                        keys.completeExceptionally(error.toException());
+                    }
+                });
+        return keys.get(CHAT_LOOKUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void scheduleRetry(DeletionJob job, Exception failure) {
+        String error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+        try {
+            if (job.attempts() >= maxAttempts) {
+                job.ref().update(
+                        "status", STATUS_FAILED,
+                        "nextAttemptAt", FieldValue.delete(),
+                        "lastError", error).get();
+                log.warn("Giving up on cleanup of post {} after {} attempts: {}",
+                        job.postId(), job.attempts(), error);
+                return;
+            }
+
+            long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(job.attempts() - 1, 20));
+            job.ref().update(
+                    "nextAttemptAt", millisFromNow(backoff),
+                    "lastError", error).get();
+        } catch (Exception e) {
+            // The lease expires on its own, so the job is retried anyway
+            log.warn("Failed to reschedule cleanup of post {}: {}", job.postId(), e.getMessage());
+        }
+    }
+
+    private static Timestamp millisFromNow(long millis) {
+        return Timestamp.ofTimeMicroseconds((System.currentTimeMillis() + millis) * 1000);
+    }
+
+    private static List<String> stringList(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return List.of();
+        }
+        List<String> strings = new ArrayList<>(list.size());
+        for (Object o : list) {
+            if (o instanceof String s) {
+                strings.add(s);
+            }
+        }
+        return strings;
+    }
+}
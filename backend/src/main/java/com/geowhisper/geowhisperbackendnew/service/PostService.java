@@ -1,23 +1,48 @@
 package com.geowhisper.geowhisperbackendnew.service;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import com.geowhisper.geowhisperbackendnew.dto.BulkCreatePostsResponse;
+import com.geowhisper.geowhisperbackendnew.dto.BulkPostItem;
 import com.geowhisper.geowhisperbackendnew.dto.CreatePostRequest;
+import com.geowhisper.geowhisperbackendnew.dto.NearbyPostResponse;
 import com.geowhisper.geowhisperbackendnew.dto.TowerResponse;
+import com.geowhisper.geowhisperbackendnew.model.ImageVariants;
+import com.geowhisper.geowhisperbackendnew.model.Post;
 import com.geowhisper.geowhisperbackendnew.model.Tower;
+import com.geowhisper.geowhisperbackendnew.util.FirestoreErrors;
 import com.geowhisper.geowhisperbackendnew.util.GeoUtils;
+import com.geowhisper.geowhisperbackendnew.util.SpatialGridIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
 
 @Service
 public class PostService {
 
+    // Largest multi-path update sent to the Realtime Database at once
+    private static final int CHAT_UPDATE_CHUNK_SIZE = 500;
+
     @Autowired
     private Firestore firestore;
 
@@ -30,59 +55,401 @@ public class PostService {
     @Autowired
     private LocationPermissionService locationPermissionService;
 
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private PostDeletionService postDeletionService;
+
+    @Autowired
+    private TowerActivityTracker activityTracker;
+
+    @Autowired
+    private HeatmapService heatmapService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("postPipelineExecutor")
+    private Executor postPipelineExecutor;
+
+    @Value("${posts.bulk.max-items:10000}")
+    private int bulkMaxItems;
+
+    @Value("${posts.bulk.initial-ops-per-second:2000}")
+    private int bulkInitialOpsPerSecond;
+
+    @Value("${posts.bulk.max-ops-per-second:10000}")
+    private int bulkMaxOpsPerSecond;
+
     /**
      * Create a new post without images (backward compatibility)
      */
-    public Map<String, Object> createPost(String userId, String username, CreatePostRequest request)
+    public Post createPost(String userId, String username, CreatePostRequest request)
             throws ExecutionException, InterruptedException {
         return createPost(userId, username, request, null);
     }
 
     /**
-     * Create a new post with optional images
+     * Create a new post with optional images.
+     * 
+     * Image uploads and tower resolution run concurrently; once both are done
+     * the post, its tower membership and the tower counters are written in a
+     * single batch, so a failure can never leave a tower pointing at a
+     * missing post. If the post cannot be written, its uploaded images are
+     * released again.
      */
-    public Map<String, Object> createPost(
+    public Post createPost(
             String userId,
             String username,
             CreatePostRequest request,
             MultipartFile[] images)
             throws ExecutionException, InterruptedException {
 
-        // Create document reference first to get the post ID
-        DocumentReference docRef = firestore.collection("posts").document();
-        String postId = docRef.getId();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // Create document reference first to get the post ID
+            DocumentReference docRef = firestore.collection("posts").document();
+            String postId = docRef.getId();
+
+            // Stage 1: uploads and tower resolution in parallel
+            CompletableFuture<List<String>> uploads = uploadImagesAsync(images, userId, postId);
+            CompletableFuture<TowerAssignment> towerLookup = CompletableFuture.supplyAsync(
+                    () -> resolveTower(request.getLatitude(), request.getLongitude(), postId),
+                    postPipelineExecutor);
 
-        // Upload images if provided
-        List<String> imageUrls = new ArrayList<>();
-        if (images != null && images.length > 0) {
+            // A failed upload releases the images that did upload itself
+            List<String> imageUrls = await(uploads);
+
+            // Stage 2: post and tower in one atomic commit
+            CommittedPost committed;
             try {
-                imageUrls = storageService.uploadImages(images, userId, postId);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to upload images: " + e.getMessage(), e);
+                TowerAssignment tower = await(towerLookup);
+                committed = commitPost(docRef, tower, request,
+                        (towerId, chatRef) -> buildPostData(userId, username, request, towerId, imageUrls, chatRef));
+            } catch (ExecutionException | InterruptedException | RuntimeException e) {
+                // The post was not written, so nothing references the uploaded images
+                storageService.deleteImages(imageUrls);
+                throw e;
+            }
+            DatabaseReference chatMessageRef = committed.chatMessageRef();
+
+            // Also add the post as a chat message to the tower's chat
+            long timestamp = System.currentTimeMillis();
+            heatmapService.recordPost(postId, request.getLatitude(), request.getLongitude(), timestamp);
+            addPostAsChatMessage(chatMessageRef, committed.towerId(), userId, username,
+                    request.getContent(), imageUrls, postId, timestamp);
+            generateImageVariants(docRef, imageUrls, chatMessageRef);
+
+            return new Post(postId, userId, username, request.getContent(),
+                    request.getLatitude(), request.getLongitude(), committed.towerId(),
+                    Timestamp.ofTimeMicroseconds(timestamp * 1000),
+                    0, 0, imageUrls, imageUrls.size(), null, null);
+        } finally {
+            sample.stop(createLatencyTimer("sync"));
+        }
+    }
+
+    /**
+     * Create a post and return as soon as the post and tower documents are
+     * written. Images are copied out of the request and uploaded in the
+     * background; the post starts with no images and mediaStatus
+     * "processing", which becomes "ready" (or "failed") when uploads finish.
+     * The tower chat message is added once the images are known.
+     */
+    public Post createPostAsync(
+            String userId,
+            String username,
+            CreatePostRequest request,
+            MultipartFile[] images)
+            throws ExecutionException, InterruptedException {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        MultipartFile[] staged;
+        try {
+            staged = storageService.stageImages(images);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read images: " + e.getMessage(), e);
+        }
+
+        try {
+            DocumentReference docRef = firestore.collection("posts").document();
+            String postId = docRef.getId();
+
+            TowerAssignment tower = resolveTower(request.getLatitude(), request.getLongitude(), postId);
+
+            CommittedPost committed = commitPost(docRef, tower, request, (towerId, chatRef) -> {
+                Map<String, Object> postData = buildPostData(userId, username, request, towerId, List.of(),
+                        chatRef);
+                postData.put("mediaStatus", Post.MEDIA_PROCESSING);
+                return postData;
+            });
+            DatabaseReference chatMessageRef = committed.chatMessageRef();
+
+            long timestamp = System.currentTimeMillis();
+            heatmapService.recordPost(postId, request.getLatitude(), request.getLongitude(), timestamp);
+            CompletableFuture.runAsync(
+                    () -> finalizeMedia(docRef, staged, chatMessageRef, userId, username, request.getContent(),
+                            committed.towerId(), timestamp),
+                    postPipelineExecutor);
+
+            return new Post(postId, userId, username, request.getContent(),
+                    request.getLatitude(), request.getLongitude(), committed.towerId(),
+                    Timestamp.ofTimeMicroseconds(timestamp * 1000),
+                    0, 0, List.of(), 0, Post.MEDIA_PROCESSING, null);
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            storageService.discardStagedImages(staged);
+            throw e;
+        } finally {
+            sample.stop(createLatencyTimer("async"));
+        }
+    }
+
+    /**
+     * Background half of {@link #createPostAsync}: upload the staged images,
+     * attach them to the post and mirror the post into the tower chat. If
+     * the post was deleted before its images were attached, the images are
+     * released and the post is not mirrored.
+     */
+    private void finalizeMedia(DocumentReference docRef, MultipartFile[] staged, DatabaseReference chatMessageRef,
+            String userId, String username, String content, String towerId, long timestamp) {
+        String postId = docRef.getId();
+        List<String> imageUrls = List.of();
+        boolean postDeleted = false;
+        try {
+            imageUrls = storageService.uploadImages(staged, userId, postId);
+            updateListedPost(docRef, Map.of(
+                    "images", imageUrls,
+                    "imageCount", imageUrls.size(),
+                    "mediaStatus", Post.MEDIA_READY));
+        } catch (Exception e) {
+            // The deletion job of a post deleted meanwhile did not see these
+            // images, so their references are released here
+            storageService.deleteImages(imageUrls);
+            imageUrls = List.of();
+            postDeleted = FirestoreErrors.isNotFound(e);
+            if (!postDeleted) {
+                System.err.println("⚠️ Failed to finalize images for post " + postId + ": " + e.getMessage());
+                try {
+                    updateListedPost(docRef, Map.of("mediaStatus", Post.MEDIA_FAILED));
+                } catch (Exception updateError) {
+                    postDeleted = FirestoreErrors.isNotFound(updateError);
+                    if (!postDeleted) {
+                        System.err.println("⚠️ Failed to mark media as failed for post " + postId + ": "
+                                + updateError.getMessage());
+                    }
+                }
+            }
+        } finally {
+            storageService.discardStagedImages(staged);
+        }
+
+        if (postDeleted) {
+            // Mirroring it now would bring the chat message of a deleted post back
+            return;
+        }
+        addPostAsChatMessage(chatMessageRef, towerId, userId, username, content, imageUrls, postId, timestamp);
+        generateImageVariants(docRef, imageUrls, chatMessageRef);
+    }
+
+    /**
+     * Update a post that the tower listing includes, bumping the tower
+     * collection version in the same batch so the listing's validators
+     * change with it. Fails with NOT_FOUND if the post has been deleted.
+     */
+    private void updateListedPost(DocumentReference docRef, Map<String, Object> updates)
+            throws ExecutionException, InterruptedException {
+        WriteBatch batch = firestore.batch();
+        batch.update(docRef, updates);
+        towerService.recordCollectionChange(batch);
+        batch.commit().get();
+    }
+
+    /**
+     * Switch the image of a chat message, unless the message has been removed
+     * (e.g. by a concurrent post deletion). A plain write would recreate it.
+     */
+    private void setChatImageIfPresent(DatabaseReference chatMessageRef, String imageUrl) {
+        chatMessageRef.runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData currentData) {
+                // null is also what an uncached first attempt sees; the server
+                // rejects it if the message exists and the handler runs again
+                if (currentData.getValue() != null) {
+                    currentData.child("image").setValue(imageUrl);
+                }
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (error != null) {
+                    System.err.println("⚠️ Failed to update chat image of " + chatMessageRef.getKey() + ": "
+                            + error.getMessage());
+                }
             }
+        }, false);
+    }
+
+    /**
+     * Start generating thumbnail/medium variants in the background. When they
+     * are ready they are stored on the post as "imageVariants" and the chat
+     * preview is switched to the medium size. The post may have been deleted
+     * in the meantime: the update then fails (updates require the document to
+     * exist), the chat message is left alone and the variant blobs nothing
+     * references anymore are deleted again.
+     */
+    private void generateImageVariants(DocumentReference docRef, List<String> imageUrls,
+            DatabaseReference chatMessageRef) {
+        if (imageUrls.isEmpty()) {
+            return;
         }
 
-        // Tower assignment logic: Find or create a tower for this post
-        String towerId = null;
-        double postLat = request.getLatitude();
-        double postLon = request.getLongitude();
+        imageVariantService.generateVariants(imageUrls)
+                .thenAccept(variants -> {
+                    List<Map<String, Object>> variantMaps = variants.stream()
+                            .map(ImageVariants::toMap)
+                            .toList();
+                    try {
+                        updateListedPost(docRef, Map.of("imageVariants", variantMaps));
+                    } catch (ExecutionException e) {
+                        if (!FirestoreErrors.isNotFound(e)) {
+                            System.err.println("⚠️ Failed to store image variants for post " + docRef.getId() + ": "
+                                    + e.getMessage());
+                        }
+                        storageService.discardUnreferencedVariants(imageUrls);
+                        return;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        storageService.discardUnreferencedVariants(imageUrls);
+                        return;
+                    }
+                    if (chatMessageRef != null) {
+                        setChatImageIfPresent(chatMessageRef, variants.get(0).medium());
+                    }
+                })
+                .exceptionally(e -> {
+                    System.err.println("⚠️ Failed to generate image variants for post " + docRef.getId() + ": "
+                            + e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Tower chosen for a new post. {@code newTower} is set when no tower was
+     * found nearby and a new one still has to be saved.
+     */
+    private record TowerAssignment(String towerId, Tower newTower) {
+    }
+
+    /**
+     * Find the tower a post at this location belongs to, or reserve a new one.
+     * Nothing is written here so the caller can issue the tower write together
+     * with the post write in one batch.
+     */
+    private TowerAssignment resolveTower(double postLat, double postLon, String postId) {
         int towerRadius = 50; // 50 meters radius for tower clustering
+        try {
+            // Check if there's an existing tower within 50 meters
+            Optional<Tower> nearestTower = towerService.findNearestTower(postLat, postLon, towerRadius);
+            if (nearestTower.isPresent()) {
+                return new TowerAssignment(nearestTower.get().getTowerId(), null);
+            }
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
 
-        // Check if there's an existing tower within 50 meters
-        Optional<Tower> nearestTower = towerService.findNearestTower(postLat, postLon, towerRadius);
+        // No nearby tower found - create a new tower with this post as the first post
+        Tower newTower = towerService.newTower(postLat, postLon, towerRadius, postId);
+        return new TowerAssignment(newTower.getTowerId(), newTower);
+    }
 
-        if (nearestTower.isPresent()) {
-            // Add post to existing tower
-            Tower tower = nearestTower.get();
-            towerId = tower.getTowerId();
-            towerService.addPostToTower(towerId, postId);
+    /**
+     * Tower and chat message reference a post was committed with
+     */
+    private record CommittedPost(String towerId, DatabaseReference chatMessageRef) {
+    }
+
+    /**
+     * Write a post together with its tower assignment in one batch. Joining an
+     * existing tower is a blind update, which fails the batch with NOT_FOUND
+     * if the tower was deleted (its last post removed) after the lookup; the
+     * tower is then resolved again and the batch retried once.
+     *
+     * @param postData Post fields for a given tower ID and chat message reference
+     */
+    private CommittedPost commitPost(DocumentReference docRef, TowerAssignment tower, CreatePostRequest request,
+            BiFunction<String, DatabaseReference, Map<String, Object>> postData)
+            throws ExecutionException, InterruptedException {
+        boolean retried = false;
+        while (true) {
+            DatabaseReference chatMessageRef = newChatMessageRef(tower.towerId());
+            WriteBatch batch = firestore.batch();
+            batch.set(docRef, postData.apply(tower.towerId(), chatMessageRef));
+            stageTowerAssignment(batch, tower, docRef.getId());
+            try {
+                batch.commit().get();
+                return new CommittedPost(tower.towerId(), chatMessageRef);
+            } catch (ExecutionException e) {
+                if (retried || tower.newTower() != null || !FirestoreErrors.isNotFound(e)) {
+                    throw e;
+                }
+                System.out.println("🔄 Tower " + tower.towerId() + " was deleted while creating post "
+                        + docRef.getId() + ", resolving its tower again");
+                retried = true;
+                tower = resolveTower(request.getLatitude(), request.getLongitude(), docRef.getId());
+            }
+        }
+    }
+
+    private void stageTowerAssignment(WriteBatch batch, TowerAssignment tower, String postId) {
+        if (tower.newTower() != null) {
+            towerService.stageNewTower(batch, tower.newTower());
         } else {
-            // No nearby tower found - create a new tower with this post as the first post
-            Tower newTower = towerService.createTower(postLat, postLon, towerRadius, postId);
-            towerId = newTower.getTowerId();
+            towerService.stagePostMembership(batch, tower.towerId(), postId);
+        }
+    }
+
+    private CompletableFuture<List<String>> uploadImagesAsync(MultipartFile[] images, String userId,
+            String postId) {
+        if (images == null || images.length == 0) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return storageService.uploadImages(images, userId, postId);
+            } catch (IOException e) {
+                throw new CompletionException(
+                        new RuntimeException("Failed to upload images: " + e.getMessage(), e));
+            }
+        }, postPipelineExecutor);
+    }
+
+    /**
+     * Wait for a pipeline stage, rethrowing its original exception so callers
+     * see the same errors as the serial implementation did.
+     */
+    private static <T> T await(CompletableFuture<T> stage) throws ExecutionException, InterruptedException {
+        try {
+            return stage.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof InterruptedException interrupted) {
+                throw interrupted;
+            }
+            throw new ExecutionException(cause);
         }
+    }
 
-        // Create post data
+    private Map<String, Object> buildPostData(String userId, String username, CreatePostRequest request,
+            String towerId, List<String> imageUrls, DatabaseReference chatMessageRef) {
         Map<String, Object> postData = new HashMap<>();
         postData.put("userId", userId);
         postData.put("username", username);
@@ -95,21 +462,254 @@ public class PostService {
         postData.put("commentCount", 0);
         postData.put("images", imageUrls);
         postData.put("imageCount", imageUrls.size());
+        if (chatMessageRef != null) {
+            // Lets deletion remove the chat mirror without querying for it
+            postData.put("chatMessageId", chatMessageRef.getKey());
+        }
+        return postData;
+    }
+
+    private Timer createLatencyTimer(String mode) {
+        return Timer.builder("geowhisper.posts.create")
+                .description("Latency of post creation until the response is ready")
+                .tag("mode", mode)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Create many posts at once (seeding, imports).
+     * 
+     * Towers are loaded once and assigned to the whole batch in memory through
+     * a spatial grid, so later posts in the batch also join towers created by
+     * earlier ones, exactly as consecutive createPost calls would. Posts and
+     * tower changes (one write per touched tower) go through a rate-limited
+     * BulkWriter, and chat mirrors are written with multi-path Realtime
+     * Database updates. Items are independent: an invalid or failed item is
+     * reported in its result and does not affect the others.
+     * 
+     * @param items Posts to create (at most posts.bulk.max-items)
+     * @return Per-item results in request order plus totals
+     */
+    public BulkCreatePostsResponse createPostsBulk(List<BulkPostItem> items)
+            throws ExecutionException, InterruptedException {
+
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one post is required");
+        }
+        if (items.size() > bulkMaxItems) {
+            throw new IllegalArgumentException("At most " + bulkMaxItems + " posts allowed per request");
+        }
+
+        long started = System.currentTimeMillis();
+        int towerRadius = 50; // Same clustering radius as createPost
+
+        // Assign towers for the whole batch in memory
+        SpatialGridIndex<Tower> towerIndex = new SpatialGridIndex<>(towerRadius);
+        for (Tower tower : towerService.getAllTowers()) {
+            towerIndex.add(tower.getLatitude(), tower.getLongitude(), tower);
+        }
 
-        // Save to Firestore
-        docRef.set(postData).get();
+        BulkCreatePostsResponse.BulkPostResult[] results = new BulkCreatePostsResponse.BulkPostResult[items.size()];
+        Map<String, Tower> newTowers = new LinkedHashMap<>();
+        Map<String, List<String>> joinedTowers = new LinkedHashMap<>(); // Existing tower -> new post IDs
+        List<BulkPendingPost> pending = new ArrayList<>();
 
-        // Also add the post as a chat message to the tower's chat
+        for (int i = 0; i < items.size(); i++) {
+            BulkPostItem item = items.get(i);
+            String error = validateBulkItem(item);
+            if (error != null) {
+                results[i] = bulkFailure(i, null, null, error);
+                continue;
+            }
+
+            DocumentReference docRef = firestore.collection("posts").document();
+            String postId = docRef.getId();
+
+            Optional<Tower> nearest = towerIndex.nearest(item.getLatitude(), item.getLongitude(), towerRadius);
+            String towerId;
+            if (nearest.isEmpty()) {
+                Tower tower = towerService.newTower(item.getLatitude(), item.getLongitude(), towerRadius, postId);
+                towerId = tower.getTowerId();
+                newTowers.put(towerId, tower);
+                towerIndex.add(tower.getLatitude(), tower.getLongitude(), tower);
+            } else if (newTowers.containsKey(nearest.get().getTowerId())) {
+                towerId = nearest.get().getTowerId();
+                nearest.get().addPost(postId);
+            } else {
+                towerId = nearest.get().getTowerId();
+                joinedTowers.computeIfAbsent(towerId, id -> new ArrayList<>()).add(postId);
+            }
+
+            pending.add(new BulkPendingPost(i, docRef, item, towerId, newChatMessageRef(towerId)));
+        }
+
+        // Queue every write, then wait once for the whole bulk
+        BulkWriter writer = firestore.bulkWriter(BulkWriterOptions.builder()
+                .setInitialOpsPerSecond(bulkInitialOpsPerSecond)
+                .setMaxOpsPerSecond(bulkMaxOpsPerSecond)
+                .build());
+
+        Map<String, ApiFuture<WriteResult>> towerWrites = new HashMap<>();
+        newTowers.values().forEach(tower -> towerWrites.put(tower.getTowerId(),
+                towerService.bulkSaveNewTower(writer, tower)));
+        joinedTowers.forEach((towerId, postIds) -> towerWrites.put(towerId,
+                towerService.bulkAddPosts(writer, towerId, postIds)));
+        if (!towerWrites.isEmpty()) {
+            towerService.recordCollectionChange(writer);
+        }
+
+        List<ApiFuture<WriteResult>> postWrites = new ArrayList<>(pending.size());
+        for (BulkPendingPost post : pending) {
+            CreatePostRequest request = new CreatePostRequest();
+            request.setContent(post.item().getContent());
+            request.setLatitude(post.item().getLatitude());
+            request.setLongitude(post.item().getLongitude());
+            postWrites.add(writer.create(post.docRef(), buildPostData(post.item().getUserId(),
+                    bulkUsername(post.item()), request, post.towerId(), List.of(), post.chatMessageRef())));
+        }
+
+        writer.close();
+
+        // Collect per-item results and mirror the created posts into tower chats
         long timestamp = System.currentTimeMillis();
-        addPostAsChatMessage(towerId, userId, username, request.getContent(), imageUrls, postId, timestamp);
+        Map<String, Object> chatUpdates = new HashMap<>();
+        Set<String> failedTowers = new HashSet<>();
+        for (int p = 0; p < pending.size(); p++) {
+            BulkPendingPost post = pending.get(p);
+            String postId = post.docRef().getId();
+            String error = writeError(postWrites.get(p));
+            if (error == null) {
+                String towerError = writeError(towerWrites.get(post.towerId()));
+                if (towerError != null) {
+                    failedTowers.add(post.towerId());
+                    error = "Post saved but tower update failed: " + towerError;
+                }
+            }
 
-        // Replace FieldValue.serverTimestamp() with actual timestamp for the response
-        postData.put("createdAt", timestamp);
-        postData.put("id", postId);
-        return postData;
+            if (error != null) {
+                results[post.index()] = bulkFailure(post.index(), postId, post.towerId(), error);
+                continue;
+            }
+
+            results[post.index()] = BulkCreatePostsResponse.BulkPostResult.builder()
+                    .index(post.index())
+                    .success(true)
+                    .postId(postId)
+                    .towerId(post.towerId())
+                    .build();
+            heatmapService.recordPost(postId, post.item().getLatitude(), post.item().getLongitude(), timestamp);
+
+            if (post.chatMessageRef() != null) {
+                Map<String, Object> messageData = chatMessageData(post.item().getUserId(),
+                        bulkUsername(post.item()), post.item().getContent(), List.of(), postId, timestamp);
+                chatUpdates.put("chats/" + post.towerId() + "/messages/" + post.chatMessageRef().getKey(),
+                        messageData);
+                activityTracker.record(post.towerId(), post.chatMessageRef().getKey(), messageData);
+            }
+        }
+        writeChatMirrors(chatUpdates);
+
+        int created = (int) Arrays.stream(results).filter(BulkCreatePostsResponse.BulkPostResult::getSuccess).count();
+        long towersCreated = newTowers.keySet().stream().filter(id -> !failedTowers.contains(id)).count();
+        long towersUpdated = joinedTowers.keySet().stream().filter(id -> !failedTowers.contains(id)).count();
+
+        return BulkCreatePostsResponse.builder()
+                .requested(items.size())
+                .created(created)
+                .failed(items.size() - created)
+                .towersCreated((int) towersCreated)
+                .towersUpdated((int) towersUpdated)
+                .durationMs(System.currentTimeMillis() - started)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * A valid bulk item with its reserved post ID, tower and chat message
+     */
+    private record BulkPendingPost(int index, DocumentReference docRef, BulkPostItem item, String towerId,
+            DatabaseReference chatMessageRef) {
+    }
+
+    private static String validateBulkItem(BulkPostItem item) {
+        if (item == null) {
+            return "Post is missing";
+        }
+        if (item.getUserId() == null || item.getUserId().isBlank()) {
+            return "userId is required";
+        }
+        if (item.getContent() == null || item.getContent().isBlank()) {
+            return "content is required";
+        }
+        if (item.getLatitude() < -90 || item.getLatitude() > 90
+                || item.getLongitude() < -180 || item.getLongitude() > 180) {
+            return "Invalid coordinates";
+        }
+        return null;
+    }
+
+    private static String bulkUsername(BulkPostItem item) {
+        return item.getUsername() != null && !item.getUsername().isBlank() ? item.getUsername() : "Anonymous";
+    }
+
+    private static BulkCreatePostsResponse.BulkPostResult bulkFailure(int index, String postId, String towerId,
+            String error) {
+        return BulkCreatePostsResponse.BulkPostResult.builder()
+                .index(index)
+                .success(false)
+                .postId(postId)
+                .towerId(towerId)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Error message of a completed bulk write, or null if it succeeded
+     */
+    private static String writeError(ApiFuture<WriteResult> write) throws InterruptedException {
+        if (write == null) {
+            return null;
+        }
+        try {
+            write.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+        }
+    }
+
+    /**
+     * Write chat mirrors with multi-path updates of bounded size. Like the
+     * single-post path, chat failures are logged and do not fail the posts.
+     */
+    private void writeChatMirrors(Map<String, Object> chatUpdates) {
+        if (chatUpdates.isEmpty()) {
+            return;
+        }
+
+        try {
+            DatabaseReference root = FirebaseDatabase.getInstance().getReference();
+            List<ApiFuture<Void>> writes = new ArrayList<>();
+            Map<String, Object> chunk = new HashMap<>();
+            for (Map.Entry<String, Object> update : chatUpdates.entrySet()) {
+                chunk.put(update.getKey(), update.getValue());
+                if (chunk.size() == CHAT_UPDATE_CHUNK_SIZE) {
+                    writes.add(root.updateChildrenAsync(chunk));
+                    chunk = new HashMap<>();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writes.add(root.updateChildrenAsync(chunk));
+            }
+            ApiFutures.allAsList(writes).get();
+            System.out.println("✅ Added " + chatUpdates.size() + " bulk posts as chat messages");
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to add bulk posts as chat messages: " + e.getMessage());
+        }
     }
 
-    public List<Map<String, Object>> getNearbyPosts(
+    public List<NearbyPostResponse> getNearbyPosts(
             double userLat,
             double userLon,
             int radiusMeters,
@@ -121,28 +721,22 @@ public class PostService {
                 .get()
                 .get();
 
-        List<Map<String, Object>> nearbyPosts = new ArrayList<>();
+        List<NearbyPostResponse> nearbyPosts = new ArrayList<>();
 
         for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-            Map<String, Object> post = doc.getData();
+            Post post = Post.fromDocument(doc);
             if (post == null)
                 continue;
 
             // Filter out seeded posts
-            String userId = (String) post.get("userId");
-            if (userId != null && userId.startsWith("seed_user_")) {
+            if (post.isSeeded()) {
                 continue;
             }
 
-            double postLat = ((Number) post.get("latitude")).doubleValue();
-            double postLon = ((Number) post.get("longitude")).doubleValue();
-
-            double distance = GeoUtils.calculateDistance(userLat, userLon, postLat, postLon);
+            double distance = GeoUtils.calculateDistance(userLat, userLon, post.latitude(), post.longitude());
 
             if (distance <= radiusMeters) {
-                post.put("id", doc.getId());
-                post.put("distance", Math.round(distance));
-                nearbyPosts.add(post);
+                nearbyPosts.add(new NearbyPostResponse(post, Math.round(distance)));
             }
 
             if (nearbyPosts.size() >= limit) {
@@ -150,12 +744,12 @@ public class PostService {
             }
         }
 
-        nearbyPosts.sort((a, b) -> Double.compare((Double) a.get("distance"), (Double) b.get("distance")));
+        nearbyPosts.sort(Comparator.comparingLong(NearbyPostResponse::distance));
 
         return nearbyPosts;
     }
 
-    public List<Map<String, Object>> getUserPosts(String userId)
+    public List<Post> getUserPosts(String userId)
             throws ExecutionException, InterruptedException {
 
         // Query without orderBy to avoid needing a composite index
@@ -165,11 +759,10 @@ public class PostService {
                 .get()
                 .get();
 
-        List<Map<String, Object>> posts = new ArrayList<>();
+        List<Post> posts = new ArrayList<>();
         for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-            Map<String, Object> post = doc.getData();
+            Post post = Post.fromDocument(doc);
             if (post != null) {
-                post.put("id", doc.getId());
                 posts.add(post);
             }
         }
@@ -178,39 +771,41 @@ public class PostService {
     }
 
     /**
-     * Add a post as a chat message to the tower's chat in Firebase Realtime
-     * Database
+     * Reserve the chat message that will mirror a new post. Push keys are
+     * generated locally, so the key can be stored on the post before the
+     * message is written.
+     * 
+     * @return Reference to the new message, or null if the database is unavailable
      */
-    private void addPostAsChatMessage(String towerId, String userId, String username,
-            String content, List<String> imageUrls,
-            String postId, long timestamp) {
+    private DatabaseReference newChatMessageRef(String towerId) {
         try {
-            // Get reference to the tower's chat messages
-            DatabaseReference chatRef = FirebaseDatabase.getInstance()
+            return FirebaseDatabase.getInstance()
                     .getReference("chats")
                     .child(towerId)
-                    .child("messages");
-
-            // Create a new message node
-            DatabaseReference newMessageRef = chatRef.push();
-
-            // Prepare message data
-            Map<String, Object> messageData = new HashMap<>();
-            messageData.put("userId", userId);
-            messageData.put("username", username);
-            messageData.put("message", "📍 Created a post: " + content);
-            messageData.put("timestamp", timestamp);
-            messageData.put("createdAt", new Date(timestamp).toString());
-            messageData.put("isPost", true); // Flag to identify this as a post
-            messageData.put("postId", postId); // Reference to the original post
-
-            // Add image if available
-            if (imageUrls != null && !imageUrls.isEmpty()) {
-                messageData.put("image", imageUrls.get(0)); // Add first image URL
-            }
+                    .child("messages")
+                    .push();
+        } catch (Exception e) {
+            System.err.println("⚠️ Failed to reserve chat message for post: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Add a post as a chat message to the tower's chat in Firebase Realtime
+     * Database
+     */
+    private void addPostAsChatMessage(DatabaseReference newMessageRef, String towerId, String userId,
+            String username, String content, List<String> imageUrls,
+            String postId, long timestamp) {
+        if (newMessageRef == null) {
+            return;
+        }
 
+        try {
             // Save asynchronously to Realtime Database
+            Map<String, Object> messageData = chatMessageData(userId, username, content, imageUrls, postId, timestamp);
             newMessageRef.setValueAsync(messageData);
+            activityTracker.record(towerId, newMessageRef.getKey(), messageData);
 
             System.out.println("✅ Added post " + postId + " as chat message in tower " + towerId);
         } catch (Exception e) {
@@ -219,7 +814,28 @@ public class PostService {
         }
     }
 
-    public List<Map<String, Object>> getRecentPostsForZone(
+    /**
+     * Chat message that mirrors a post in its tower's chat
+     */
+    private static Map<String, Object> chatMessageData(String userId, String username, String content,
+            List<String> imageUrls, String postId, long timestamp) {
+        Map<String, Object> messageData = new HashMap<>();
+        messageData.put("userId", userId);
+        messageData.put("username", username);
+        messageData.put("message", "📍 Created a post: " + content);
+        messageData.put("timestamp", timestamp);
+        messageData.put("createdAt", new Date(timestamp).toString());
+        messageData.put("isPost", true); // Flag to identify this as a post
+        messageData.put("postId", postId); // Reference to the original post
+
+        // Add image if available
+        if (imageUrls != null && !imageUrls.isEmpty()) {
+            messageData.put("image", imageUrls.get(0)); // Add first image URL
+        }
+        return messageData;
+    }
+
+    public List<NearbyPostResponse> getRecentPostsForZone(
             double lat,
             double lon,
             int radiusMeters) throws ExecutionException, InterruptedException {
@@ -251,7 +867,7 @@ public class PostService {
             }
 
             // Fetch post details for this tower
-            List<Map<String, Object>> posts = new ArrayList<>();
+            List<Post> posts = new ArrayList<>();
 
             // Firestore 'in' query has a limit of 10 items, so we need to batch
             int batchSize = 10;
@@ -264,14 +880,9 @@ public class PostService {
                         .get();
 
                 for (DocumentSnapshot doc : postSnapshot.getDocuments()) {
-                    Map<String, Object> post = doc.getData();
-                    if (post != null) {
-                        // Filter out seeded posts (userId starts with "seed_user_")
-                        String userId = (String) post.get("userId");
-                        if (userId != null && userId.startsWith("seed_user_")) {
-                            continue; // Skip seeded posts
-                        }
-                        post.put("id", doc.getId());
+                    Post post = Post.fromDocument(doc);
+                    // Filter out seeded posts (userId starts with "seed_user_")
+                    if (post != null && !post.isSeeded()) {
                         posts.add(post);
                     }
                 }
@@ -294,34 +905,19 @@ public class PostService {
         }
 
         // Sort by post count (descending)
-        towerResponses.sort((a, b) -> Integer.compare(b.getPostCount(), a.getPostCount()));
+        towerResponses.sort((a, b) -> Integer.compare(b.postCount(), a.postCount()));
 
         return towerResponses;
     }
 
     /**
-     * Get all towers with their statistics
+     * Get all towers with their statistics.
+     * Tower serializes with the same fields (towerId, latitude, longitude,
+     * radiusMeters, postCount, postIds, createdAt, updatedAt) the stats maps used.
      */
-    public List<Map<String, Object>> getAllTowersWithStats()
+    public List<Tower> getAllTowersWithStats()
             throws ExecutionException, InterruptedException {
-
-        List<Tower> towers = towerService.getAllTowers();
-        List<Map<String, Object>> towerStats = new ArrayList<>();
-
-        for (Tower tower : towers) {
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("towerId", tower.getTowerId());
-            stats.put("latitude", tower.getLatitude());
-            stats.put("longitude", tower.getLongitude());
-            stats.put("radiusMeters", tower.getRadiusMeters());
-            stats.put("postCount", tower.getPostCount());
-            stats.put("postIds", tower.getPostIds());
-            stats.put("createdAt", tower.getCreatedAt());
-            stats.put("updatedAt", tower.getUpdatedAt());
-            towerStats.add(stats);
-        }
-
-        return towerStats;
+        return towerService.getAllTowers();
     }
 
     /**
@@ -331,7 +927,7 @@ public class PostService {
      * @param limit   Maximum number of recent posts to fetch (default: 20)
      * @return List of posts for the tower
      */
-    public List<Map<String, Object>> getPostsForTower(String towerId, Integer limit)
+    public List<Post> getPostsForTower(String towerId, Integer limit)
             throws ExecutionException, InterruptedException {
 
         // Get tower to verify it exists and get post IDs
@@ -352,7 +948,7 @@ public class PostService {
         List<String> limitedPostIds = postIds.subList(Math.max(0, postIds.size() - maxPosts), postIds.size());
 
         // Fetch post details
-        List<Map<String, Object>> posts = new ArrayList<>();
+        List<Post> posts = new ArrayList<>();
         int batchSize = 10;
 
         for (int i = 0; i < limitedPostIds.size(); i += batchSize) {
@@ -364,14 +960,9 @@ public class PostService {
                     .get();
 
             for (DocumentSnapshot doc : postSnapshot.getDocuments()) {
-                Map<String, Object> post = doc.getData();
-                if (post != null) {
-                    // Filter out seeded posts
-                    String postUserId = (String) post.get("userId");
-                    if (postUserId != null && postUserId.startsWith("seed_user_")) {
-                        continue;
-                    }
-                    post.put("id", doc.getId());
+                Post post = Post.fromDocument(doc);
+                // Filter out seeded posts
+                if (post != null && !post.isSeeded()) {
                     posts.add(post);
                 }
             }
@@ -418,19 +1009,15 @@ public class PostService {
             throw new IllegalArgumentException("Post not found with ID: " + postId);
         }
 
-        Map<String, Object> postData = postDoc.getData();
-        if (postData == null) {
-            throw new IllegalArgumentException("Post data is null");
-        }
+        Post post = Post.fromDocument(postDoc);
 
         // Check authorization - only post owner can delete
-        String postOwnerId = (String) postData.get("userId");
-        if (!userId.equals(postOwnerId)) {
+        if (!userId.equals(post.userId())) {
             return false; // Not authorized
         }
 
         // Get tower ID before deletion
-        String towerId = (String) postData.get("towerId");
+        String towerId = post.towerId();
 
         // Validate user location if coordinates provided
         if (userLatitude != null && userLongitude != null && towerId != null) {
@@ -438,89 +1025,26 @@ public class PostService {
                     towerId, userLatitude, userLongitude, "delete posts");
         }
 
-        // Delete associated images from storage (safe extraction)
-        Object imagesObj = postData.get("images");
-        List<String> imageUrls = new ArrayList<>();
-        if (imagesObj instanceof List<?>) {
-            for (Object o : (List<?>) imagesObj) {
-                if (o instanceof String) {
-                    imageUrls.add((String) o);
-                }
-            }
-        }
-        if (!imageUrls.isEmpty()) {
-            try {
-                storageService.deleteImages(imageUrls);
-            } catch (Exception e) {
-                // Log but don't fail deletion if image deletion fails
-                System.err.println("Warning: Failed to delete images for post " + postId + ": " + e.getMessage());
-            }
-        }
-
-        // Delete the post from Firestore
-        postRef.delete().get();
-
-        // Remove post from tower
-        if (towerId != null && !towerId.isEmpty()) {
-            try {
-                towerService.removePostFromTower(towerId, postId);
-            } catch (Exception e) {
-                // Log but don't fail if tower update fails
-                System.err.println("Warning: Failed to update tower after post deletion: " + e.getMessage());
-            }
-
-            // Delete the corresponding chat message (if it was added as a chat message)
-            try {
-                deletePostChatMessage(towerId, postId);
-            } catch (Exception e) {
-                // Log but don't fail if chat message deletion fails
-                System.err.println("Warning: Failed to delete chat message for post " + postId + ": " + e.getMessage());
-            }
-        }
+        // Delete the post and queue the cleanup of its images, tower
+        // membership and chat message in one commit
+        WriteBatch batch = firestore.batch();
+        batch.delete(postRef);
+        postDeletionService.enqueue(batch, post, postDoc.getString("chatMessageId"));
+        towerService.recordCollectionChange(batch);
+        batch.commit().get();
 
+        heatmapService.removePost(postId, post.latitude(), post.longitude());
+        postDeletionService.processSoon();
         return true;
     }
 
-    /**
-     * Delete a post's chat message from Firebase Realtime Database
-     */
-    private void deletePostChatMessage(String towerId, String postId) {
-        try {
-            com.google.firebase.database.DatabaseReference chatRef = com.google.firebase.database.FirebaseDatabase
-                    .getInstance()
-                    .getReference("chats")
-                    .child(towerId)
-                    .child("messages");
-
-            // Query for messages with this postId
-            chatRef.orderByChild("postId").equalTo(postId).addListenerForSingleValueEvent(
-                    new com.google.firebase.database.ValueEventListener() {
-                        @Override
-                        public void onDataChange(com.google.firebase.database.DataSnapshot snapshot) {
-                            for (com.google.firebase.database.DataSnapshot childSnapshot : snapshot.getChildren()) {
-                                childSnapshot.getRef().removeValueAsync();
-                                System.out
-                                        .println("✅ Deleted chat message for post " + postId + " in tower " + towerId);
-                            }
-                        }
-
-                        @Override
-                        public void onCancelled(com.google.firebase.database.DatabaseError error) {
-                            System.err.println("❌ Error deleting chat message: " + error.getMessage());
-                        }
-                    });
-        } catch (Exception e) {
-            System.err.println("❌ Failed to delete chat message: " + e.getMessage());
-        }
-    }
-
     /**
      * Get all posts with images for a specific tower
      * 
      * @param towerId The ID of the tower
      * @return List of posts that have images
      */
-    public List<Map<String, Object>> getPostsWithImagesByTower(String towerId) 
+    public List<Post> getPostsWithImagesByTower(String towerId) 
             throws ExecutionException, InterruptedException {
         
         System.out.println("🔍 Fetching posts with images for tower: " + towerId);
@@ -542,7 +1066,7 @@ public class PostService {
             return new ArrayList<>();
         }
         
-        List<Map<String, Object>> postsWithImages = new ArrayList<>();
+        List<Post> postsWithImages = new ArrayList<>();
         
         // Firestore 'in' query has a limit of 10 items, so we need to batch
         int batchSize = 10;
@@ -555,17 +1079,10 @@ public class PostService {
                     .get();
             
             for (DocumentSnapshot doc : postSnapshot.getDocuments()) {
-                Map<String, Object> post = doc.getData();
-                if (post != null) {
-                    // Only include posts that have images
-                    Object imagesObj = post.get("images");
-                    if (imagesObj instanceof List<?>) {
-                        List<?> imagesList = (List<?>) imagesObj;
-                        if (!imagesList.isEmpty()) {
-                            post.put("id", doc.getId());
-                            postsWithImages.add(post);
-                        }
-                    }
+                Post post = Post.fromDocument(doc);
+                // Only include posts that have images
+                if (post != null && post.hasImages()) {
+                    postsWithImages.add(post);
                 }
             }
         }
@@ -573,14 +1090,8 @@ public class PostService {
         System.out.println("🖼️ Found " + postsWithImages.size() + " posts with images");
         
         // Sort by creation date (newest first)
-        postsWithImages.sort((a, b) -> {
-            Object aTime = a.get("createdAt");
-            Object bTime = b.get("createdAt");
-            if (aTime instanceof com.google.cloud.Timestamp && bTime instanceof com.google.cloud.Timestamp) {
-                return ((com.google.cloud.Timestamp) bTime).compareTo((com.google.cloud.Timestamp) aTime);
-            }
-            return 0;
-        });
+        postsWithImages.sort(Comparator.comparing(Post::createdAt,
+                Comparator.nullsLast(Comparator.<Timestamp>reverseOrder())));
         
         return postsWithImages;
     }
@@ -1,29 +1,82 @@
 package com.geowhisper.geowhisperbackendnew.service;
 
+import com.geowhisper.geowhisperbackendnew.model.ImageVariants;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.storage.*;
 import com.google.firebase.cloud.StorageClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class StorageService {
 
     private static final String BUCKET_NAME = "posts"; // Folder name in Firebase Storage
     private static final long URL_EXPIRATION_DAYS = 365; // URL valid for 1 year
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // {folder}/blobs/{sha256}[_{variant}].{ext}
+    private static final Pattern CONTENT_ADDRESSED_NAME =
+            Pattern.compile("^" + BUCKET_NAME + "/blobs/([0-9a-f]{64})(_[a-z]+)?(\\.[^./]*)?$");
+    private static final int DELETE_BATCH_SIZE = 100; // Storage batch request limit
+    private static final List<String> VARIANT_NAMES = List.of(ImageVariants.THUMBNAIL, ImageVariants.MEDIUM);
+
+    // Upload threads are pooled, so each keeps one copy buffer for its lifetime
+    private static final ThreadLocal<ByteBuffer> COPY_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(COPY_BUFFER_SIZE));
+
+    // Resumable upload chunk size (the client rounds it to a multiple of 256 KB)
+    @Value("${storage.upload.chunk-size:262144}")
+    private int uploadChunkSize;
+
+    @Autowired
+    private ImageBlobService imageBlobService;
+
+    @Autowired
+    @Qualifier("storageUploadExecutor")
+    private Executor storageUploadExecutor;
 
     /**
-     * Upload multiple images to Firebase Storage
+     * Upload multiple images to Firebase Storage.
+     * Images are uploaded concurrently and each URL is signed from the blob
+     * info used for the upload, so no extra metadata fetch is needed. If any
+     * upload fails, the images that did upload are released again.
+     * 
+     * Images are stored content-addressed: each file is hashed (SHA-256)
+     * first, and content that is already stored is not written again but
+     * shares the existing blob and URL (see {@link ImageBlobService}).
      * 
      * @param files Array of image files to upload
-     * @param userId User ID for organizing files
-     * @param postId Post ID for organizing files
-     * @return List of public download URLs
+     * @param userId User ID of the uploader
+     * @param postId Post ID the images belong to
+     * @return List of public download URLs, in the order of the files
      * @throws IOException if upload fails
      */
     public List<String> uploadImages(MultipartFile[] files, String userId, String postId) throws IOException {
@@ -33,8 +86,18 @@ public class StorageService {
             return imageUrls;
         }
 
+        // Validate every file type before anything is uploaded
+        for (MultipartFile file : files) {
+            String contentType = file.getContentType();
+            if (!file.isEmpty() && (contentType == null || !contentType.startsWith("image/"))) {
+                throw new IllegalArgumentException("File must be an image. Received: " + contentType);
+            }
+        }
+
         Bucket bucket = StorageClient.getInstance().bucket();
+        Storage storage = bucket.getStorage();
 
+        List<CompletableFuture<UploadedImage>> uploads = new ArrayList<>();
         for (int i = 0; i < files.length; i++) {
             MultipartFile file = files[i];
             
@@ -42,43 +105,208 @@ public class StorageService {
                 continue;
             }
 
-            // Validate file type
-            String contentType = file.getContentType();
-            if (contentType == null || !contentType.startsWith("image/")) {
-                throw new IllegalArgumentException("File must be an image. Received: " + contentType);
+            try {
+                uploads.add(CompletableFuture.supplyAsync(
+                        () -> upload(storage, bucket.getName(), file, postId), storageUploadExecutor));
+            } catch (RejectedExecutionException e) {
+                // Pool saturated: fail like an upload, so the dispatched ones are awaited and released
+                uploads.add(CompletableFuture.failedFuture(
+                        new IllegalStateException("Image upload queue is full", e)));
+                break;
             }
+        }
 
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename != null && originalFilename.contains(".") 
-                ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                : ".jpg";
-            
-            String filename = String.format("%s/%s/%s_%d_%s%s", 
-                BUCKET_NAME, 
-                userId, 
-                postId, 
-                i, 
-                UUID.randomUUID().toString(),
-                extension
-            );
+        // Wait for every upload, even after a failure, so all acquired blobs are known
+        List<String> uploaded = new ArrayList<>();
+        Throwable failure = null;
+        for (CompletableFuture<UploadedImage> upload : uploads) {
+            try {
+                UploadedImage image = upload.join();
+                uploaded.add(image.sha256());
+                imageUrls.add(image.url());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+
+        if (failure != null) {
+            uploaded.forEach(this::releaseQuietly);
+            if (failure instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (failure instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Image upload failed: " + failure.getMessage(), failure);
+        }
+
+        return imageUrls;
+    }
+
+    private record UploadedImage(String sha256, String url) {
+    }
+
+    private UploadedImage upload(Storage storage, String bucketName, MultipartFile file, String postId) {
+        String sha256;
+        try {
+            sha256 = sha256(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
 
-            // Upload file to Firebase Storage
-            BlobId blobId = BlobId.of(bucket.getName(), filename);
-            BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                .setContentType(contentType)
+        ImageBlobService.Reservation reservation;
+        try {
+            BlobInfo candidate = BlobInfo.newBuilder(BlobId.of(bucketName, contentAddressedName(sha256, file)))
+                .setContentType(file.getContentType())
                 .build();
+            reservation = imageBlobService.acquire(sha256, bucketName, candidate.getName(),
+                file.getContentType(), postId);
+        } catch (ExecutionException | InterruptedException e) {
+            throw new IllegalStateException("Failed to register image: " + e.getMessage(), e);
+        }
 
-            bucket.getStorage().create(blobInfo, file.getBytes());
+        BlobId blobId = BlobId.of(reservation.bucket(), reservation.blobName());
+        if (reservation.needsUpload()) {
+            try {
+                BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
+                    .setContentType(file.getContentType())
+                    .build();
+                streamToBlob(storage, blobInfo, file);
+                // Recorded so a late delete of released content cannot remove a newer upload
+                Blob written = storage.get(blobId, Storage.BlobGetOption.fields(Storage.BlobField.GENERATION));
+                imageBlobService.markUploaded(sha256, written != null ? written.getGeneration() : null);
+            } catch (Exception e) {
+                releaseQuietly(sha256);
+                if (e instanceof IOException io) {
+                    throw new UncheckedIOException(io);
+                }
+                throw new IllegalStateException("Failed to upload image: " + e.getMessage(), e);
+            }
+        }
 
-            // Generate signed URL (public download URL)
-            Blob blob = bucket.getStorage().get(blobId);
-            String imageUrl = blob.signUrl(URL_EXPIRATION_DAYS, TimeUnit.DAYS).toString();
-            
-            imageUrls.add(imageUrl);
+        // Sign a URL for this post (public download URL, generated locally), so
+        // posts sharing content do not inherit the expiry of the first upload
+        try {
+            String url = storage.signUrl(BlobInfo.newBuilder(blobId).build(), URL_EXPIRATION_DAYS, TimeUnit.DAYS)
+                .toString();
+            return new UploadedImage(sha256, url);
+        } catch (RuntimeException e) {
+            releaseQuietly(sha256);
+            throw e;
         }
+    }
 
-        return imageUrls;
+    /**
+     * Hash a file's content in one streaming pass with the thread's reusable
+     * buffer, so duplicates are known before anything is written
+     */
+    private String sha256(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        ByteBuffer buffer = COPY_BUFFER.get();
+        try (InputStream in = file.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer.array())) != -1) {
+                digest.update(buffer.array(), 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Stream a file into a blob through a resumable upload. The file is read
+     * with the upload thread's reusable buffer and the channel sends it in
+     * fixed-size chunks, so heap use per upload does not depend on file size.
+     * 
+     * The channel is only closed after the whole file was written: closing
+     * finalizes the object, so after a failure the resumable session is
+     * abandoned instead (uncommitted sessions expire on their own) and no
+     * truncated object appears under the shared content-addressed name.
+     */
+    private void streamToBlob(Storage storage, BlobInfo blobInfo, MultipartFile file) throws IOException {
+        ByteBuffer buffer = COPY_BUFFER.get();
+        try (InputStream in = file.getInputStream()) {
+            WriteChannel writer = storage.writer(blobInfo);
+            writer.setChunkSize(uploadChunkSize);
+
+            int read;
+            while ((read = in.read(buffer.array())) != -1) {
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    writer.write(buffer);
+                }
+            }
+            writer.close();
+        }
+    }
+
+    /**
+     * Blob name for content with this hash ({folder}/blobs/{sha256}{extension})
+     */
+    private String contentAddressedName(String sha256, MultipartFile file) {
+        String originalFilename = file.getOriginalFilename();
+        String extension = originalFilename != null && originalFilename.contains(".") 
+            ? originalFilename.substring(originalFilename.lastIndexOf(".")).toLowerCase()
+            : ".jpg";
+        
+        return String.format("%s/blobs/%s%s", BUCKET_NAME, sha256, extension);
+    }
+
+    /**
+     * Drop one reference to stored content, deleting the blob (and its
+     * generated variants) when it was the last one. Used to undo uploads of
+     * a failed post, so errors are only logged.
+     */
+    private void releaseQuietly(String sha256) {
+        try {
+            deleteBlobs(releaseContent(sha256));
+        } catch (Exception e) {
+            System.err.println("Failed to release image " + sha256 + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drop one reference to stored content
+     * 
+     * @return The original and variant blobs if this was the last reference,
+     *         otherwise an empty list
+     */
+    private List<BlobId> releaseContent(String sha256) throws ExecutionException, InterruptedException {
+        return releaseContent(sha256, null, null);
+    }
+
+    private List<BlobId> releaseContent(String sha256, DocumentReference holder, String referenceKey)
+            throws ExecutionException, InterruptedException {
+        String blobName = imageBlobService.release(sha256, holder, referenceKey);
+        if (blobName == null) {
+            return List.of();
+        }
+        return withVariants(List.of(BlobId.of(StorageClient.getInstance().bucket().getName(), blobName)));
+    }
+
+    /**
+     * The given blobs plus the generated variants of every content-addressed
+     * original among them
+     */
+    public List<BlobId> withVariants(List<BlobId> blobIds) {
+        List<BlobId> expanded = new ArrayList<>();
+        for (BlobId blobId : blobIds) {
+            expanded.add(blobId);
+            Matcher contentAddressed = CONTENT_ADDRESSED_NAME.matcher(blobId.getName());
+            if (contentAddressed.matches() && contentAddressed.group(2) == null) {
+                for (String variant : VARIANT_NAMES) {
+                    expanded.add(variantBlobId(blobId, variant));
+                }
+            }
+        }
+        return expanded;
     }
 
     /**
@@ -103,24 +331,12 @@ public class StorageService {
      */
     public boolean deleteImage(String imageUrl) {
         try {
-            // Extract the file path from the URL
-            // Firebase Storage URLs contain the bucket name and file path
-            String[] parts = imageUrl.split("/o/");
-            if (parts.length < 2) {
+            BlobId blobId = blobIdFromUrl(imageUrl);
+            if (blobId == null) {
                 return false;
             }
-            
-            String filePath = parts[1].split("\\?")[0];
-            filePath = java.net.URLDecoder.decode(filePath, "UTF-8");
 
-            Bucket bucket = StorageClient.getInstance().bucket();
-            Blob blob = bucket.get(filePath);
-            
-            if (blob != null) {
-                return blob.delete();
-            }
-            
-            return false;
+            return StorageClient.getInstance().bucket().getStorage().delete(blobId);
         } catch (Exception e) {
             System.err.println("Failed to delete image: " + e.getMessage());
             return false;
@@ -128,27 +344,294 @@ public class StorageService {
     }
 
     /**
-     * Delete multiple images from Firebase Storage
+     * Resolve the blob behind an image URL. Handles both signed URLs
+     * (https://storage.googleapis.com/{bucket}/{path}?...) and Firebase
+     * download URLs (.../b/{bucket}/o/{encoded path}?...).
+     * 
+     * @param imageUrl Image URL as stored on a post
+     * @return The blob ID, or null if the URL is not a storage URL
+     */
+    public BlobId blobIdFromUrl(String imageUrl) {
+        try {
+            URI uri = URI.create(imageUrl);
+            String rawPath = uri.getRawPath();
+            if (rawPath == null) {
+                return null;
+            }
+
+            int objectStart = rawPath.indexOf("/o/");
+            if (objectStart >= 0) {
+                String filePath = URLDecoder.decode(rawPath.substring(objectStart + 3), StandardCharsets.UTF_8);
+                return BlobId.of(StorageClient.getInstance().bucket().getName(), filePath);
+            }
+
+            if ("storage.googleapis.com".equals(uri.getHost())) {
+                String path = rawPath.startsWith("/") ? rawPath.substring(1) : rawPath;
+                int slash = path.indexOf('/');
+                if (slash > 0) {
+                    return BlobId.of(
+                            URLDecoder.decode(path.substring(0, slash), StandardCharsets.UTF_8),
+                            URLDecoder.decode(path.substring(slash + 1), StandardCharsets.UTF_8));
+                }
+            }
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Open a stored image for reading. The content is streamed, not loaded.
+     */
+    public InputStream openImage(BlobId blobId) {
+        Storage storage = StorageClient.getInstance().bucket().getStorage();
+        return Channels.newInputStream(storage.reader(blobId));
+    }
+
+    /**
+     * Store a generated size of an image next to the original
+     * ({original name without extension}_{variant}.jpg).
      * 
-     * @param imageUrls List of image URLs to delete
-     * @return Number of successfully deleted images
+     * @param source  Blob of the original image
+     * @param variant Variant name, e.g. "thumbnail"
+     * @param jpeg    Encoded JPEG (small, so it is uploaded in one request)
+     * @return Signed download URL of the variant
+     */
+    public String uploadVariant(BlobId source, String variant, byte[] jpeg) {
+        BlobInfo blobInfo = BlobInfo.newBuilder(variantBlobId(source, variant))
+            .setContentType("image/jpeg")
+            .build();
+
+        Storage storage = StorageClient.getInstance().bucket().getStorage();
+        storage.create(blobInfo, jpeg);
+        return storage.signUrl(blobInfo, URL_EXPIRATION_DAYS, TimeUnit.DAYS).toString();
+    }
+
+    private static BlobId variantBlobId(BlobId source, String variant) {
+        String name = source.getName();
+        int dot = name.lastIndexOf('.');
+        if (dot > name.lastIndexOf('/')) {
+            name = name.substring(0, dot);
+        }
+        return BlobId.of(source.getBucket(), name + "_" + variant + ".jpg");
+    }
+
+    /**
+     * Delete multiple images from Firebase Storage.
+     * Content-addressed images are reference counted: each URL drops one
+     * reference and the blob is only deleted with its last reference.
+     * 
+     * @param imageUrls List of image URLs to delete (one entry per reference)
+     * @return Number of blobs actually deleted
      */
     public int deleteImages(List<String> imageUrls) {
-        int deletedCount = 0;
-        
-        if (imageUrls == null || imageUrls.isEmpty()) {
-            return deletedCount;
+        try {
+            return deleteBlobs(releaseImages(imageUrls));
+        } catch (ExecutionException e) {
+            System.err.println("Failed to release images: " + e.getMessage());
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    /**
+     * Drop the storage references held by these image URLs without deleting
+     * anything yet, so the caller can delete the result in one batch.
+     * Variant URLs of content-addressed images are skipped since variants go
+     * together with their original. Other (legacy) images are returned as is.
+     * 
+     * @param imageUrls Image URLs of a post (one entry per reference)
+     * @return Blobs that are no longer referenced and should be deleted
+     */
+    public List<BlobId> releaseImages(List<String> imageUrls) throws ExecutionException, InterruptedException {
+        return releaseImages(imageUrls, null);
+    }
+
+    /**
+     * Like {@link #releaseImages(List)}, but each reference is released at
+     * most once for the holder document (see
+     * {@link ImageBlobService#release(String, DocumentReference, String)}),
+     * keyed by its position in imageUrls, so the call can be repeated after
+     * a partial failure. Content released by an earlier call is recorded in
+     * the holder's "releasedBlobs" and not returned again.
+     * 
+     * @param imageUrls Image URLs of a post (one entry per reference)
+     * @param holder    Document recording the released references, or null
+     * @return Blobs that this call found unreferenced
+     */
+    public List<BlobId> releaseImages(List<String> imageUrls, DocumentReference holder)
+            throws ExecutionException, InterruptedException {
+        List<BlobId> unreferenced = new ArrayList<>();
+        if (imageUrls == null) {
+            return unreferenced;
         }
 
-        for (String url : imageUrls) {
-            if (deleteImage(url)) {
-                deletedCount++;
+        for (int i = 0; i < imageUrls.size(); i++) {
+            BlobId blobId = blobIdFromUrl(imageUrls.get(i));
+            if (blobId == null) {
+                continue;
+            }
+
+            Matcher contentAddressed = CONTENT_ADDRESSED_NAME.matcher(blobId.getName());
+            if (!contentAddressed.matches()) {
+                unreferenced.add(blobId);
+            } else if (contentAddressed.group(2) == null) {
+                unreferenced.addAll(releaseContent(contentAddressed.group(1), holder, String.valueOf(i)));
             }
         }
+        return unreferenced;
+    }
 
+    /**
+     * Delete the generated variants of images whose variants could not be
+     * attached to their post (e.g. because the post was deleted while they
+     * were being generated). Variants of content-addressed images that are
+     * still referenced are kept, since they are deleted with the content's
+     * last reference; variants of legacy images are always deleted. Errors
+     * are only logged.
+     *
+     * @param originalUrls URLs of the original images
+     */
+    public void discardUnreferencedVariants(List<String> originalUrls) {
+        List<BlobId> blobIds = new ArrayList<>();
+        try {
+            for (String url : originalUrls) {
+                BlobId original = blobIdFromUrl(url);
+                if (original == null) {
+                    continue;
+                }
+
+                Matcher contentAddressed = CONTENT_ADDRESSED_NAME.matcher(original.getName());
+                if (contentAddressed.matches() && imageBlobService.isReferenced(contentAddressed.group(1))) {
+                    continue;
+                }
+                for (String variant : VARIANT_NAMES) {
+                    blobIds.add(variantBlobId(original, variant));
+                }
+            }
+            deleteInBatches(blobIds);
+        } catch (ExecutionException e) {
+            System.err.println("Failed to discard image variants: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Delete released blobs (as returned by {@link #releaseImages}) using
+     * batched storage requests. Blobs that no longer exist are ignored, so
+     * this is safe to repeat.
+     * 
+     * Content-addressed blobs are only deleted while their content is still
+     * tombstoned, i.e. not uploaded again since it was released, and the
+     * original only in the generation recorded for it, so a concurrent
+     * re-upload of the same content is never removed. The tombstones are
+     * cleared afterwards.
+     * 
+     * @param blobIds Blobs to delete
+     * @return Number of blobs actually deleted
+     */
+    public int deleteBlobs(List<BlobId> blobIds) throws ExecutionException, InterruptedException {
+        List<BlobId> deletable = new ArrayList<>();
+        Map<String, ImageBlobService.Tombstone> tombstones = new HashMap<>();
+        for (BlobId blobId : blobIds) {
+            Matcher contentAddressed = CONTENT_ADDRESSED_NAME.matcher(blobId.getName());
+            if (!contentAddressed.matches()) {
+                deletable.add(blobId);
+                continue;
+            }
+
+            String sha256 = contentAddressed.group(1);
+            if (!tombstones.containsKey(sha256)) {
+                tombstones.put(sha256, imageBlobService.tombstone(sha256));
+            }
+            ImageBlobService.Tombstone tombstone = tombstones.get(sha256);
+            if (tombstone == null) {
+                // Referenced again since it was released
+                continue;
+            }
+            boolean original = contentAddressed.group(2) == null;
+            deletable.add(original && tombstone.generation() != null
+                    ? BlobId.of(blobId.getBucket(), blobId.getName(), tombstone.generation())
+                    : blobId);
+        }
+
+        int deletedCount = deleteInBatches(deletable);
+        for (Map.Entry<String, ImageBlobService.Tombstone> tombstone : tombstones.entrySet()) {
+            if (tombstone.getValue() != null) {
+                imageBlobService.clearTombstone(tombstone.getKey());
+            }
+        }
         return deletedCount;
     }
 
+    /**
+     * Delete blobs using batched storage requests. A blob ID with a
+     * generation only deletes that generation.
+     */
+    private int deleteInBatches(List<BlobId> blobIds) {
+        if (blobIds.isEmpty()) {
+            return 0;
+        }
+
+        Storage storage = StorageClient.getInstance().bucket().getStorage();
+        int deletedCount = 0;
+        for (int i = 0; i < blobIds.size(); i += DELETE_BATCH_SIZE) {
+            List<Boolean> results = storage.delete(blobIds.subList(i, Math.min(i + DELETE_BATCH_SIZE, blobIds.size())));
+            for (Boolean deleted : results) {
+                if (Boolean.TRUE.equals(deleted)) {
+                    deletedCount++;
+                }
+            }
+        }
+        return deletedCount;
+    }
+
+    /**
+     * Copy request images into temp files so they can still be uploaded after
+     * the request has completed (multipart data is cleaned up with the request).
+     * 
+     * @param files Files from the request
+     * @return Staged copies; release them with {@link #discardStagedImages}
+     * @throws IOException if a file cannot be copied
+     */
+    public MultipartFile[] stageImages(MultipartFile[] files) throws IOException {
+        if (files == null || files.length == 0) {
+            return new MultipartFile[0];
+        }
+
+        List<StagedImageFile> staged = new ArrayList<>(files.length);
+        try {
+            for (MultipartFile file : files) {
+                if (!file.isEmpty()) {
+                    staged.add(StagedImageFile.stage(file));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            staged.forEach(StagedImageFile::discard);
+            throw e;
+        }
+        return staged.toArray(new MultipartFile[0]);
+    }
+
+    /**
+     * Delete the temp files behind images returned by {@link #stageImages}
+     * 
+     * @param files Staged files (other files are ignored)
+     */
+    public void discardStagedImages(MultipartFile[] files) {
+        if (files == null) {
+            return;
+        }
+        for (MultipartFile file : files) {
+            if (file instanceof StagedImageFile staged) {
+                staged.discard();
+            }
+        }
+    }
+
     /**
      * Validate image file
      * 
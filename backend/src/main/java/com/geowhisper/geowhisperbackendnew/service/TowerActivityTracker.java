@@ -0,0 +1,795 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.geowhisper.geowhisperbackendnew.model.HeatPoint;
+import com.geowhisper.geowhisperbackendnew.model.Tower;
+import com.geowhisper.geowhisperbackendnew.model.TowerActivity;
+import com.geowhisper.geowhisperbackendnew.util.DecayedLeaderboard;
+import com.geowhisper.geowhisperbackendnew.util.HyperLogLog;
+import com.geowhisper.geowhisperbackendnew.util.SlidingWindowCounter;
+import com.geowhisper.geowhisperbackendnew.util.TermTokenizer;
+import com.geowhisper.geowhisperbackendnew.util.TopKTermTracker;
+import com.geowhisper.geowhisperbackendnew.util.Viewport;
+import com.google.firebase.database.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory chat activity per tower, so hot zones can be computed without
+ * re-reading message history on every request.
+ *
+ * Each tracked tower is backfilled once with the last 7 days of messages and
+ * then kept current by a child listener on its newest messages, plus direct
+ * updates from chat sends and post mirrors. Message counts live in
+ * minute/hour ring buffers, distinct senders in hourly and daily
+ * HyperLogLog sketches, trending terms in a decaying Space-Saving summary
+ * and recent messages in a short buffer. A decayed message count per tower
+ * feeds a city-wide leaderboard, and completed hours are persisted by
+ * {@link ActivityRollupService}. Messages are deduplicated by key, since a
+ * direct update is usually echoed by the listener.
+ *
+ * State and listeners are bounded by activity: a tower without messages for
+ * hotzones.activity.idle-eviction-hours (by default the whole 7 day window)
+ * is evicted and kept only as dormant, reporting no activity, until a
+ * message is sent to it through this server. Towers that no longer exist
+ * are dropped on the next tower list refresh.
+ *
+ * Deleted messages are uncounted from the message and post counts and the
+ * recent messages when the listener sees them removed, i.e. among a tower's
+ * newest messages. Older deletions, distinct senders, topics and the
+ * decayed score are not corrected and fade out with the windows instead.
+ */
+@Service
+@Slf4j
+public class TowerActivityTracker {
+
+    // Listened window of newest messages; only entries to it matter
+    private static final int LISTENER_WINDOW = 50;
+    // Must exceed LISTENER_WINDOW so echoes of recent messages are recognised
+    private static final int SEEN_KEYS = 1024;
+    private static final long BACKFILL_TIMEOUT_SECONDS = 60;
+    // Longer words are not topics
+    private static final int MAX_TERM_LENGTH = 32;
+
+    @Autowired
+    private TowerService towerService;
+
+    @Value("${hotzones.activity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${hotzones.activity.backfill-concurrency:4}")
+    private int backfillConcurrency;
+
+    @Value("${hotzones.activity.recent-messages:200}")
+    private int recentMessageLimit;
+
+    @Value("${hotzones.trending.capacity:64}")
+    private int topicCapacity;
+
+    @Value("${hotzones.trending.half-life-minutes:360}")
+    private long trendingHalfLifeMinutes;
+
+    @Value("${hotzones.trending.topics:5}")
+    private int trendingTopicCount;
+
+    @Value("${hotzones.score.half-life-minutes:60}")
+    private long scoreHalfLifeMinutes;
+
+    @Value("${hotzones.activity.idle-eviction-hours:168}")
+    private long idleEvictionHours;
+
+    private final Map<String, TowerState> towers = new ConcurrentHashMap<>();
+    // Evicted for inactivity: no state or listener until their next local message
+    private final Set<String> dormant = ConcurrentHashMap.newKeySet();
+    private final Queue<TowerState> backfillQueue = new ConcurrentLinkedQueue<>();
+    private Semaphore backfillPermits;
+    private volatile long trackedCollectionVersion = -1;
+    // Towers ranked by decayed message count
+    private DecayedLeaderboard leaderboard;
+    private final List<MessageListener> messageListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Notified of each new live message in a tower with a known location
+     */
+    public interface MessageListener {
+        void onMessage(String towerId, double latitude, double longitude);
+    }
+
+    /**
+     * A message as remembered for usernames and topics
+     */
+    private record RecentMessage(String key, String userId, String username, String text, long timestamp) {
+    }
+
+    /**
+     * Activity of one tower during one whole hour, for persistent rollups
+     *
+     * @param senders Copy of the hour's distinct-sender sketch
+     */
+    public record HourRollup(String towerId, Double latitude, Double longitude, int messages, int posts,
+            HyperLogLog senders) {
+    }
+
+    /**
+     * Activity state of one tower. All access is synchronized on the instance.
+     */
+    private class TowerState {
+        final String towerId;
+        final SlidingWindowCounter messages = new SlidingWindowCounter();
+        final SenderSketches senders = new SenderSketches();
+        // Post mirrors per hour over the last day, for rollups
+        final int[] hourlyPosts = new int[SenderSketches.HOURS];
+        final int[] hourlyPostStamps = new int[SenderSketches.HOURS];
+        final TopKTermTracker topics = new TopKTermTracker(
+                topicCapacity, trendingHalfLifeMinutes * 60_000L, System.currentTimeMillis());
+        final char[] termBuffer = new char[MAX_TERM_LENGTH];
+        final ArrayDeque<RecentMessage> recent = new ArrayDeque<>();
+        // false once a counted message has been uncounted again
+        final LinkedHashMap<String, Boolean> seenKeys = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > SEEN_KEYS;
+            }
+        };
+        // Keys currently in the listened window (push keys sort by time)
+        final TreeSet<String> windowKeys = new TreeSet<>();
+        // Oldest message of a full window that was removed: either pushed out
+        // by a newer message or deleted, decided by the next addition
+        DataSnapshot removedOldest;
+        // Messages that arrived while the backfill was running
+        List<Map.Entry<String, Map<String, Object>>> pending = new ArrayList<>();
+        long lastMessageTimestamp;
+        boolean ready;
+        Query listenerQuery;
+        ChildEventListener listener;
+
+        // Location, once known from the tower list
+        volatile Double latitude;
+        volatile Double longitude;
+
+        TowerState(String towerId) {
+            this.towerId = towerId;
+        }
+    }
+
+    /**
+     * Distinct senders as HyperLogLog sketches: one per hour for the last day
+     * and one per day for the last 7 days, allocated on first use. At most
+     * 31 KiB per tower; estimates are within ~3.3% (one standard error).
+     */
+    private static class SenderSketches {
+        static final int HOURS = 24;
+        static final int DAYS = 7;
+        static final long DAY_MILLIS = 24 * SlidingWindowCounter.HOUR_MILLIS;
+
+        final HyperLogLog[] hourly = new HyperLogLog[HOURS];
+        final int[] hourlyStamps = new int[HOURS];
+        final HyperLogLog[] daily = new HyperLogLog[DAYS];
+        final int[] dailyStamps = new int[DAYS];
+
+        void add(String userId, long timestamp, long now) {
+            int hour = (int) (timestamp / SlidingWindowCounter.HOUR_MILLIS);
+            if (now / SlidingWindowCounter.HOUR_MILLIS - hour < HOURS) {
+                sketch(hourly, hourlyStamps, hour).add(userId);
+            }
+            int day = (int) (timestamp / DAY_MILLIS);
+            if (now / DAY_MILLIS - day < DAYS) {
+                sketch(daily, dailyStamps, day).add(userId);
+            }
+        }
+
+        /**
+         * Merge the sketches covering the last windowHours into target. Up to
+         * a day this uses hour buckets; longer windows add whole days, which
+         * may reach up to a day further back. Overlap between hour and day
+         * buckets does not matter since merging is idempotent.
+         */
+        void mergeInto(HyperLogLog target, int windowHours, long now) {
+            int nowHour = (int) (now / SlidingWindowCounter.HOUR_MILLIS);
+            for (int i = 0; i < Math.min(HOURS, Math.max(1, windowHours)); i++) {
+                mergeIfCurrent(target, hourly, hourlyStamps, nowHour - i);
+            }
+            if (windowHours > HOURS) {
+                int nowDay = (int) (now / DAY_MILLIS);
+                int firstDay = (int) ((now - windowHours * SlidingWindowCounter.HOUR_MILLIS) / DAY_MILLIS);
+                for (int day = Math.max(firstDay, nowDay - DAYS + 1); day <= nowDay; day++) {
+                    mergeIfCurrent(target, daily, dailyStamps, day);
+                }
+            }
+        }
+
+        /**
+         * Copy of the sketch of one hour within the last day, or null if
+         * nobody wrote in it
+         */
+        HyperLogLog copyOfHour(int hour) {
+            int slot = hour % HOURS;
+            if (hourlyStamps[slot] != hour || hourly[slot] == null) {
+                return null;
+            }
+            HyperLogLog copy = new HyperLogLog();
+            copy.merge(hourly[slot]);
+            return copy;
+        }
+
+        private static HyperLogLog sketch(HyperLogLog[] ring, int[] stamps, int bucket) {
+            int slot = bucket % ring.length;
+            if (stamps[slot] != bucket || ring[slot] == null) {
+                stamps[slot] = bucket;
+                ring[slot] = new HyperLogLog();
+            }
+            return ring[slot];
+        }
+
+        private static void mergeIfCurrent(HyperLogLog target, HyperLogLog[] ring, int[] stamps, int bucket) {
+            int slot = bucket % ring.length;
+            if (stamps[slot] == bucket && ring[slot] != null) {
+                target.merge(ring[slot]);
+            }
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        backfillPermits = new Semaphore(Math.max(1, backfillConcurrency));
+        leaderboard = new DecayedLeaderboard(scoreHalfLifeMinutes * 60_000L, System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    void stopListening() {
+        for (TowerState state : towers.values()) {
+            synchronized (state) {
+                if (state.listenerQuery != null) {
+                    state.listenerQuery.removeEventListener(state.listener);
+                }
+            }
+        }
+    }
+
+    /**
+     * Start tracking a tower, remembering its location for viewport queries
+     */
+    public void track(Tower tower) {
+        track(tower.getTowerId());
+        TowerState state = tower.getTowerId() != null ? towers.get(tower.getTowerId()) : null;
+        if (state != null) {
+            state.latitude = tower.getLatitude();
+            state.longitude = tower.getLongitude();
+        }
+    }
+
+    /**
+     * Start tracking a tower if it is not tracked yet. Activity becomes
+     * available once its backfill completes. Dormant towers stay dormant.
+     */
+    public void track(String towerId) {
+        if (!enabled || towerId == null || towerId.isEmpty()
+                || towers.containsKey(towerId) || dormant.contains(towerId)) {
+            return;
+        }
+        boolean[] created = new boolean[1];
+        TowerState state = towers.computeIfAbsent(towerId, id -> {
+            created[0] = true;
+            return new TowerState(id);
+        });
+        if (created[0]) {
+            backfillQueue.add(state);
+            drainBackfills();
+        }
+    }
+
+    /**
+     * Record a message written by this server (chat send or post mirror)
+     */
+    public void record(String towerId, String messageKey, Map<String, Object> data) {
+        if (!enabled || towerId == null || messageKey == null) {
+            return;
+        }
+        dormant.remove(towerId);
+        track(towerId);
+        TowerState state = towers.get(towerId);
+        if (state != null) {
+            apply(state, messageKey, data);
+        }
+    }
+
+    /**
+     * Activity of a tower over the last windowHours, or null if the tower is
+     * not (yet) tracked or the window exceeds 7 days
+     */
+    public TowerActivity activity(String towerId, int windowHours) {
+        if (!enabled || windowHours * SlidingWindowCounter.HOUR_MILLIS > SlidingWindowCounter.MAX_WINDOW_MILLIS) {
+            return null;
+        }
+        TowerState state = towers.get(towerId);
+        if (state == null) {
+            return dormant.contains(towerId)
+                    ? new TowerActivity(0, 0, 0, List.of(), null, List.of(), 0)
+                    : null;
+        }
+
+        synchronized (state) {
+            if (!state.ready) {
+                return null;
+            }
+
+            long now = System.currentTimeMillis();
+            long windowStart = now - windowHours * SlidingWindowCounter.HOUR_MILLIS;
+            long oneHourAgo = now - SlidingWindowCounter.HOUR_MILLIS;
+
+            int messageCount = (int) state.messages.sum(windowHours * SlidingWindowCounter.HOUR_MILLIS, now);
+            int messagesLastHour = (int) state.messages.sum(SlidingWindowCounter.HOUR_MILLIS, now);
+
+            HyperLogLog senders = new HyperLogLog();
+            state.senders.mergeInto(senders, windowHours, now);
+
+            List<String> recentUsernames = new ArrayList<>();
+            for (RecentMessage message : state.recent) {
+                if (message.timestamp() > oneHourAgo && recentUsernames.size() < 5
+                        && !recentUsernames.contains(message.username())) {
+                    recentUsernames.add(message.username());
+                }
+            }
+
+            Long lastTimestamp = state.lastMessageTimestamp > windowStart ? state.lastMessageTimestamp : null;
+            return new TowerActivity(messageCount, messagesLastHour, (int) senders.estimate(), recentUsernames,
+                    lastTimestamp, state.topics.top(trendingTopicCount, now), leaderboard.score(towerId, now));
+        }
+    }
+
+    /**
+     * Estimated distinct senders across a group of towers over the last
+     * windowHours, by merging their sketches. Returns -1 if any of the
+     * towers is not tracked yet or the window exceeds 7 days.
+     */
+    public long uniqueUsers(Collection<String> towerIds, int windowHours) {
+        if (!enabled || windowHours * SlidingWindowCounter.HOUR_MILLIS > SlidingWindowCounter.MAX_WINDOW_MILLIS) {
+            return -1;
+        }
+        long now = System.currentTimeMillis();
+        HyperLogLog union = new HyperLogLog();
+        for (String towerId : towerIds) {
+            TowerState state = towers.get(towerId);
+            if (state == null) {
+                if (dormant.contains(towerId)) {
+                    continue;
+                }
+                return -1;
+            }
+            synchronized (state) {
+                if (!state.ready) {
+                    return -1;
+                }
+                state.senders.mergeInto(union, windowHours, now);
+            }
+        }
+        return union.estimate();
+    }
+
+    /**
+     * Weight of a message at timestamp in the decayed trending score, as seen
+     * at nowMillis (1 for a message sent now, 0.5 one half-life ago)
+     */
+    public double decayWeight(long timestampMillis, long nowMillis) {
+        return Math.pow(2, -Math.max(0, nowMillis - timestampMillis) / (scoreHalfLifeMinutes * 60_000.0));
+    }
+
+    /**
+     * Towers with the highest decayed message count, optionally limited to
+     * those located in a viewport
+     */
+    public List<DecayedLeaderboard.Entry> topTowers(int limit, Viewport viewport) {
+        if (!enabled) {
+            return List.of();
+        }
+        return leaderboard.top(limit, System.currentTimeMillis(), towerId -> {
+            if (viewport == null) {
+                return true;
+            }
+            TowerState state = towers.get(towerId);
+            return state != null && viewport.contains(state.latitude, state.longitude);
+        });
+    }
+
+    /**
+     * Last known location of a tracked tower as {latitude, longitude}, or null
+     */
+    public double[] location(String towerId) {
+        TowerState state = towers.get(towerId);
+        if (state == null || state.latitude == null || state.longitude == null) {
+            return null;
+        }
+        return new double[] { state.latitude, state.longitude };
+    }
+
+    /**
+     * Activity of every ready tower during one whole hour (hours since the
+     * epoch), skipping towers without messages in it. Only hours within the
+     * last day can be rolled up, since older hourly sketches are gone.
+     */
+    public List<HourRollup> hourRollups(int hour) {
+        long now = System.currentTimeMillis();
+        if (!enabled || now / SlidingWindowCounter.HOUR_MILLIS - hour >= SenderSketches.HOURS) {
+            return List.of();
+        }
+        List<HourRollup> rollups = new ArrayList<>();
+        for (TowerState state : towers.values()) {
+            synchronized (state) {
+                if (!state.ready) {
+                    continue;
+                }
+                int messages = (int) state.messages.countInHour(hour);
+                if (messages == 0) {
+                    continue;
+                }
+                int slot = hour % SenderSketches.HOURS;
+                int posts = state.hourlyPostStamps[slot] == hour ? state.hourlyPosts[slot] : 0;
+                HyperLogLog senders = state.senders.copyOfHour(hour);
+                rollups.add(new HourRollup(state.towerId, state.latitude, state.longitude, messages, posts,
+                        senders != null ? senders : new HyperLogLog()));
+            }
+        }
+        return rollups;
+    }
+
+    /**
+     * Chat messages of the last windowHours (at most 24) per located tower,
+     * as points at the tower. Post mirrors are left out, since posts have
+     * locations of their own.
+     */
+    public List<HeatPoint> messageLocations(int windowHours) {
+        if (!enabled) {
+            return List.of();
+        }
+        int hours = Math.max(1, Math.min(SenderSketches.HOURS, windowHours));
+        long now = System.currentTimeMillis();
+        int nowHour = (int) (now / SlidingWindowCounter.HOUR_MILLIS);
+        List<HeatPoint> points = new ArrayList<>();
+        for (TowerState state : towers.values()) {
+            Double latitude = state.latitude;
+            Double longitude = state.longitude;
+            if (latitude == null || longitude == null) {
+                continue;
+            }
+            synchronized (state) {
+                if (!state.ready) {
+                    continue;
+                }
+                long messages = state.messages.sum(hours * SlidingWindowCounter.HOUR_MILLIS, now);
+                for (int hour = nowHour - hours + 1; hour <= nowHour; hour++) {
+                    int slot = hour % SenderSketches.HOURS;
+                    if (state.hourlyPostStamps[slot] == hour) {
+                        messages -= state.hourlyPosts[slot];
+                    }
+                }
+                if (messages > 0) {
+                    points.add(new HeatPoint(latitude, longitude, messages));
+                }
+            }
+        }
+        return points;
+    }
+
+    public void addMessageListener(MessageListener listener) {
+        messageListeners.add(listener);
+    }
+
+    /**
+     * Track every tower and drop towers that no longer exist, re-checking the
+     * tower list whenever the tower collection version changes
+     */
+    @Scheduled(fixedDelayString = "${hotzones.activity.refresh-interval-ms:60000}")
+    public void refreshTrackedTowers() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long version = towerService.getCollectionVersion().version();
+            if (version == trackedCollectionVersion) {
+                return;
+            }
+            Set<String> existing = new HashSet<>();
+            for (Tower tower : towerService.getAllTowers()) {
+                existing.add(tower.getTowerId());
+                track(tower);
+            }
+            for (String towerId : towers.keySet()) {
+                if (!existing.contains(towerId)) {
+                    untrack(towerId);
+                }
+            }
+            dormant.retainAll(existing);
+            trackedCollectionVersion = version;
+        } catch (Exception e) {
+            log.warn("Could not refresh tracked towers: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Evict towers without messages for the idle period, releasing their
+     * state and listener
+     */
+    @Scheduled(fixedDelayString = "${hotzones.activity.eviction-interval-ms:600000}")
+    public void evictIdleTowers() {
+        if (!enabled) {
+            return;
+        }
+        long idleSince = System.currentTimeMillis() - idleEvictionHours * SlidingWindowCounter.HOUR_MILLIS;
+        for (TowerState state : towers.values()) {
+            boolean idle;
+            synchronized (state) {
+                idle = state.ready && state.lastMessageTimestamp < idleSince;
+            }
+            if (idle) {
+                dormant.add(state.towerId);
+                untrack(state.towerId);
+            }
+        }
+    }
+
+    private void untrack(String towerId) {
+        TowerState state = towers.remove(towerId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (state.listenerQuery != null) {
+                state.listenerQuery.removeEventListener(state.listener);
+            }
+        }
+        leaderboard.remove(towerId);
+    }
+
+    private void drainBackfills() {
+        while (backfillPermits.tryAcquire()) {
+            TowerState state = backfillQueue.poll();
+            if (state == null) {
+                backfillPermits.release();
+                // A tower may have been queued after the poll but before the release
+                if (backfillQueue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            backfill(state).whenComplete((v, ex) -> {
+                backfillPermits.release();
+                drainBackfills();
+            });
+        }
+    }
+
+    /**
+     * Load the last 7 days of a tower's messages, then listen for new ones
+     */
+    private CompletableFuture<Void> backfill(TowerState state) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            DatabaseReference messagesRef = FirebaseDatabase.getInstance()
+                    .getReference("chats/" + state.towerId + "/messages");
+            long since = System.currentTimeMillis() - SlidingWindowCounter.MAX_WINDOW_MILLIS;
+            Query query = messagesRef.orderByChild("timestamp").startAt(since);
+
+            ValueEventListener listener = new ValueEventListener() {
+                @Override
+                public void onDataChange(DataSnapshot snapshot) {
+                    try {
+                        completeBackfill(state, snapshot, messagesRef);
+                        done.complete(null);
+                    } catch (Exception e) {
+                        done.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void onCancelled(DatabaseError error) {
+                    done.completeExceptionally(error.toException());
+                }
+            };
+            query.addListenerForSingleValueEvent(listener);
+
+            return done.orTimeout(BACKFILL_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .whenComplete((v, ex) -> {
+                        if (ex != null) {
+                            query.removeEventListener(listener);
+                            log.warn("Activity backfill failed for tower {}: {}", state.towerId, ex.getMessage());
+                            // Forget the tower so the next track() retries it
+                            towers.remove(state.towerId, state);
+                        }
+                    });
+        } catch (Exception e) {
+            towers.remove(state.towerId, state);
+            done.completeExceptionally(e);
+            return done;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void completeBackfill(TowerState state, DataSnapshot snapshot, DatabaseReference messagesRef) {
+        synchronized (state) {
+            for (DataSnapshot message : snapshot.getChildren()) {
+                Object value = message.getValue();
+                if (value instanceof Map) {
+                    applyLocked(state, message.getKey(), (Map<String, Object>) value);
+                }
+            }
+            for (Map.Entry<String, Map<String, Object>> message : state.pending) {
+                applyLocked(state, message.getKey(), message.getValue());
+            }
+            state.pending = null;
+            state.ready = true;
+        }
+
+        ChildEventListener listener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot message, String previousChildName) {
+                synchronized (state) {
+                    DataSnapshot removed = state.removedOldest;
+                    state.removedOldest = null;
+                    // The window refilled from behind, so the message was deleted
+                    if (removed != null && message.getKey().compareTo(removed.getKey()) < 0) {
+                        unapplyLocked(state, removed);
+                    }
+                    state.windowKeys.add(message.getKey());
+                }
+                Object value = message.getValue();
+                if (value instanceof Map) {
+                    apply(state, message.getKey(), (Map<String, Object>) value);
+                }
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot message, String previousChildName) {
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot message) {
+                // Also fired when a newer message pushes the oldest one out of
+                // the listened window; that case is only known at the next addition
+                synchronized (state) {
+                    boolean oldestOfFullWindow = state.windowKeys.size() >= LISTENER_WINDOW
+                            && message.getKey().equals(state.windowKeys.first());
+                    state.windowKeys.remove(message.getKey());
+                    if (oldestOfFullWindow) {
+                        state.removedOldest = message;
+                    } else {
+                        unapplyLocked(state, message);
+                    }
+                }
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot message, String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                log.warn("Activity listener cancelled for tower {}: {}", state.towerId, error.getMessage());
+                towers.remove(state.towerId, state);
+            }
+        };
+
+        // Only the newest messages are listened to, so the SDK's cache stays small
+        Query newest = messagesRef.limitToLast(LISTENER_WINDOW);
+        synchronized (state) {
+            if (towers.get(state.towerId) != state) {
+                // Evicted or dropped while the backfill ran
+                return;
+            }
+            state.listenerQuery = newest;
+            state.listener = listener;
+            newest.addChildEventListener(listener);
+        }
+    }
+
+    private void apply(TowerState state, String key, Map<String, Object> data) {
+        synchronized (state) {
+            if (!state.ready) {
+                state.pending.add(Map.entry(key, data));
+                return;
+            }
+            if (!applyLocked(state, key, data)) {
+                return;
+            }
+        }
+
+        Double latitude = state.latitude;
+        Double longitude = state.longitude;
+        if (latitude != null && longitude != null) {
+            for (MessageListener listener : messageListeners) {
+                listener.onMessage(state.towerId, latitude, longitude);
+            }
+        }
+    }
+
+    /**
+     * @return false if the message was a duplicate or could not be counted
+     */
+    private boolean applyLocked(TowerState state, String key, Map<String, Object> data) {
+        if (data == null || !data.containsKey("message") || state.seenKeys.containsKey(key)) {
+            return false;
+        }
+        state.seenKeys.put(key, Boolean.TRUE);
+
+        long now = System.currentTimeMillis();
+        Object timestampObj = data.get("timestamp");
+        long timestamp = timestampObj instanceof Number ? ((Number) timestampObj).longValue() : now;
+        if (now - timestamp >= SlidingWindowCounter.MAX_WINDOW_MILLIS) {
+            return false;
+        }
+
+        String userId = String.valueOf(data.getOrDefault("userId", "unknown"));
+        String username = String.valueOf(data.getOrDefault("username", "Anonymous"));
+
+        state.messages.add(timestamp, now);
+
+        state.senders.add(userId, Math.min(timestamp, now), now);
+
+        long messageTime = Math.min(timestamp, now);
+        if (Boolean.TRUE.equals(data.get("isPost"))) {
+            countPost(state, messageTime, now);
+        }
+        TermTokenizer.forEachTerm(String.valueOf(data.get("message")), state.termBuffer,
+                (term, length, hash) -> state.topics.offer(term, length, hash, messageTime));
+
+        state.recent.addLast(new RecentMessage(key, userId, username, String.valueOf(data.get("message")), timestamp));
+        while (state.recent.size() > recentMessageLimit) {
+            state.recent.pollFirst();
+        }
+
+        state.lastMessageTimestamp = Math.max(state.lastMessageTimestamp, timestamp);
+        leaderboard.record(state.towerId, messageTime);
+        return true;
+    }
+
+    /**
+     * Uncount a deleted message that was counted before
+     */
+    @SuppressWarnings("unchecked")
+    private void unapplyLocked(TowerState state, DataSnapshot message) {
+        String key = message.getKey();
+        if (!Boolean.TRUE.equals(state.seenKeys.get(key)) || !(message.getValue() instanceof Map)) {
+            return;
+        }
+        state.seenKeys.put(key, Boolean.FALSE);
+
+        Map<String, Object> data = (Map<String, Object>) message.getValue();
+        long now = System.currentTimeMillis();
+        Object timestampObj = data.get("timestamp");
+        long timestamp = Math.min(timestampObj instanceof Number ? ((Number) timestampObj).longValue() : now, now);
+
+        state.messages.remove(timestamp, now);
+        if (Boolean.TRUE.equals(data.get("isPost"))) {
+            int hour = (int) (timestamp / SlidingWindowCounter.HOUR_MILLIS);
+            int slot = hour % SenderSketches.HOURS;
+            if (state.hourlyPostStamps[slot] == hour && state.hourlyPosts[slot] > 0) {
+                state.hourlyPosts[slot]--;
+            }
+        }
+        state.recent.removeIf(recent -> key.equals(recent.key()));
+    }
+
+    private static void countPost(TowerState state, long timestamp, long now) {
+        int hour = (int) (timestamp / SlidingWindowCounter.HOUR_MILLIS);
+        if (now / SlidingWindowCounter.HOUR_MILLIS - hour >= SenderSketches.HOURS) {
+            return;
+        }
+        int slot = hour % SenderSketches.HOURS;
+        if (state.hourlyPostStamps[slot] != hour) {
+            state.hourlyPostStamps[slot] = hour;
+            state.hourlyPosts[slot] = 0;
+        }
+        state.hourlyPosts[slot]++;
+    }
+}
@@ -0,0 +1,86 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.Firestore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Tower center coordinates for permission checks, cached locally.
+ *
+ * A miss reads only the latitude and longitude fields of the tower document
+ * (not its postIds list). Entries are reloaded after a TTL, which bounds
+ * how stale a location can be; towers deleted by this server are evicted
+ * right away. A cache hit allocates nothing.
+ */
+@Service
+public class TowerLocationCache {
+
+    private static final String TOWERS_COLLECTION = "towers";
+    private static final FieldMask LOCATION_FIELDS = FieldMask.of("latitude", "longitude");
+
+    /**
+     * Center of a tower
+     */
+    public record TowerLocation(double latitude, double longitude) {
+    }
+
+    private record Entry(TowerLocation location, long expiresAt) {
+    }
+
+    @Autowired
+    private Firestore firestore;
+
+    @Value("${towers.location-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${towers.location-cache.max-entries:50000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Location of a tower, or null if it does not exist
+     */
+    public TowerLocation get(String towerId) throws ExecutionException, InterruptedException {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(towerId);
+        if (entry != null && now < entry.expiresAt()) {
+            return entry.location();
+        }
+
+        DocumentSnapshot doc = firestore.collection(TOWERS_COLLECTION)
+                .document(towerId)
+                .get(LOCATION_FIELDS)
+                .get();
+        Double latitude = doc.exists() ? doc.getDouble("latitude") : null;
+        Double longitude = doc.exists() ? doc.getDouble("longitude") : null;
+        if (latitude == null || longitude == null) {
+            entries.remove(towerId);
+            return null;
+        }
+
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(e -> now >= e.expiresAt());
+        }
+        TowerLocation location = new TowerLocation(latitude, longitude);
+        if (entries.size() < maxEntries) {
+            entries.put(towerId, new Entry(location, now + ttlSeconds * 1000));
+        }
+        return location;
+    }
+
+    public void invalidate(String towerId) {
+        entries.remove(towerId);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+}
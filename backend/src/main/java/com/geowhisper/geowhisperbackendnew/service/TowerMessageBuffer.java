@@ -0,0 +1,354 @@
+package com.geowhisper.geowhisperbackendnew.service;
+
+import com.geowhisper.geowhisperbackendnew.dto.ChatMessageResponse;
+import com.google.firebase.database.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Newest chat messages of each tower being read, shared by chat history,
+ * chat summaries and hot zone analysis.
+ *
+ * The first read of a tower attaches a child listener to its newest
+ * messages (orderByChild("timestamp").limitToLast(capacity)). After that
+ * one load the buffer mirrors the listened window: new, edited and deleted
+ * messages arrive as child events, and the oldest message is dropped when a
+ * new one pushes it out. Reads are served from memory. A tower that is
+ * not read for the idle time is detached and dropped.
+ *
+ * A buffer is complete (holds the tower's whole history) if the initial
+ * load returned fewer messages than the capacity, and stays complete until
+ * the window first slides past a message.
+ */
+@Service
+@Slf4j
+public class TowerMessageBuffer {
+
+    private static final long LOAD_TIMEOUT_SECONDS = 10;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.buffer.capacity:200}")
+    private int capacity;
+
+    @Value("${chat.buffer.max-towers:1000}")
+    private int maxTowers;
+
+    @Value("${chat.buffer.idle-minutes:10}")
+    private long idleMinutes;
+
+    /**
+     * Buffered messages of a tower, oldest first
+     *
+     * @param complete true if the tower has no messages older than these
+     */
+    public record Snapshot(List<ChatMessageResponse> messages, boolean complete) {
+
+        /**
+         * True if every message since the given time is in this snapshot
+         */
+        public boolean covers(long since) {
+            return complete || (!messages.isEmpty() && messages.get(0).getTimestamp() < since);
+        }
+    }
+
+    /**
+     * Listened window of one tower. All access is synchronized on the instance.
+     */
+    private static class TowerBuffer {
+        final String towerId;
+        final CompletableFuture<Void> loaded = new CompletableFuture<>();
+        // Sorted by timestamp, then key, like the listened query
+        final ArrayList<ChatMessageResponse> messages = new ArrayList<>();
+        // Immutable copy handed to readers, rebuilt after a change
+        List<ChatMessageResponse> view;
+        // No older messages exist outside the window
+        boolean complete;
+        Query query;
+        ChildEventListener listener;
+        volatile long lastReadAt = System.currentTimeMillis();
+
+        TowerBuffer(String towerId) {
+            this.towerId = towerId;
+        }
+    }
+
+    private final Map<String, TowerBuffer> buffers = new ConcurrentHashMap<>();
+    private Counter loads;
+
+    @PostConstruct
+    void init() {
+        loads = Counter.builder("geowhisper.chat.buffer.loads")
+                .description("Towers whose newest messages were loaded into the message buffer")
+                .register(meterRegistry);
+        meterRegistry.gauge("geowhisper.chat.buffer.towers", buffers, Map::size);
+    }
+
+    @PreDestroy
+    void stopListening() {
+        buffers.values().forEach(this::detach);
+    }
+
+    /**
+     * Most messages kept per tower
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Buffered messages of a tower, attaching it first if needed. Completes
+     * exceptionally if the tower's messages could not be loaded.
+     */
+    public CompletableFuture<Snapshot> snapshot(String towerId) {
+        TowerBuffer buffer = buffers.get(towerId);
+        if (buffer == null) {
+            buffer = attach(towerId);
+        }
+        buffer.lastReadAt = System.currentTimeMillis();
+        TowerBuffer current = buffer;
+        if (buffer.loaded.isDone() && !buffer.loaded.isCompletedExceptionally()) {
+            return CompletableFuture.completedFuture(view(current));
+        }
+        return buffer.loaded.thenApply(v -> view(current));
+    }
+
+    /**
+     * Buffered messages of a tower if it is already attached and loaded,
+     * otherwise null. Unlike {@link #snapshot} this never attaches a tower
+     * and does not count as a read, so it cannot keep a tower buffered.
+     */
+    public Snapshot peek(String towerId) {
+        TowerBuffer buffer = buffers.get(towerId);
+        if (buffer == null || !buffer.loaded.isDone() || buffer.loaded.isCompletedExceptionally()) {
+            return null;
+        }
+        return view(buffer);
+    }
+
+    /**
+     * Parse a message as stored in RTDB
+     */
+    public static ChatMessageResponse parse(String messageId, Map<String, Object> data) {
+        Object timestamp = data.get("timestamp");
+        return ChatMessageResponse.builder()
+                .messageId(messageId)
+                .message(String.valueOf(data.get("message")))
+                .userId(String.valueOf(data.getOrDefault("userId", "unknown")))
+                .username(String.valueOf(data.getOrDefault("username", "Anonymous")))
+                .timestamp(timestamp instanceof Number ? ((Number) timestamp).longValue() : 0L)
+                .image(stringOrNull(data.get("image")))
+                .hasImage(data.get("hasImage") instanceof Boolean hasImage ? hasImage : null)
+                .replyTo(stringOrNull(data.get("replyTo")))
+                .repliedMessage(stringOrNull(data.get("repliedMessage")))
+                .repliedUsername(stringOrNull(data.get("repliedUsername")))
+                .isPost(data.get("isPost") instanceof Boolean isPost ? isPost : null)
+                .postId(stringOrNull(data.get("postId")))
+                .build();
+    }
+
+    /**
+     * RTDB order of messages by timestamp: by timestamp, then by key
+     */
+    public static int compare(ChatMessageResponse a, ChatMessageResponse b) {
+        int byTimestamp = Long.compare(a.getTimestamp(), b.getTimestamp());
+        return byTimestamp != 0 ? byTimestamp : a.getMessageId().compareTo(b.getMessageId());
+    }
+
+    /**
+     * Detach towers that have not been read for the idle time
+     */
+    @Scheduled(fixedDelayString = "${chat.buffer.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleMinutes * 60_000L;
+        for (TowerBuffer buffer : buffers.values()) {
+            if (buffer.lastReadAt < idleBefore && buffers.remove(buffer.towerId, buffer)) {
+                detach(buffer);
+            }
+        }
+    }
+
+    private TowerBuffer attach(String towerId) {
+        if (buffers.size() >= maxTowers) {
+            evictLeastRecentlyRead();
+        }
+        boolean[] created = new boolean[1];
+        TowerBuffer buffer = buffers.computeIfAbsent(towerId, id -> {
+            created[0] = true;
+            return new TowerBuffer(id);
+        });
+        if (created[0]) {
+            listen(buffer);
+        }
+        return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void listen(TowerBuffer buffer) {
+        try {
+            Query query = FirebaseDatabase.getInstance()
+                    .getReference("chats/" + buffer.towerId + "/messages")
+                    .orderByChild("timestamp")
+                    .limitToLast(capacity);
+
+            ChildEventListener listener = new ChildEventListener() {
+                @Override
+                public void onChildAdded(DataSnapshot message, String previousChildName) {
+                    Object value = message.getValue();
+                    if (value instanceof Map && ((Map<String, Object>) value).containsKey("message")) {
+                        put(buffer, parse(message.getKey(), (Map<String, Object>) value));
+                    }
+                }
+
+                @Override
+                public void onChildChanged(DataSnapshot message, String previousChildName) {
+                    remove(buffer, message.getKey(), false);
+                    onChildAdded(message, previousChildName);
+                }
+
+                @Override
+                public void onChildRemoved(DataSnapshot message) {
+                    // Deleted, or pushed out of the window by a newer message
+                    remove(buffer, message.getKey(), true);
+                }
+
+                @Override
+                public void onChildMoved(DataSnapshot message, String previousChildName) {
+                    onChildChanged(message, previousChildName);
+                }
+
+                @Override
+                public void onCancelled(DatabaseError error) {
+                    log.warn("Message buffer listener cancelled for tower {}: {}", buffer.towerId,
+                            error.getMessage());
+                    buffers.remove(buffer.towerId, buffer);
+                    buffer.loaded.completeExceptionally(error.toException());
+                }
+            };
+
+            // Child events of the initial load are raised before the value event
+            ValueEventListener ready = new ValueEventListener() {
+                @Override
+                public void onDataChange(DataSnapshot snapshot) {
+                    synchronized (buffer) {
+                        buffer.complete = snapshot.getChildrenCount() < capacity;
+                    }
+                    buffer.loaded.complete(null);
+                }
+
+                @Override
+                public void onCancelled(DatabaseError error) {
+                    buffer.loaded.completeExceptionally(error.toException());
+                }
+            };
+
+            synchronized (buffer) {
+                buffer.query = query;
+                buffer.listener = listener;
+            }
+            query.addChildEventListener(listener);
+            query.addListenerForSingleValueEvent(ready);
+            loads.increment();
+
+            buffer.loaded.orTimeout(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .whenComplete((v, ex) -> {
+                        if (ex != null) {
+                            query.removeEventListener(ready);
+                            log.warn("Could not load messages of tower {}: {}", buffer.towerId, ex.getMessage());
+                            // Forget the tower so the next read retries it
+                            if (buffers.remove(buffer.towerId, buffer)) {
+                                detach(buffer);
+                            }
+                        }
+                    });
+        } catch (Exception e) {
+            buffers.remove(buffer.towerId, buffer);
+            buffer.loaded.completeExceptionally(e);
+        }
+    }
+
+    private void put(TowerBuffer buffer, ChatMessageResponse message) {
+        synchronized (buffer) {
+            List<ChatMessageResponse> messages = buffer.messages;
+            // New messages almost always belong at the end
+            int position = messages.size();
+            while (position > 0 && compare(message, messages.get(position - 1)) < 0) {
+                position--;
+            }
+            messages.add(position, message);
+            if (messages.size() > capacity) {
+                messages.remove(0);
+                buffer.complete = false;
+            }
+            buffer.view = null;
+        }
+    }
+
+    /**
+     * @param leftWindow true if the message left the listened window, either
+     *                   deleted or pushed out by a newer one
+     */
+    private void remove(TowerBuffer buffer, String messageId, boolean leftWindow) {
+        synchronized (buffer) {
+            List<ChatMessageResponse> messages = buffer.messages;
+            for (int i = 0; i < messages.size(); i++) {
+                if (messages.get(i).getMessageId().equals(messageId)) {
+                    // The oldest message of a full window leaves it when the
+                    // window slides (a deletion looks the same; assuming a
+                    // slide only costs a query later)
+                    if (leftWindow && i == 0 && messages.size() >= capacity) {
+                        buffer.complete = false;
+                    }
+                    messages.remove(i);
+                    buffer.view = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    private Snapshot view(TowerBuffer buffer) {
+        synchronized (buffer) {
+            if (buffer.view == null) {
+                buffer.view = List.copyOf(buffer.messages);
+            }
+            return new Snapshot(buffer.view, buffer.complete);
+        }
+    }
+
+    private void evictLeastRecentlyRead() {
+        buffers.values().stream()
+                .min(Comparator.comparingLong(buffer -> buffer.lastReadAt))
+                .ifPresent(buffer -> {
+                    if (buffers.remove(buffer.towerId, buffer)) {
+                        detach(buffer);
+                    }
+                });
+    }
+
+    private void detach(TowerBuffer buffer) {
+        synchronized (buffer) {
+            if (buffer.query != null) {
+                buffer.query.removeEventListener(buffer.listener);
+                buffer.query = null;
+            }
+        }
+    }
+
+    private static String stringOrNull(Object value) {
+        return value != null ? String.valueOf(value) : null;
+    }
+}
@@ -22,6 +22,9 @@ public class TowerMigrationService {
     
     @Autowired
     private TowerService towerService;
+
+    @Autowired
+    private TowerLocationCache towerLocationCache;
     
     private static final int TOWER_RADIUS = 50; // meters
     
@@ -153,7 +156,9 @@ public class TowerMigrationService {
         }
         
         if (towerCount > 0) {
+            towerService.recordCollectionChange(batch);
             batch.commit().get();
+            towerLocationCache.invalidateAll();
             log.info("Deleted {} existing towers", towerCount);
         }
         
@@ -1,8 +1,11 @@
 package com.geowhisper.geowhisperbackendnew.service;
 
+import com.google.api.core.ApiFuture;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
 import com.geowhisper.geowhisperbackendnew.model.Tower;
+import com.geowhisper.geowhisperbackendnew.model.TowerCollectionVersion;
+import com.geowhisper.geowhisperbackendnew.util.FirestoreErrors;
 import com.geowhisper.geowhisperbackendnew.util.GeoUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -20,9 +23,17 @@ public class TowerService {
     @Autowired
     private Firestore firestore;
 
+    @Autowired
+    private TowerLocationCache towerLocationCache;
+
     private static final String TOWERS_COLLECTION = "towers";
     private static final int DEFAULT_TOWER_RADIUS = 50; // meters
 
+    // Single document holding a counter bumped on every change to towers or
+    // their membership, used as a cheap validator for tower-derived listings
+    private static final String META_COLLECTION = "meta";
+    private static final String TOWERS_VERSION_DOC = "towers";
+
     /**
      * Find an existing tower within the specified radius of the given location.
      * Returns the closest tower if multiple towers are found.
@@ -76,21 +87,99 @@ public class TowerService {
     public Tower createTower(double latitude, double longitude, int radiusMeters, String firstPostId)
             throws ExecutionException, InterruptedException {
 
+        Tower tower = newTower(latitude, longitude, radiusMeters, firstPostId);
+
+        // Save to Firestore together with the collection version bump
+        WriteBatch batch = firestore.batch();
+        stageNewTower(batch, tower);
+        batch.commit().get();
+
+        return tower;
+    }
+
+    /**
+     * Build a new tower with a reserved ID without writing it yet, so the
+     * first post can reference the tower before either document is saved.
+     * 
+     * @param latitude     Tower center latitude (from first post)
+     * @param longitude    Tower center longitude (from first post)
+     * @param radiusMeters Tower radius in meters
+     * @param firstPostId  ID of the first post in this tower
+     * @return The unsaved tower
+     */
+    public Tower newTower(double latitude, double longitude, int radiusMeters, String firstPostId) {
         // Generate a unique tower ID
-        DocumentReference docRef = firestore.collection(TOWERS_COLLECTION).document();
-        String towerId = docRef.getId();
+        String towerId = firestore.collection(TOWERS_COLLECTION).document().getId();
 
         // Create tower object
         Tower tower = new Tower(towerId, latitude, longitude, radiusMeters);
         tower.addPost(firstPostId);
         tower.setCreatedAt(Timestamp.now());
         tower.setUpdatedAt(Timestamp.now());
+        return tower;
+    }
+
+    /**
+     * Add the writes for a tower built by {@link #newTower} to a batch,
+     * including the collection version bump.
+     * 
+     * @param batch Batch that will be committed by the caller
+     * @param tower Tower to save
+     */
+    public void stageNewTower(WriteBatch batch, Tower tower) {
+        DocumentReference docRef = firestore.collection(TOWERS_COLLECTION).document(tower.getTowerId());
+        batch.set(docRef, towerToMap(tower));
+        recordCollectionChange(batch);
+    }
 
-        // Save to Firestore
-        Map<String, Object> towerData = towerToMap(tower);
-        docRef.set(towerData).get();
+    /**
+     * Add the writes that make a post a member of an existing tower to a
+     * batch. Membership and count are updated with arrayUnion/increment so no
+     * read is needed, and the update fails the whole batch if the tower does
+     * not exist. The collection version is bumped in the same batch.
+     * 
+     * @param batch   Batch that will be committed by the caller
+     * @param towerId ID of the tower
+     * @param postId  ID of a new post (must not already be in the tower)
+     */
+    public void stagePostMembership(WriteBatch batch, String towerId, String postId) {
+        DocumentReference docRef = firestore.collection(TOWERS_COLLECTION).document(towerId);
+        batch.update(docRef,
+                "postIds", FieldValue.arrayUnion(postId),
+                "postCount", FieldValue.increment(1),
+                "updatedAt", FieldValue.serverTimestamp());
+        recordCollectionChange(batch);
+    }
 
-        return tower;
+    /**
+     * Queue the save of a tower built by {@link #newTower} on a bulk writer.
+     * Call {@link #recordCollectionChange(BulkWriter)} once for the whole bulk.
+     * 
+     * @param writer Bulk writer that will be closed by the caller
+     * @param tower  Tower to save
+     * @return Future of the tower write
+     */
+    public ApiFuture<WriteResult> bulkSaveNewTower(BulkWriter writer, Tower tower) {
+        DocumentReference docRef = firestore.collection(TOWERS_COLLECTION).document(tower.getTowerId());
+        return writer.set(docRef, towerToMap(tower));
+    }
+
+    /**
+     * Queue adding several new posts to an existing tower as one update on a
+     * bulk writer. Call {@link #recordCollectionChange(BulkWriter)} once for
+     * the whole bulk.
+     * 
+     * @param writer  Bulk writer that will be closed by the caller
+     * @param towerId ID of the tower
+     * @param postIds IDs of new posts (must not already be in the tower)
+     * @return Future of the tower update (fails if the tower does not exist)
+     */
+    public ApiFuture<WriteResult> bulkAddPosts(BulkWriter writer, String towerId, List<String> postIds) {
+        DocumentReference docRef = firestore.collection(TOWERS_COLLECTION).document(towerId);
+        return writer.update(docRef,
+                "postIds", FieldValue.arrayUnion(postIds.toArray()),
+                "postCount", FieldValue.increment(postIds.size()),
+                "updatedAt", FieldValue.serverTimestamp());
     }
 
     /**
@@ -127,6 +216,7 @@ public class TowerService {
                         "postIds", postIds,
                         "postCount", postIds.size(),
                         "updatedAt", Timestamp.now());
+                recordCollectionChange(transaction);
             }
 
             return null;
@@ -236,10 +326,16 @@ public class TowerService {
     }
 
     /**
-     * Remove a post from a tower
+     * Remove a post from a tower. Membership and count are updated with
+     * arrayRemove/increment, so removals cannot overwrite posts that join the
+     * tower concurrently (see {@link #stagePostMembership}), and the
+     * collection version is bumped in the same batch. A tower left
+     * without posts is then deleted in a transaction that re-checks the
+     * count, so a post that joined in the meantime keeps it alive.
      * 
      * @param towerId The ID of the tower
      * @param postId  The ID of the post to remove
+     * @throws IllegalArgumentException if the tower does not exist
      * @throws ExecutionException   if Firestore operation fails
      * @throws InterruptedException if operation is interrupted
      */
@@ -257,31 +353,115 @@ public class TowerService {
         List<String> postIds = (List<String>) towerDoc.get("postIds");
 
         if (postIds == null || !postIds.contains(postId)) {
-            // Post not in this tower, nothing to do
+            // Post not in this tower (or already removed by an earlier
+            // attempt), so the count must not be decremented again
             return;
         }
 
-        // Remove the post ID
-        postIds.remove(postId);
-        int newPostCount = postIds.size();
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("postIds", FieldValue.arrayRemove(postId));
+        updates.put("postCount", FieldValue.increment(-1));
+        updates.put("updatedAt", FieldValue.serverTimestamp());
+        WriteBatch batch = firestore.batch();
+        batch.update(towerRef, updates);
+        recordCollectionChange(batch);
+        try {
+            batch.commit().get();
+        } catch (ExecutionException e) {
+            if (FirestoreErrors.isNotFound(e)) {
+                throw new IllegalArgumentException("Tower not found: " + towerId);
+            }
+            throw e;
+        }
+        System.out.println("Removed post " + postId + " from tower " + towerId);
 
-        if (newPostCount == 0) {
-            // If tower has no more posts, delete the tower
-            towerRef.delete().get();
+        if (deleteIfEmpty(towerRef)) {
+            towerLocationCache.invalidate(towerId);
             System.out.println("Deleted empty tower: " + towerId);
-        } else {
-            // Update tower with new post list and count
-            Map<String, Object> updates = new HashMap<>();
-            updates.put("postIds", postIds);
-            updates.put("postCount", newPostCount);
-            updates.put("updatedAt", FieldValue.serverTimestamp());
-
-            towerRef.update(updates).get();
-            System.out.println("Removed post " + postId + " from tower " + towerId +
-                    ". New post count: " + newPostCount);
         }
     }
 
+    /**
+     * Delete a tower if it has no posts, re-checking the count inside the
+     * transaction
+     * 
+     * @return true if the tower was deleted
+     */
+    private boolean deleteIfEmpty(DocumentReference towerRef) throws ExecutionException, InterruptedException {
+        return firestore.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(towerRef).get();
+            Long postCount = snapshot.getLong("postCount");
+            if (!snapshot.exists() || postCount == null || postCount > 0) {
+                return false;
+            }
+
+            transaction.delete(towerRef);
+            recordCollectionChange(transaction);
+            return true;
+        }).get();
+    }
+
+    /**
+     * Get the current version of the tower collection.
+     * This is a single document read, so callers can use it to answer
+     * conditional requests before doing any tower or post queries.
+     * 
+     * @return Current version, or version 0 if no tower has been written yet
+     */
+    public TowerCollectionVersion getCollectionVersion()
+            throws ExecutionException, InterruptedException {
+
+        DocumentSnapshot doc = versionDocument().get().get();
+        if (!doc.exists()) {
+            return new TowerCollectionVersion(0, null);
+        }
+
+        Long version = doc.getLong("version");
+        return new TowerCollectionVersion(
+                version != null ? version : 0,
+                doc.getTimestamp("updatedAt"));
+    }
+
+    /**
+     * Add the collection version bump to a batch that modifies towers, their
+     * membership or the listed posts. Every such write must go through this
+     * so that cached listings are invalidated.
+     * 
+     * @param batch Batch that also contains the tower or post write
+     */
+    public void recordCollectionChange(WriteBatch batch) {
+        batch.set(versionDocument(), versionBump(), SetOptions.merge());
+    }
+
+    /**
+     * Add the collection version bump to a transaction that modifies towers
+     * 
+     * @param transaction Transaction that also contains the tower writes
+     */
+    public void recordCollectionChange(Transaction transaction) {
+        transaction.set(versionDocument(), versionBump(), SetOptions.merge());
+    }
+
+    /**
+     * Queue the collection version bump on a bulk writer that modifies towers
+     * 
+     * @param writer Bulk writer that also contains the tower writes
+     */
+    public void recordCollectionChange(BulkWriter writer) {
+        writer.set(versionDocument(), versionBump(), SetOptions.merge());
+    }
+
+    private DocumentReference versionDocument() {
+        return firestore.collection(META_COLLECTION).document(TOWERS_VERSION_DOC);
+    }
+
+    private Map<String, Object> versionBump() {
+        Map<String, Object> bump = new HashMap<>();
+        bump.put("version", FieldValue.increment(1));
+        bump.put("updatedAt", FieldValue.serverTimestamp());
+        return bump;
+    }
+
     /**
      * Convert Tower object to Firestore map.
      */
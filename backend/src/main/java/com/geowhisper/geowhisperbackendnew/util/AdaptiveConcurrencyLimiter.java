@@ -0,0 +1,146 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Permit pool whose size follows observed latency (a gradient limiter in the
+ * style of TCP Vegas).
+ *
+ * The limit grows while round trips stay close to the best latency seen and
+ * shrinks as they stretch out, because rising latency means requests are
+ * queueing at the backend. Timeouts halve the limit. Callers that cannot get
+ * a permit wait in FIFO order and are granted one as permits are released.
+ *
+ * Every acquired permit must be returned exactly once through
+ * {@link #onSuccess}, {@link #onDropped} or {@link #onIgnore}.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+    // The baseline latency is re-learned periodically so it can follow drift
+    private static final int MIN_RTT_RESET_SAMPLES = 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samplesSinceReset;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limits: min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Request a permit. The future completes once one is granted; completing
+     * it first (e.g. through orTimeout) withdraws the request.
+     */
+    public CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        synchronized (this) {
+            while (!waiters.isEmpty() && waiters.peek().isDone()) {
+                waiters.poll();
+            }
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                permit.complete(null);
+                return permit;
+            }
+            waiters.add(permit);
+        }
+        return permit;
+    }
+
+    /**
+     * Return a permit whose call completed, feeding its latency to the limit
+     */
+    public void onSuccess(long rttNanos) {
+        synchronized (this) {
+            inFlight--;
+            if (++samplesSinceReset >= MIN_RTT_RESET_SAMPLES) {
+                samplesSinceReset = 0;
+                minRttNanos = rttNanos;
+            }
+            minRttNanos = Math.min(minRttNanos, Math.max(1, rttNanos));
+
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, (double) minRttNanos / Math.max(1, rttNanos)));
+            double queueAllowance = Math.sqrt(limit);
+            double target = limit * gradient + queueAllowance;
+            limit = clamp((1 - SMOOTHING) * limit + SMOOTHING * target);
+        }
+        grantWaiters();
+    }
+
+    /**
+     * Return a permit whose call timed out or was rejected for overload
+     */
+    public void onDropped() {
+        synchronized (this) {
+            inFlight--;
+            limit = clamp(limit / 2);
+        }
+        grantWaiters();
+    }
+
+    /**
+     * Return a permit without saying anything about backend load (e.g. the
+     * call failed for an unrelated reason)
+     */
+    public void onIgnore() {
+        synchronized (this) {
+            inFlight--;
+        }
+        grantWaiters();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiters.size();
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    /**
+     * Hand free permits to waiters. Futures are completed outside the lock
+     * because their continuations run on this thread.
+     */
+    private void grantWaiters() {
+        List<CompletableFuture<Void>> granted = new ArrayList<>();
+        synchronized (this) {
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                CompletableFuture<Void> waiter = waiters.poll();
+                if (!waiter.isDone()) {
+                    inFlight++;
+                    granted.add(waiter);
+                }
+            }
+        }
+
+        for (CompletableFuture<Void> waiter : granted) {
+            if (!waiter.complete(null)) {
+                // Withdrawn between the check and the grant
+                onIgnore();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import com.geowhisper.geowhisperbackendnew.dto.HotZoneResponse;
+import com.geowhisper.geowhisperbackendnew.dto.HotZonesMapResponse;
+import com.geowhisper.geowhisperbackendnew.dto.NearbyPostResponse;
+import com.geowhisper.geowhisperbackendnew.dto.TowerResponse;
+import com.geowhisper.geowhisperbackendnew.model.Post;
+
+import java.util.List;
+
+/**
+ * Applies the optional "coordinatePrecision" request parameter to map payloads.
+ * 
+ * Rounding coordinates to a few decimals shortens every latitude/longitude in
+ * JSON and lets clients that do not need sub-meter accuracy trade precision
+ * for size. Responses are copied, never modified in place, since they may be
+ * shared between requests.
+ */
+public class CoordinateQuantizer {
+
+    public static List<TowerResponse> towers(List<TowerResponse> towers, Integer precision) {
+        if (precision == null) {
+            return towers;
+        }
+        return towers.stream()
+                .map(tower -> new TowerResponse(
+                        tower.towerId(),
+                        GeoUtils.quantize(tower.latitude(), precision),
+                        GeoUtils.quantize(tower.longitude(), precision),
+                        tower.postCount(),
+                        tower.posts() != null ? posts(tower.posts(), precision) : null))
+                .toList();
+    }
+
+    public static List<NearbyPostResponse> nearbyPosts(List<NearbyPostResponse> posts, Integer precision) {
+        if (precision == null) {
+            return posts;
+        }
+        return posts.stream()
+                .map(nearby -> new NearbyPostResponse(post(nearby.post(), precision), nearby.distance()))
+                .toList();
+    }
+
+    public static HotZonesMapResponse hotZones(HotZonesMapResponse response, Integer precision) {
+        if (precision == null || response == null) {
+            return response;
+        }
+
+        HotZonesMapResponse.HotZoneStatistics stats = response.getStatistics();
+        if (stats != null) {
+            stats = stats.toBuilder()
+                    .mostActiveZone(hotZone(stats.getMostActiveZone(), precision))
+                    .build();
+        }
+
+        return response.toBuilder()
+                .hotZones(response.getHotZones().stream()
+                        .map(zone -> hotZone(zone, precision))
+                        .toList())
+                .statistics(stats)
+                .build();
+    }
+
+    public static HotZoneResponse hotZone(HotZoneResponse zone, Integer precision) {
+        if (precision == null || zone == null) {
+            return zone;
+        }
+        return zone.toBuilder()
+                .latitude(zone.latitude() != null ? GeoUtils.quantize(zone.latitude(), precision) : null)
+                .longitude(zone.longitude() != null ? GeoUtils.quantize(zone.longitude(), precision) : null)
+                .build();
+    }
+
+    private static List<Post> posts(List<Post> posts, int precision) {
+        return posts.stream().map(post -> post(post, precision)).toList();
+    }
+
+    private static Post post(Post post, int precision) {
+        return post.withCoordinates(
+                GeoUtils.quantize(post.latitude(), precision),
+                GeoUtils.quantize(post.longitude(), precision));
+    }
+}
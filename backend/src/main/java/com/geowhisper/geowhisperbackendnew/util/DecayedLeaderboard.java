@@ -0,0 +1,119 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent ranking of keys by an exponentially decayed event count.
+ *
+ * Each event at time t adds 2^((t - landmark) / halfLife) to its key's score
+ * (forward decay against a fixed landmark). Since every score decays by the
+ * same factor as time passes, the order of keys never changes without new
+ * events, so the ranking is kept in a skip list and only the updated key is
+ * repositioned: O(log n) per event, and top-N reads walk the head of the
+ * list. Scores are stored as log2 values so the growing weights cannot
+ * overflow.
+ */
+public class DecayedLeaderboard {
+
+    /**
+     * A ranked key with its score decayed to the time of the query
+     */
+    public record Entry(String key, double score) {
+    }
+
+    private record Ranked(String key, double log2Score) {
+    }
+
+    private static final Comparator<Ranked> ORDER = Comparator
+            .comparingDouble(Ranked::log2Score).reversed()
+            .thenComparing(Ranked::key);
+
+    private final double halfLifeMillis;
+    private final long landmarkMillis;
+    private final Map<String, Ranked> current = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Ranked> ranking = new ConcurrentSkipListSet<>(ORDER);
+
+    public DecayedLeaderboard(long halfLifeMillis, long landmarkMillis) {
+        if (halfLifeMillis <= 0) {
+            throw new IllegalArgumentException("Half-life must be positive: " + halfLifeMillis);
+        }
+        this.halfLifeMillis = halfLifeMillis;
+        this.landmarkMillis = landmarkMillis;
+    }
+
+    /**
+     * Count one event for the key
+     */
+    public void record(String key, long timestampMillis) {
+        double exponent = (timestampMillis - landmarkMillis) / halfLifeMillis;
+        // compute() serializes updates per key; the skip list itself is lock-free
+        current.compute(key, (k, previous) -> {
+            Ranked next;
+            if (previous == null) {
+                next = new Ranked(k, exponent);
+            } else {
+                ranking.remove(previous);
+                next = new Ranked(k, log2Add(previous.log2Score(), exponent));
+            }
+            ranking.add(next);
+            return next;
+        });
+    }
+
+    /**
+     * Drop a key and its score
+     */
+    public void remove(String key) {
+        current.computeIfPresent(key, (k, previous) -> {
+            ranking.remove(previous);
+            return null;
+        });
+    }
+
+    /**
+     * Decayed score of a key, 0 if it has no events
+     */
+    public double score(String key, long nowMillis) {
+        Ranked ranked = current.get(key);
+        return ranked != null ? decayed(ranked, nowMillis) : 0;
+    }
+
+    /**
+     * Highest-scoring keys that pass the filter, best first
+     */
+    public List<Entry> top(int limit, long nowMillis, Predicate<String> filter) {
+        List<Entry> top = new ArrayList<>(Math.min(limit, 64));
+        for (Ranked ranked : ranking) {
+            if (top.size() >= limit) {
+                break;
+            }
+            if (filter == null || filter.test(ranked.key())) {
+                top.add(new Entry(ranked.key(), decayed(ranked, nowMillis)));
+            }
+        }
+        return top;
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    private double decayed(Ranked ranked, long nowMillis) {
+        return Math.pow(2, ranked.log2Score() - (nowMillis - landmarkMillis) / halfLifeMillis);
+    }
+
+    /**
+     * log2(2^a + 2^b) without leaving the log domain
+     */
+    private static double log2Add(double a, double b) {
+        double max = Math.max(a, b);
+        double min = Math.min(a, b);
+        return max + Math.log1p(Math.pow(2, min - max)) / Math.log(2);
+    }
+}
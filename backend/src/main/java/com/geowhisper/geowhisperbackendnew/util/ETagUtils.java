@@ -0,0 +1,121 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Helpers for version-based HTTP validators (ETag / If-None-Match).
+ */
+public class ETagUtils {
+
+    /**
+     * Build a weak ETag from the given parts (e.g. a collection version plus
+     * the request parameters that shape the response).
+     */
+    public static String weakETag(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            key.append(part).append('|');
+        }
+        String hash = DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+        return "W/\"" + hash + "\"";
+    }
+
+    /**
+     * Check an If-None-Match header against the current ETag using weak
+     * comparison, as required for GET-style validation.
+     *
+     * @param ifNoneMatch Raw header value (may be null, "*" or a list)
+     * @param etag        Current ETag of the resource
+     * @return true if the client's copy is still current
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank() || etag == null) {
+            return false;
+        }
+
+        String current = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaqueTag(tag).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Representation a response will be written in for the given Accept
+     * header: CBOR if the client prefers it over JSON, JSON otherwise. ETags
+     * of negotiated responses must include it, so that a JSON and a CBOR body
+     * never share a validator.
+     *
+     * @param accept Raw Accept header (may be null)
+     */
+    public static MediaType selectedMediaType(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+            int cbor = preference(accepted, MediaType.APPLICATION_CBOR);
+            int json = preference(accepted, MediaType.APPLICATION_JSON);
+            return cbor > json ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON;
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+    }
+
+    /**
+     * Build the validator headers for a response, including Vary: Accept
+     * since the body is negotiated.
+     *
+     * @param etag               Current ETag
+     * @param lastModifiedMillis Last modification time, or a negative value
+     *                           if unknown (Last-Modified is then omitted)
+     */
+    public static HttpHeaders validatorHeaders(String etag, long lastModifiedMillis) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+        if (lastModifiedMillis >= 0) {
+            headers.setLastModified(lastModifiedMillis);
+        }
+        return headers;
+    }
+
+    /**
+     * How strongly an Accept header asks for a type, comparable between
+     * types: the quality of the most specific matching range, then a bonus
+     * for naming the type exactly and for being listed earlier. 0 if the
+     * type is not accepted at all.
+     */
+    private static int preference(List<MediaType> accepted, MediaType type) {
+        MediaType match = null;
+        int matchIndex = 0;
+        int matchSpecificity = -1;
+        for (int i = 0; i < accepted.size(); i++) {
+            MediaType range = accepted.get(i);
+            int specificity = range.isWildcardType() ? 0 : range.isWildcardSubtype() ? 1 : 2;
+            if (range.includes(type) && specificity > matchSpecificity) {
+                match = range;
+                matchIndex = i;
+                matchSpecificity = specificity;
+            }
+        }
+        if (match == null) {
+            return 0;
+        }
+        int quality = (int) Math.round(match.getQualityValue() * 1000);
+        return quality == 0 ? 0 : quality * 10_000 + matchSpecificity * 1000 + (999 - Math.min(matchIndex, 999));
+    }
+
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
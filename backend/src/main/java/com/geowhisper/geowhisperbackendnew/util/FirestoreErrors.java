@@ -0,0 +1,31 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.cloud.firestore.FirestoreException;
+import io.grpc.Status;
+
+/**
+ * Classification of errors returned by Firestore writes.
+ */
+public class FirestoreErrors {
+
+    /**
+     * Whether a write failed because a document it updates does not exist.
+     * Looks through wrapping ExecutionException/CompletionException causes.
+     */
+    public static boolean isNotFound(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof FirestoreException firestoreError && firestoreError.getStatus() != null) {
+                return firestoreError.getStatus().getCode() == Status.Code.NOT_FOUND;
+            }
+            if (t instanceof ApiException apiError) {
+                return apiError.getStatusCode().getCode() == StatusCode.Code.NOT_FOUND;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -4,6 +4,12 @@ public class GeoUtils {
 
     private static final double EARTH_RADIUS = 6371000; // meters
 
+    // Maximum number of decimals accepted for coordinate quantization
+    // (7 decimals is ~1 cm, beyond which doubles carry only noise)
+    public static final int MAX_COORDINATE_PRECISION = 7;
+
+    private static final double[] POWERS_OF_TEN = { 1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7 };
+
     public static double calculateDistance(
             double lat1, double lon1,
             double lat2, double lon2) {
@@ -26,4 +32,17 @@ public class GeoUtils {
             double radiusMeters) {
         return calculateDistance(lat1, lon1, lat2, lon2) <= radiusMeters;
     }
+
+    /**
+     * Round a coordinate to the given number of decimals.
+     * 4 decimals is ~11 m, 5 decimals ~1.1 m at the equator.
+     *
+     * @param value    Latitude or longitude
+     * @param decimals Number of decimals, clamped to 0..MAX_COORDINATE_PRECISION
+     */
+    public static double quantize(double value, int decimals) {
+        int d = Math.max(0, Math.min(MAX_COORDINATE_PRECISION, decimals));
+        double scale = POWERS_OF_TEN[d];
+        return Math.round(value * scale) / scale;
+    }
 }
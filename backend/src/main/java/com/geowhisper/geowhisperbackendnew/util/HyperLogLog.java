@@ -0,0 +1,175 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog sketch for counting distinct strings in fixed memory.
+ *
+ * With precision p the sketch holds 2^p one-byte registers. The default
+ * p = 10 uses 1 KiB and has a standard error of 1.04 / sqrt(1024), about
+ * 3.3%, so estimates are within ~6.5% of the true count 95% of the time.
+ * Small cardinalities use linear counting and are close to exact.
+ *
+ * Sketches with the same precision merge losslessly (register-wise max), so
+ * the distinct count of a union of buckets or towers is the estimate of the
+ * merged sketch. Not thread-safe.
+ */
+public class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 10;
+
+    // Set in the first serialized byte for the sparse encoding
+    private static final int SPARSE_FLAG = 0x80;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String value) {
+        long hash = hash64(value);
+        int index = (int) (hash >>> (64 - precision));
+        // Rank of the first set bit in the remaining bits; the sentinel bit caps it
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Fold another sketch of the same precision into this one
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Linear counting is more accurate for small cardinalities
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Serialize the registers. Sketches with few non-zero registers (up to a
+     * few hundred distinct values at p = 10) are written sparsely as
+     * (index, rank) pairs, 3 bytes each, otherwise all registers are written.
+     */
+    public byte[] toByteArray() {
+        int nonZero = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                nonZero++;
+            }
+        }
+
+        if (nonZero * 3 < registers.length) {
+            byte[] bytes = new byte[1 + nonZero * 3];
+            bytes[0] = (byte) (precision | SPARSE_FLAG);
+            int pos = 1;
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] != 0) {
+                    bytes[pos++] = (byte) (i >>> 8);
+                    bytes[pos++] = (byte) i;
+                    bytes[pos++] = registers[i];
+                }
+            }
+            return bytes;
+        }
+
+        byte[] bytes = new byte[1 + registers.length];
+        bytes[0] = (byte) precision;
+        System.arraycopy(registers, 0, bytes, 1, registers.length);
+        return bytes;
+    }
+
+    /**
+     * Read a sketch written by toByteArray()
+     */
+    public static HyperLogLog fromByteArray(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            throw new IllegalArgumentException("Empty sketch");
+        }
+        HyperLogLog sketch = new HyperLogLog(bytes[0] & 0x7f);
+        if ((bytes[0] & SPARSE_FLAG) != 0) {
+            if ((bytes.length - 1) % 3 != 0) {
+                throw new IllegalArgumentException("Truncated sparse sketch");
+            }
+            for (int pos = 1; pos < bytes.length; pos += 3) {
+                int index = ((bytes[pos] & 0xff) << 8) | (bytes[pos + 1] & 0xff);
+                if (index >= sketch.registers.length) {
+                    throw new IllegalArgumentException("Register index out of range: " + index);
+                }
+                sketch.registers[index] = bytes[pos + 2];
+            }
+        } else {
+            if (bytes.length != 1 + sketch.registers.length) {
+                throw new IllegalArgumentException("Sketch has " + (bytes.length - 1) + " registers, expected "
+                        + sketch.registers.length);
+            }
+            System.arraycopy(bytes, 1, sketch.registers, 0, sketch.registers.length);
+        }
+        return sketch;
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer
+     * so every output bit depends on every input bit
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
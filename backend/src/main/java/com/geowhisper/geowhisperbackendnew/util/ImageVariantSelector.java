@@ -0,0 +1,58 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import com.geowhisper.geowhisperbackendnew.dto.NearbyPostResponse;
+import com.geowhisper.geowhisperbackendnew.dto.TowerResponse;
+import com.geowhisper.geowhisperbackendnew.model.ImageVariants;
+import com.geowhisper.geowhisperbackendnew.model.Post;
+
+import java.util.List;
+
+/**
+ * Applies the optional "variant" request parameter (thumbnail, medium or
+ * original) to post payloads, replacing each post's image URLs with that size.
+ * Like {@link CoordinateQuantizer}, responses are copied rather than modified.
+ */
+public class ImageVariantSelector {
+
+    /**
+     * Check the parameter value
+     *
+     * @throws IllegalArgumentException if the variant name is unknown
+     */
+    public static void validate(String variant) {
+        if (variant != null && !ImageVariants.isKnown(variant)) {
+            throw new IllegalArgumentException(
+                    "variant must be 'thumbnail', 'medium' or 'original'");
+        }
+    }
+
+    public static List<Post> posts(List<Post> posts, String variant) {
+        if (variant == null) {
+            return posts;
+        }
+        return posts.stream().map(post -> post.withImageVariant(variant)).toList();
+    }
+
+    public static List<NearbyPostResponse> nearbyPosts(List<NearbyPostResponse> posts, String variant) {
+        if (variant == null) {
+            return posts;
+        }
+        return posts.stream()
+                .map(nearby -> new NearbyPostResponse(nearby.post().withImageVariant(variant), nearby.distance()))
+                .toList();
+    }
+
+    public static List<TowerResponse> towers(List<TowerResponse> towers, String variant) {
+        if (variant == null) {
+            return towers;
+        }
+        return towers.stream()
+                .map(tower -> new TowerResponse(
+                        tower.towerId(),
+                        tower.latitude(),
+                        tower.longitude(),
+                        tower.postCount(),
+                        tower.posts() != null ? posts(tower.posts(), variant) : null))
+                .toList();
+    }
+}
@@ -0,0 +1,162 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import com.geowhisper.geowhisperbackendnew.model.HeatPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Gaussian kernel density estimate of weighted points, rasterized onto one
+ * Web Mercator (slippy map) tile.
+ *
+ * Each point spreads its weight as a Gaussian with the given bandwidth
+ * (standard deviation, in meters), cut off at 3 bandwidths. Values are
+ * densities in weight per km², so tiles of different zoom levels are
+ * comparable. The kernel is separable, so each point costs one row of
+ * horizontal weights plus one multiply-add per covered pixel.
+ *
+ * Rows are split into bands that fork/join tasks fill independently; every
+ * task writes only its own rows, so no synchronization is needed.
+ */
+public final class KernelDensityRaster {
+
+    private static final double EARTH_CIRCUMFERENCE_METERS = 2 * Math.PI * 6_378_137.0;
+    private static final double KERNEL_CUTOFF = 3.0;
+    // Rows per leaf task
+    private static final int BAND_ROWS = 16;
+
+    private KernelDensityRaster() {
+    }
+
+    /**
+     * Latitude/longitude bounds of a tile
+     *
+     * @return {minLat, minLon, maxLat, maxLon}
+     */
+    public static double[] tileBounds(int zoom, int x, int y) {
+        double tiles = 1L << zoom;
+        return new double[] {
+                tileLatitude(y + 1, tiles),
+                x / tiles * 360.0 - 180.0,
+                tileLatitude(y, tiles),
+                (x + 1) / tiles * 360.0 - 180.0 };
+    }
+
+    /**
+     * Kernel reach in degrees latitude: points further than this from a
+     * tile cannot affect it
+     */
+    public static double reachDegrees(double bandwidthMeters) {
+        return KERNEL_CUTOFF * bandwidthMeters / (EARTH_CIRCUMFERENCE_METERS / 360.0);
+    }
+
+    /**
+     * Density of the points over a tile of size x size pixels, row-major
+     */
+    public static float[] render(List<HeatPoint> points, int zoom, int x, int y, int size,
+            double bandwidthMeters, ForkJoinPool pool) {
+        double worldPixels = (double) size * (1L << zoom);
+        double[] bounds = tileBounds(zoom, x, y);
+        double centerLat = (bounds[0] + bounds[2]) / 2;
+        double metersPerPixel = Math.cos(Math.toRadians(centerLat)) * EARTH_CIRCUMFERENCE_METERS / worldPixels;
+        double sigma = Math.max(0.5, bandwidthMeters / metersPerPixel);
+        int radius = (int) Math.ceil(KERNEL_CUTOFF * sigma);
+
+        // Gaussian normalized to one unit of weight per km²
+        double sigmaKm = sigma * metersPerPixel / 1000.0;
+        double norm = 1.0 / (2 * Math.PI * sigmaKm * sigmaKm);
+
+        // Project onto tile pixels and drop points out of reach
+        List<double[]> projected = new ArrayList<>();
+        for (HeatPoint point : points) {
+            double px = (point.longitude() + 180.0) / 360.0 * worldPixels - (double) x * size;
+            double py = mercatorY(point.latitude()) * worldPixels - (double) y * size;
+            if (px > -radius && px < size + radius && py > -radius && py < size + radius) {
+                projected.add(new double[] { px, py, point.weight() * norm });
+            }
+        }
+
+        float[] density = new float[size * size];
+        if (!projected.isEmpty()) {
+            pool.invoke(new Band(projected, density, size, sigma, radius, 0, size));
+        }
+        return density;
+    }
+
+    private static final class Band extends RecursiveAction {
+        private final List<double[]> points;
+        private final float[] density;
+        private final int size;
+        private final double sigma;
+        private final int radius;
+        private final int fromRow;
+        private final int toRow;
+
+        Band(List<double[]> points, float[] density, int size, double sigma, int radius, int fromRow, int toRow) {
+            this.points = points;
+            this.density = density;
+            this.size = size;
+            this.sigma = sigma;
+            this.radius = radius;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow > BAND_ROWS) {
+                int middle = (fromRow + toRow) >>> 1;
+                invokeAll(new Band(points, density, size, sigma, radius, fromRow, middle),
+                        new Band(points, density, size, sigma, radius, middle, toRow));
+                return;
+            }
+
+            double twoSigmaSq = 2 * sigma * sigma;
+            double[] rowWeights = new double[2 * radius + 2];
+            for (double[] point : points) {
+                double px = point[0];
+                double py = point[1];
+                int firstRow = Math.max(fromRow, (int) Math.floor(py - radius));
+                int lastRow = Math.min(toRow - 1, (int) Math.ceil(py + radius));
+                if (firstRow > lastRow) {
+                    continue;
+                }
+                int firstCol = Math.max(0, (int) Math.floor(px - radius));
+                int lastCol = Math.min(size - 1, (int) Math.ceil(px + radius));
+                if (firstCol > lastCol) {
+                    continue;
+                }
+
+                for (int col = firstCol; col <= lastCol; col++) {
+                    // Pixel centers sit at +0.5
+                    double dx = col + 0.5 - px;
+                    rowWeights[col - firstCol] = Math.exp(-dx * dx / twoSigmaSq);
+                }
+                for (int row = firstRow; row <= lastRow; row++) {
+                    double dy = row + 0.5 - py;
+                    double weight = point[2] * Math.exp(-dy * dy / twoSigmaSq);
+                    int offset = row * size;
+                    for (int col = firstCol; col <= lastCol; col++) {
+                        density[offset + col] += (float) (weight * rowWeights[col - firstCol]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Web Mercator y in [0, 1] from the top
+     */
+    private static double mercatorY(double latitude) {
+        double clamped = Math.max(-85.05112878, Math.min(85.05112878, latitude));
+        double sin = Math.sin(Math.toRadians(clamped));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    private static double tileLatitude(int y, double tiles) {
+        double n = Math.PI - 2 * Math.PI * y / tiles;
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
@@ -0,0 +1,86 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent asynchronous computations per key and memoizes their
+ * results for a short time.
+ *
+ * The first caller for a key starts the computation; callers arriving while
+ * it runs, or within the TTL after it succeeded, get the same result. Failed
+ * computations are forgotten at once, so the next caller retries. Expired
+ * entries are swept when the map grows past maxEntries.
+ */
+public class SingleFlight<K, V> {
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        // Set once the result is known; 0 while in flight
+        volatile long expiresAt;
+
+        boolean isFresh(long nowMillis) {
+            return !result.isDone() || (!result.isCompletedExceptionally() && nowMillis < expiresAt);
+        }
+    }
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<K, Flight<V>> flights = new ConcurrentHashMap<>();
+
+    public SingleFlight(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Result for the key: in flight, memoized, or computed by the loader.
+     * Each caller gets its own copy of the future, so cancelling or
+     * completing it does not affect other callers.
+     */
+    public CompletableFuture<V> get(K key, Supplier<CompletableFuture<V>> loader) {
+        long now = System.currentTimeMillis();
+        Flight<V> existing = flights.get(key);
+        if (existing != null && existing.isFresh(now)) {
+            return existing.result.copy();
+        }
+
+        Flight<V> created = new Flight<>();
+        Flight<V> flight = flights.compute(key,
+                (k, current) -> current != null && current.isFresh(now) ? current : created);
+        if (flight != created) {
+            return flight.result.copy();
+        }
+
+        if (flights.size() > maxEntries) {
+            sweep(now);
+        }
+
+        CompletableFuture<V> computation;
+        try {
+            computation = loader.get();
+        } catch (RuntimeException e) {
+            computation = CompletableFuture.failedFuture(e);
+        }
+        computation.whenComplete((value, ex) -> {
+            if (ex != null) {
+                flights.remove(key, created);
+                created.result.completeExceptionally(ex);
+            } else {
+                created.expiresAt = System.currentTimeMillis() + ttlMillis;
+                created.result.complete(value);
+            }
+        });
+        return created.result.copy();
+    }
+
+    public int size() {
+        return flights.size();
+    }
+
+    private void sweep(long nowMillis) {
+        flights.entrySet().removeIf(entry -> !entry.getValue().isFresh(nowMillis));
+    }
+}
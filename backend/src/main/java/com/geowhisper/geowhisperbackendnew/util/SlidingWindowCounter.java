@@ -0,0 +1,115 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+/**
+ * Event counter over the last 7 days, kept in two fixed ring buffers: one
+ * bucket per minute for the last 24 hours and one per hour for the last
+ * 7 days.
+ *
+ * Each slot remembers which minute (or hour) it currently holds, so stale
+ * slots are recognised and reset lazily instead of by a sweeper. Windows up
+ * to a day are answered from minute buckets, longer ones from hour buckets,
+ * so a query touches at most 1440 slots. Not thread-safe.
+ */
+public class SlidingWindowCounter {
+
+    public static final int MINUTE_BUCKETS = 24 * 60;
+    public static final int HOUR_BUCKETS = 7 * 24;
+
+    public static final long MINUTE_MILLIS = 60_000L;
+    public static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    public static final long MAX_WINDOW_MILLIS = HOUR_BUCKETS * HOUR_MILLIS;
+
+    private final int[] minuteCounts = new int[MINUTE_BUCKETS];
+    private final int[] minuteStamps = new int[MINUTE_BUCKETS];
+    private final int[] hourCounts = new int[HOUR_BUCKETS];
+    private final int[] hourStamps = new int[HOUR_BUCKETS];
+
+    /**
+     * Count one event at the given time. Events older than 7 days are
+     * ignored; events in the future are counted as happening now.
+     */
+    public void add(long timestampMillis, long nowMillis) {
+        long timestamp = Math.min(timestampMillis, nowMillis);
+
+        int minute = (int) (timestamp / MINUTE_MILLIS);
+        if (nowMillis / MINUTE_MILLIS - minute < MINUTE_BUCKETS) {
+            int slot = minute % MINUTE_BUCKETS;
+            if (minuteStamps[slot] != minute) {
+                minuteStamps[slot] = minute;
+                minuteCounts[slot] = 0;
+            }
+            minuteCounts[slot]++;
+        }
+
+        int hour = (int) (timestamp / HOUR_MILLIS);
+        if (nowMillis / HOUR_MILLIS - hour < HOUR_BUCKETS) {
+            int slot = hour % HOUR_BUCKETS;
+            if (hourStamps[slot] != hour) {
+                hourStamps[slot] = hour;
+                hourCounts[slot] = 0;
+            }
+            hourCounts[slot]++;
+        }
+    }
+
+    /**
+     * Uncount one event previously added at the given time (e.g. a deleted
+     * message). Buckets that have been reused or expired since are left
+     * alone, so removing an event that is no longer counted has no effect.
+     */
+    public void remove(long timestampMillis, long nowMillis) {
+        long timestamp = Math.min(timestampMillis, nowMillis);
+
+        int minute = (int) (timestamp / MINUTE_MILLIS);
+        int minuteSlot = minute % MINUTE_BUCKETS;
+        if (minuteStamps[minuteSlot] == minute && minuteCounts[minuteSlot] > 0) {
+            minuteCounts[minuteSlot]--;
+        }
+
+        int hour = (int) (timestamp / HOUR_MILLIS);
+        int hourSlot = hour % HOUR_BUCKETS;
+        if (hourStamps[hourSlot] == hour && hourCounts[hourSlot] > 0) {
+            hourCounts[hourSlot]--;
+        }
+    }
+
+    /**
+     * Number of events in the window ending now. Windows longer than a day
+     * are rounded up to whole hours, windows longer than 7 days are capped.
+     */
+    public long sum(long windowMillis, long nowMillis) {
+        long total = 0;
+        if (windowMillis <= MINUTE_BUCKETS * MINUTE_MILLIS) {
+            int nowMinute = (int) (nowMillis / MINUTE_MILLIS);
+            int minutes = (int) Math.max(1, (windowMillis + MINUTE_MILLIS - 1) / MINUTE_MILLIS);
+            for (int i = 0; i < minutes; i++) {
+                int minute = nowMinute - i;
+                int slot = minute % MINUTE_BUCKETS;
+                if (minuteStamps[slot] == minute) {
+                    total += minuteCounts[slot];
+                }
+            }
+            return total;
+        }
+
+        int nowHour = (int) (nowMillis / HOUR_MILLIS);
+        int hours = (int) Math.min(HOUR_BUCKETS, (windowMillis + HOUR_MILLIS - 1) / HOUR_MILLIS);
+        for (int i = 0; i < hours; i++) {
+            int hour = nowHour - i;
+            int slot = hour % HOUR_BUCKETS;
+            if (hourStamps[slot] == hour) {
+                total += hourCounts[slot];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Number of events in one hour, given as hours since the epoch. Hours
+     * older than 7 days read as 0.
+     */
+    public long countInHour(long hour) {
+        int slot = (int) (hour % HOUR_BUCKETS);
+        return hourStamps[slot] == hour ? hourCounts[slot] : 0;
+    }
+}
@@ -0,0 +1,94 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory uniform grid over latitude/longitude for nearest-neighbour
+ * lookups within a small radius.
+ * 
+ * Cells are square in degrees and sized from the search radius, so a lookup
+ * only checks the handful of cells around the query point instead of every
+ * entry. Not thread-safe; intended for building and querying within a single
+ * request (e.g. assigning towers to a batch of posts).
+ *
+ * @param <T> Value stored at each point
+ */
+public class SpatialGridIndex<T> {
+
+    private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+
+    private record Entry<T>(double latitude, double longitude, T value) {
+    }
+
+    private final double cellDegrees;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private int size;
+
+    /**
+     * @param cellMeters Cell edge length (use the typical search radius)
+     */
+    public SpatialGridIndex(double cellMeters) {
+        this.cellDegrees = cellMeters / METERS_PER_DEGREE_LAT;
+    }
+
+    public void add(double latitude, double longitude, T value) {
+        cells.computeIfAbsent(cellKey(latCell(latitude), lonCell(longitude)), k -> new ArrayList<>())
+                .add(new Entry<>(latitude, longitude, value));
+        size++;
+    }
+
+    /**
+     * Find the closest value within the radius of a point
+     */
+    public Optional<T> nearest(double latitude, double longitude, double radiusMeters) {
+        double latSpan = radiusMeters / METERS_PER_DEGREE_LAT;
+        // A meter of longitude spans more degrees away from the equator
+        double cosLat = Math.max(Math.cos(Math.toRadians(latitude)), 1e-6);
+        double lonSpan = Math.min(180, latSpan / cosLat);
+
+        long minLat = latCell(latitude - latSpan);
+        long maxLat = latCell(latitude + latSpan);
+        long minLon = lonCell(longitude - lonSpan);
+        long maxLon = lonCell(longitude + lonSpan);
+
+        T nearest = null;
+        double minDistance = Double.MAX_VALUE;
+        for (long latCell = minLat; latCell <= maxLat; latCell++) {
+            for (long lonCell = minLon; lonCell <= maxLon; lonCell++) {
+                List<Entry<T>> entries = cells.get(cellKey(latCell, lonCell));
+                if (entries == null) {
+                    continue;
+                }
+                for (Entry<T> entry : entries) {
+                    double distance = GeoUtils.calculateDistance(
+                            latitude, longitude, entry.latitude(), entry.longitude());
+                    if (distance <= radiusMeters && distance < minDistance) {
+                        nearest = entry.value();
+                        minDistance = distance;
+                    }
+                }
+            }
+        }
+        return Optional.ofNullable(nearest);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private long latCell(double latitude) {
+        return (long) Math.floor(latitude / cellDegrees);
+    }
+
+    private long lonCell(double longitude) {
+        return (long) Math.floor(longitude / cellDegrees);
+    }
+
+    private static long cellKey(long latCell, long lonCell) {
+        return (latCell << 32) ^ (lonCell & 0xffffffffL);
+    }
+}
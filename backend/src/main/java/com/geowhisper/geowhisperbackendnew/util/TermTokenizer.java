@@ -0,0 +1,80 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+/**
+ * Splits chat messages into topic terms without allocating per token.
+ *
+ * Words are separated by whitespace; within a word only ASCII letters are
+ * kept, lowercased. Words of 3 letters or fewer, stop words and words longer
+ * than the caller's buffer are skipped. Each term is handed to the sink as
+ * the filled prefix of the shared buffer together with its hash, which
+ * equals String.hashCode() of the term.
+ */
+public final class TermTokenizer {
+
+    public static final int MIN_TERM_LENGTH = 4;
+
+    private static final char[][] STOP_WORDS = {
+            "the".toCharArray(), "is".toCharArray(), "at".toCharArray(), "which".toCharArray(),
+            "on".toCharArray(), "a".toCharArray(), "an".toCharArray(), "and".toCharArray(),
+            "or".toCharArray(), "but".toCharArray(), "in".toCharArray(), "with".toCharArray(),
+            "to".toCharArray(), "for".toCharArray()
+    };
+
+    /**
+     * Receives one term; the buffer is reused for the next term
+     */
+    @FunctionalInterface
+    public interface TermSink {
+        void accept(char[] term, int length, int hash);
+    }
+
+    private TermTokenizer() {
+    }
+
+    public static void forEachTerm(CharSequence text, char[] buffer, TermSink sink) {
+        if (text == null) {
+            return;
+        }
+
+        int length = 0;
+        int hash = 0;
+        boolean overflow = false;
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isWhitespace(c)) {
+                if (!overflow && length >= MIN_TERM_LENGTH && !isStopWord(buffer, length)) {
+                    sink.accept(buffer, length, hash);
+                }
+                length = 0;
+                hash = 0;
+                overflow = false;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                if (length == buffer.length) {
+                    overflow = true;
+                    continue;
+                }
+                char lower = (char) (c | 0x20);
+                buffer[length++] = lower;
+                hash = 31 * hash + lower;
+            }
+        }
+    }
+
+    private static boolean isStopWord(char[] term, int length) {
+        for (char[] stopWord : STOP_WORDS) {
+            if (stopWord.length == length && regionEquals(stopWord, term, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionEquals(char[] a, char[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,199 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming heavy-hitter summary of terms (Space-Saving) with optional
+ * exponential time decay.
+ *
+ * A fixed number of counters is kept. A term that is already counted is
+ * incremented; a new term takes over the smallest counter and inherits its
+ * count as possible overestimate (its error). Any term occurring more than
+ * total/capacity times is guaranteed to be tracked, and top terms are ranked
+ * by their guaranteed count (count minus error).
+ *
+ * With a half-life, each occurrence is weighted by 2^(t / halfLife) relative
+ * to a landmark (forward decay), so old counts fade without ever being
+ * revisited. Terms are matched from a char buffer through a small hash
+ * index, so counting a known term allocates nothing. Not thread-safe.
+ */
+public class TopKTermTracker {
+
+    // Rescale before forward-decay weights get large enough to lose precision
+    private static final double MAX_EXPONENT = 64;
+
+    /**
+     * A term with its count (decayed to the time of the query)
+     */
+    public record TermCount(String term, double count) {
+    }
+
+    private final int capacity;
+    private final double halfLifeMillis;
+    private final String[] terms;
+    private final int[] hashes;
+    private final double[] counts;
+    private final double[] errors;
+    // Open addressing over slot + 1, 0 = empty
+    private final int[] index;
+    private final int mask;
+    private int size;
+    private long landmarkMillis;
+
+    /**
+     * @param capacity       Number of counters
+     * @param halfLifeMillis Half-life of an occurrence, or 0 for no decay
+     * @param nowMillis      Initial landmark for decay
+     */
+    public TopKTermTracker(int capacity, long halfLifeMillis, long nowMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.halfLifeMillis = halfLifeMillis;
+        this.terms = new String[capacity];
+        this.hashes = new int[capacity];
+        this.counts = new double[capacity];
+        this.errors = new double[capacity];
+        this.index = new int[Integer.highestOneBit(capacity * 4 - 1) << 1];
+        this.mask = index.length - 1;
+        this.landmarkMillis = nowMillis;
+    }
+
+    /**
+     * Count one occurrence of the term in term[0, length) at the given time
+     *
+     * @param hash String.hashCode() of the term
+     */
+    public void offer(char[] term, int length, int hash, long timestampMillis) {
+        double weight = weight(timestampMillis);
+
+        int slot = find(term, length, hash);
+        if (slot >= 0) {
+            counts[slot] += weight;
+            return;
+        }
+
+        if (size < capacity) {
+            slot = size++;
+            store(slot, term, length, hash, weight, 0);
+            insert(slot);
+            return;
+        }
+
+        slot = minSlot();
+        double inherited = counts[slot];
+        store(slot, term, length, hash, inherited + weight, inherited);
+        rebuildIndex();
+    }
+
+    /**
+     * Top k terms by guaranteed count, with counts decayed to nowMillis
+     */
+    public List<TermCount> top(int k, long nowMillis) {
+        double decay = halfLifeMillis > 0 ? Math.pow(2, -(nowMillis - landmarkMillis) / halfLifeMillis) : 1;
+
+        int n = Math.min(k, size);
+        List<TermCount> top = new ArrayList<>(n);
+        boolean[] taken = new boolean[size];
+        for (int rank = 0; rank < n; rank++) {
+            int best = -1;
+            for (int i = 0; i < size; i++) {
+                if (!taken[i] && (best < 0 || guaranteed(i) > guaranteed(best))) {
+                    best = i;
+                }
+            }
+            taken[best] = true;
+            top.add(new TermCount(terms[best], guaranteed(best) * decay));
+        }
+        return top;
+    }
+
+    private double guaranteed(int slot) {
+        return counts[slot] - errors[slot];
+    }
+
+    private double weight(long timestampMillis) {
+        if (halfLifeMillis <= 0) {
+            return 1;
+        }
+        double exponent = (timestampMillis - landmarkMillis) / halfLifeMillis;
+        if (exponent > MAX_EXPONENT) {
+            rescale(timestampMillis);
+            exponent = 0;
+        }
+        return Math.pow(2, exponent);
+    }
+
+    /**
+     * Move the decay landmark forward, scaling counts to match
+     */
+    private void rescale(long newLandmarkMillis) {
+        double factor = Math.pow(2, -(newLandmarkMillis - landmarkMillis) / halfLifeMillis);
+        for (int i = 0; i < size; i++) {
+            counts[i] *= factor;
+            errors[i] *= factor;
+        }
+        landmarkMillis = newLandmarkMillis;
+    }
+
+    private void store(int slot, char[] term, int length, int hash, double count, double error) {
+        terms[slot] = new String(term, 0, length);
+        hashes[slot] = hash;
+        counts[slot] = count;
+        errors[slot] = error;
+    }
+
+    private int minSlot() {
+        int min = 0;
+        for (int i = 1; i < size; i++) {
+            if (counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        return min;
+    }
+
+    private int find(char[] term, int length, int hash) {
+        for (int i = spread(hash) & mask; index[i] != 0; i = (i + 1) & mask) {
+            int slot = index[i] - 1;
+            if (hashes[slot] == hash && matches(terms[slot], term, length)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int slot) {
+        int i = spread(hashes[slot]) & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot + 1;
+    }
+
+    private void rebuildIndex() {
+        Arrays.fill(index, 0);
+        for (int slot = 0; slot < size; slot++) {
+            insert(slot);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String stored, char[] term, int length) {
+        if (stored.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (stored.charAt(i) != term[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
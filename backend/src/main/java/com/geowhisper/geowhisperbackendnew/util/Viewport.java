@@ -0,0 +1,42 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+/**
+ * Latitude/longitude bounding box of a map viewport. A box whose minLon is
+ * greater than its maxLon crosses the antimeridian.
+ */
+public record Viewport(double minLat, double minLon, double maxLat, double maxLon) {
+
+    public Viewport {
+        if (minLat < -90 || maxLat > 90 || minLat > maxLat) {
+            throw new IllegalArgumentException("Invalid viewport latitudes: " + minLat + ", " + maxLat);
+        }
+        if (minLon < -180 || minLon > 180 || maxLon < -180 || maxLon > 180) {
+            throw new IllegalArgumentException("Invalid viewport longitudes: " + minLon + ", " + maxLon);
+        }
+    }
+
+    /**
+     * Viewport from optional request parameters
+     *
+     * @return null if no bound is given
+     * @throws IllegalArgumentException if only some bounds are given or they are invalid
+     */
+    public static Viewport of(Double minLat, Double minLon, Double maxLat, Double maxLon) {
+        if (minLat == null && minLon == null && maxLat == null && maxLon == null) {
+            return null;
+        }
+        if (minLat == null || minLon == null || maxLat == null || maxLon == null) {
+            throw new IllegalArgumentException("minLat, minLon, maxLat and maxLon must be given together");
+        }
+        return new Viewport(minLat, minLon, maxLat, maxLon);
+    }
+
+    public boolean contains(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null || latitude < minLat || latitude > maxLat) {
+            return false;
+        }
+        return minLon <= maxLon
+                ? longitude >= minLon && longitude <= maxLon
+                : longitude >= minLon || longitude <= maxLon;
+    }
+}
@@ -0,0 +1,148 @@
+package com.geowhisper.geowhisperbackendnew.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.geowhisper.geowhisperbackendnew.dto.HotZoneResponse;
+import com.geowhisper.geowhisperbackendnew.dto.HotZonesMapResponse;
+import com.geowhisper.geowhisperbackendnew.dto.TowerResponse;
+import com.geowhisper.geowhisperbackendnew.model.Post;
+import com.geowhisper.geowhisperbackendnew.util.CoordinateQuantizer;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Size and serialization time of CBOR against the JSON baseline for
+ * representative tower and hot zone responses. Mappers are built the way
+ * {@link PayloadEncodingConfig} builds them. Sizes are asserted; timings are
+ * only printed, since they depend on the machine.
+ */
+class PayloadEncodingTests {
+
+	private static final int ITERATIONS = 200;
+
+	private final ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+	private final ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+
+	@Test
+	void cborTowerListingIsSmallerThanJson() throws Exception {
+		List<TowerResponse> towers = towers();
+
+		byte[] jsonBytes = json.writeValueAsBytes(towers);
+		byte[] cborBytes = cbor.writeValueAsBytes(towers);
+		report("Towers", towers, jsonBytes, cborBytes);
+		report("Towers, 5 decimals", CoordinateQuantizer.towers(towers, 5),
+				json.writeValueAsBytes(CoordinateQuantizer.towers(towers, 5)),
+				cbor.writeValueAsBytes(CoordinateQuantizer.towers(towers, 5)));
+
+		assertThat(cborBytes.length).isLessThan(jsonBytes.length);
+		assertThat(cbor.readTree(cborBytes)).isEqualTo(json.readTree(jsonBytes));
+	}
+
+	@Test
+	void cborHotZonesAreSmallerThanJson() throws Exception {
+		HotZonesMapResponse hotZones = hotZones();
+
+		byte[] jsonBytes = json.writeValueAsBytes(hotZones);
+		byte[] cborBytes = cbor.writeValueAsBytes(hotZones);
+		report("Hot zones", hotZones, jsonBytes, cborBytes);
+
+		assertThat(cborBytes.length).isLessThan(jsonBytes.length);
+		assertThat(cbor.readTree(cborBytes)).isEqualTo(json.readTree(jsonBytes));
+	}
+
+	private void report(String name, Object payload, byte[] jsonBytes, byte[] cborBytes) throws Exception {
+		System.out.printf("%-20s JSON %8d bytes %8.1f us   CBOR %8d bytes %8.1f us (%.0f%% of JSON)%n",
+				name, jsonBytes.length, serializeMicros(json, payload),
+				cborBytes.length, serializeMicros(cbor, payload),
+				100.0 * cborBytes.length / jsonBytes.length);
+	}
+
+	private static double serializeMicros(ObjectMapper mapper, Object payload) throws Exception {
+		for (int i = 0; i < ITERATIONS; i++) {
+			mapper.writeValueAsBytes(payload);
+		}
+		long started = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			mapper.writeValueAsBytes(payload);
+		}
+		return (System.nanoTime() - started) / 1000.0 / ITERATIONS;
+	}
+
+	private static List<TowerResponse> towers() {
+		Timestamp createdAt = Timestamp.ofTimeSecondsAndNanos(1_760_000_000L, 0);
+		List<TowerResponse> towers = new ArrayList<>();
+		for (int t = 0; t < 100; t++) {
+			List<Post> posts = new ArrayList<>();
+			for (int p = 0; p < 10; p++) {
+				posts.add(new Post("post-" + t + "-" + p, "user-" + p, "user " + p,
+						"Street musician playing near the fountain, tower " + t + " post " + p,
+						latitude(t, p), longitude(t, p), "tower-" + t, createdAt, p, p / 2,
+						List.of("https://storage.googleapis.com/geowhisper.appspot.com/posts/blobs/" + t + "-" + p
+								+ ".jpg?X-Goog-Algorithm=GOOG4-RSA-SHA256&X-Goog-Expires=604800"),
+						1, Post.MEDIA_READY, null));
+			}
+			towers.add(new TowerResponse("tower-" + t, latitude(t, 0), longitude(t, 0), posts.size(), posts));
+		}
+		return towers;
+	}
+
+	private static HotZonesMapResponse hotZones() {
+		List<HotZoneResponse> zones = new ArrayList<>();
+		for (int t = 0; t < 100; t++) {
+			zones.add(HotZoneResponse.builder()
+					.towerId("tower-" + t)
+					.towerName("Tower " + t)
+					.latitude(latitude(t, 0))
+					.longitude(longitude(t, 0))
+					.messageCount(200 - t)
+					.uniqueUsers(40 - t / 3)
+					.activityLevel(t < 10 ? "extreme" : t < 40 ? "very_hot" : "hot")
+					.activityScore(95.5 - t * 0.37)
+					.trendingScore(180.25 - t * 1.13)
+					.messagesLast1Hour(30 - t / 4)
+					.messagesLast24Hours(200 - t)
+					.trendingTopic("concert")
+					.trendingTopics(List.of(
+							new HotZoneResponse.TrendingTopic("concert", 12.5),
+							new HotZoneResponse.TrendingTopic("traffic", 7.25),
+							new HotZoneResponse.TrendingTopic("coffee", 3.0)))
+					.recentUsernames(List.of("alice", "bob", "carol", "dave", "erin"))
+					.lastMessageTimestamp(1_760_000_000_000L + t * 1000L)
+					.build());
+		}
+		return HotZonesMapResponse.builder()
+				.hotZones(zones)
+				.totalHotZones(zones.size())
+				.messageThreshold(50)
+				.timeRangeHours(24)
+				.searchArea("global")
+				.statistics(HotZonesMapResponse.HotZoneStatistics.builder()
+						.totalMessages(15050)
+						.totalUniqueUsers(2350)
+						.mostActiveZone(zones.get(0))
+						.hotZonesCount(60)
+						.veryHotZonesCount(30)
+						.extremeZonesCount(10)
+						.build())
+				.partial(false)
+				.skippedTowerIds(List.of())
+				.generatedAt(1_760_000_000_000L)
+				.ageMs(4_000L)
+				.refreshing(false)
+				.build();
+	}
+
+	private static double latitude(int t, int p) {
+		return 40.712776 + t * 0.0013 + p * 0.0000217;
+	}
+
+	private static double longitude(int t, int p) {
+		return -74.005974 - t * 0.0011 - p * 0.0000193;
+	}
+}
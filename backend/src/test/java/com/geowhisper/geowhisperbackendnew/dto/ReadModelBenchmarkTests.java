@@ -0,0 +1,164 @@
+package com.geowhisper.geowhisperbackendnew.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.geowhisper.geowhisperbackendnew.model.Post;
+import com.google.cloud.Timestamp;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Micro-benchmark of the typed tower listing (records) against the
+ * HashMap-based payloads it replaced: time and heap allocated per
+ * build-and-serialize of a 200 tower / 2000 post listing. Both paths must
+ * produce the same JSON, so the comparison is like for like.
+ *
+ * Results are printed, not asserted, since timings depend on the machine.
+ * Run it on its own for stable numbers:
+ * mvn test -Dtest=ReadModelBenchmarkTests
+ */
+class ReadModelBenchmarkTests {
+
+	private static final int TOWERS = 200;
+	private static final int POSTS_PER_TOWER = 10;
+	private static final int WARMUP = 50;
+	private static final int ITERATIONS = 200;
+
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+	private final Timestamp createdAt = Timestamp.ofTimeSecondsAndNanos(1_760_000_000L, 0);
+
+	@Test
+	void typedAndMapBasedListingsSerializeIdentically() throws Exception {
+		assertThat(mapper.readTree(mapper.writeValueAsBytes(typedListing())))
+				.isEqualTo(mapper.readTree(mapper.writeValueAsBytes(mapListing())));
+	}
+
+	@Test
+	void typedListingCostComparedToMapBasedListing() throws Exception {
+		ObjectWriter typedWriter = mapper.writerFor(mapper.getTypeFactory()
+				.constructCollectionType(List.class, TowerResponse.class));
+		ObjectWriter mapWriter = mapper.writer();
+
+		Result typed = measure(typedWriter, this::typedListing);
+		Result maps = measure(mapWriter, this::mapListing);
+
+		System.out.printf("Tower listing, %d towers x %d posts, per build + serialize:%n", TOWERS, POSTS_PER_TOWER);
+		System.out.printf("  records  %8.1f us  %10d bytes allocated  %8d bytes JSON%n",
+				typed.micros(), typed.allocatedBytes(), typed.payloadBytes());
+		System.out.printf("  maps     %8.1f us  %10d bytes allocated  %8d bytes JSON%n",
+				maps.micros(), maps.allocatedBytes(), maps.payloadBytes());
+
+		assertThat(typed.payloadBytes()).isEqualTo(maps.payloadBytes());
+	}
+
+	private record Result(double micros, long allocatedBytes, int payloadBytes) {
+	}
+
+	private Result measure(ObjectWriter writer, Supplier<Object> listing) throws Exception {
+		int size = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			size = writer.writeValueAsBytes(listing.get()).length;
+		}
+
+		long allocatedBefore = allocatedBytes();
+		long started = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			size = writer.writeValueAsBytes(listing.get()).length;
+		}
+		long elapsed = System.nanoTime() - started;
+		long allocated = allocatedBytes() - allocatedBefore;
+
+		return new Result(elapsed / 1000.0 / ITERATIONS, allocated / ITERATIONS, size);
+	}
+
+	private static long allocatedBytes() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+			return threads.getCurrentThreadAllocatedBytes();
+		}
+		return 0;
+	}
+
+	private List<TowerResponse> typedListing() {
+		List<TowerResponse> towers = new ArrayList<>(TOWERS);
+		for (int t = 0; t < TOWERS; t++) {
+			List<Post> posts = new ArrayList<>(POSTS_PER_TOWER);
+			for (int p = 0; p < POSTS_PER_TOWER; p++) {
+				posts.add(new Post(postId(t, p), "user-" + p, "user " + p, content(t, p),
+						latitude(t, p), longitude(t, p), towerId(t), createdAt, p, p / 2,
+						List.of(imageUrl(t, p)), 1, Post.MEDIA_READY, null));
+			}
+			towers.add(new TowerResponse(towerId(t), latitude(t, 0), longitude(t, 0), posts.size(), posts));
+		}
+		return towers;
+	}
+
+	/**
+	 * The same listing as built before the typed read models: a HashMap per
+	 * post and per tower, with boxed numbers
+	 */
+	private List<Map<String, Object>> mapListing() {
+		List<Map<String, Object>> towers = new ArrayList<>(TOWERS);
+		for (int t = 0; t < TOWERS; t++) {
+			List<Map<String, Object>> posts = new ArrayList<>(POSTS_PER_TOWER);
+			for (int p = 0; p < POSTS_PER_TOWER; p++) {
+				Map<String, Object> post = new HashMap<>();
+				post.put("id", postId(t, p));
+				post.put("userId", "user-" + p);
+				post.put("username", "user " + p);
+				post.put("content", content(t, p));
+				post.put("latitude", latitude(t, p));
+				post.put("longitude", longitude(t, p));
+				post.put("towerId", towerId(t));
+				post.put("createdAt", createdAt);
+				post.put("likes", (long) p);
+				post.put("commentCount", (long) (p / 2));
+				post.put("images", List.of(imageUrl(t, p)));
+				post.put("imageCount", 1);
+				post.put("mediaStatus", Post.MEDIA_READY);
+				posts.add(post);
+			}
+			Map<String, Object> tower = new HashMap<>();
+			tower.put("towerId", towerId(t));
+			tower.put("latitude", latitude(t, 0));
+			tower.put("longitude", longitude(t, 0));
+			tower.put("postCount", posts.size());
+			tower.put("posts", posts);
+			towers.add(tower);
+		}
+		return towers;
+	}
+
+	private static String towerId(int t) {
+		return "tower-" + t;
+	}
+
+	private static String postId(int t, int p) {
+		return "post-" + t + "-" + p;
+	}
+
+	private static String content(int t, int p) {
+		return "Street musician playing near the fountain, tower " + t + " post " + p;
+	}
+
+	private static String imageUrl(int t, int p) {
+		return "https://storage.googleapis.com/geowhisper.appspot.com/posts/blobs/" + t + "-" + p
+				+ ".jpg?X-Goog-Algorithm=GOOG4-RSA-SHA256&X-Goog-Expires=604800";
+	}
+
+	private static double latitude(int t, int p) {
+		return 40.712776 + t * 0.0013 + p * 0.0000217;
+	}
+
+	private static double longitude(int t, int p) {
+		return -74.005974 - t * 0.0011 - p * 0.0000193;
+	}
+}
@@ -0,0 +1,106 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimiterTests {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	void limitGrowsWhileLatencyStaysAtBaseline() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100);
+
+		complete(limiter, FAST, 20);
+
+		assertThat(limiter.getLimit()).isGreaterThan(20);
+	}
+
+	@Test
+	void limitIsCappedAtMax() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 30);
+
+		complete(limiter, FAST, 200);
+
+		assertThat(limiter.getLimit()).isEqualTo(30);
+	}
+
+	@Test
+	void limitShrinksAsLatencyRises() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 1, 100);
+		complete(limiter, FAST, 1);
+		int before = limiter.getLimit();
+
+		complete(limiter, SLOW, 50);
+
+		// Converges to where the queue allowance balances the halving: 4
+		assertThat(limiter.getLimit()).isLessThan(before).isBetween(3, 6);
+	}
+
+	@Test
+	void droppedCallHalvesLimitDownToMin() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(40, 8, 100);
+
+		limiter.acquire().join();
+		limiter.onDropped();
+		assertThat(limiter.getLimit()).isEqualTo(20);
+
+		for (int i = 0; i < 3; i++) {
+			limiter.acquire().join();
+			limiter.onDropped();
+		}
+		assertThat(limiter.getLimit()).isEqualTo(8);
+	}
+
+	@Test
+	void callersBeyondLimitWaitAndAreGrantedInOrder() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+		CompletableFuture<Void> first = limiter.acquire();
+		CompletableFuture<Void> second = limiter.acquire();
+		CompletableFuture<Void> third = limiter.acquire();
+
+		assertThat(first).isDone();
+		assertThat(second).isNotDone();
+		assertThat(limiter.getWaiting()).isEqualTo(2);
+
+		limiter.onIgnore();
+		assertThat(second).isDone();
+		assertThat(third).isNotDone();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+	}
+
+	@Test
+	void withdrawnWaiterIsSkipped() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+		limiter.acquire();
+		CompletableFuture<Void> withdrawn = limiter.acquire();
+		CompletableFuture<Void> next = limiter.acquire();
+
+		withdrawn.completeExceptionally(new IllegalStateException("timed out"));
+		limiter.onIgnore();
+
+		assertThat(next).isCompleted();
+		assertThat(limiter.getInFlight()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsInvalidLimits() {
+		assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(10, 0, 10))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new AdaptiveConcurrencyLimiter(10, 5, 4))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static void complete(AdaptiveConcurrencyLimiter limiter, long rttNanos, int calls) {
+		for (int i = 0; i < calls; i++) {
+			limiter.acquire().join();
+			limiter.onSuccess(rttNanos);
+		}
+	}
+}
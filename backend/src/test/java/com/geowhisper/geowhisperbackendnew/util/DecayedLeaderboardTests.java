@@ -0,0 +1,111 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import com.geowhisper.geowhisperbackendnew.util.DecayedLeaderboard.Entry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class DecayedLeaderboardTests {
+
+	private static final long HALF_LIFE = 60_000;
+
+	@Test
+	void scoreHalvesEveryHalfLife() {
+		DecayedLeaderboard leaderboard = new DecayedLeaderboard(HALF_LIFE, 0);
+		leaderboard.record("plaza", 0);
+		leaderboard.record("plaza", 0);
+
+		assertThat(leaderboard.score("plaza", 0)).isCloseTo(2, within(1e-9));
+		assertThat(leaderboard.score("plaza", HALF_LIFE)).isCloseTo(1, within(1e-9));
+		assertThat(leaderboard.score("plaza", 3 * HALF_LIFE)).isCloseTo(0.25, within(1e-9));
+		assertThat(leaderboard.score("unknown", 0)).isZero();
+	}
+
+	@Test
+	void recentEventsOutrankMoreOlderEvents() {
+		DecayedLeaderboard leaderboard = new DecayedLeaderboard(HALF_LIFE, 0);
+		for (int i = 0; i < 3; i++) {
+			leaderboard.record("station", 0);
+		}
+		// Two half-lives later one event is worth 4 old ones
+		leaderboard.record("park", 2 * HALF_LIFE);
+
+		assertThat(leaderboard.top(2, 2 * HALF_LIFE, null))
+				.extracting(Entry::key)
+				.containsExactly("park", "station");
+	}
+
+	@Test
+	void orderDoesNotChangeWithoutNewEvents() {
+		DecayedLeaderboard leaderboard = new DecayedLeaderboard(HALF_LIFE, 0);
+		leaderboard.record("station", 0);
+		leaderboard.record("station", 0);
+		leaderboard.record("park", 10_000);
+
+		for (long now : new long[] { 10_000, HALF_LIFE, 100 * HALF_LIFE }) {
+			assertThat(leaderboard.top(2, now, null))
+					.extracting(Entry::key)
+					.containsExactly("station", "park");
+		}
+	}
+
+	@Test
+	void updatedKeyIsRepositioned() {
+		DecayedLeaderboard leaderboard = new DecayedLeaderboard(HALF_LIFE, 0);
+		leaderboard.record("station", 0);
+		leaderboard.record("station", 0);
+		leaderboard.record("park", 0);
+
+		leaderboard.record("park", 0);
+		leaderboard.record("park", 0);
+
+		assertThat(leaderboard.top(3, 0, null))
+				.extracting(Entry::key)
+				.containsExactly("park", "station");
+		assertThat(leaderboard.size()).isEqualTo(2);
+	}
+
+	@Test
+	void topAppliesLimitAfterFilter() {
+		DecayedLeaderboard leaderboard = new DecayedLeaderboard(HALF_LIFE, 0);
+		leaderboard.record("a", 3);
+		leaderboard.record("b", 2);
+		leaderboard.record("c", 1);
+
+		assertThat(leaderboard.top(1, 3, key -> !key.equals("a")))
+				.extracting(Entry::key)
+				.containsExactly("b");
+	}
+
+	@Test
+	void removedKeyLeavesTheRanking() {
+		DecayedLeaderboard leaderboard = new DecayedLeaderboard(HALF_LIFE, 0);
+		leaderboard.record("station", 0);
+		leaderboard.record("park", 0);
+
+		leaderboard.remove("station");
+		leaderboard.remove("unknown");
+
+		assertThat(leaderboard.top(2, 0, null)).extracting(Entry::key).containsExactly("park");
+		assertThat(leaderboard.score("station", 0)).isZero();
+		assertThat(leaderboard.size()).isEqualTo(1);
+	}
+
+	@Test
+	void scoresFarFromTheLandmarkDoNotOverflow() {
+		DecayedLeaderboard leaderboard = new DecayedLeaderboard(HALF_LIFE, 0);
+		long later = 5_000 * HALF_LIFE;
+		leaderboard.record("plaza", later);
+		leaderboard.record("plaza", later);
+
+		assertThat(leaderboard.score("plaza", later)).isCloseTo(2, within(1e-9));
+	}
+
+	@Test
+	void rejectsNonPositiveHalfLife() {
+		assertThatThrownBy(() -> new DecayedLeaderboard(0, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
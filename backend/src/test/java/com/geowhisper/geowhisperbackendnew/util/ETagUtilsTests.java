@@ -0,0 +1,84 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagUtilsTests {
+
+	@Test
+	void jsonIsSelectedWithoutAPreferenceForCbor() {
+		assertThat(ETagUtils.selectedMediaType(null)).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ETagUtils.selectedMediaType(" ")).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ETagUtils.selectedMediaType("*/*")).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ETagUtils.selectedMediaType("application/json")).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ETagUtils.selectedMediaType("text/html")).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ETagUtils.selectedMediaType("not a media type")).isEqualTo(MediaType.APPLICATION_JSON);
+	}
+
+	@Test
+	void cborIsSelectedWhenPreferred() {
+		assertThat(ETagUtils.selectedMediaType("application/cbor")).isEqualTo(MediaType.APPLICATION_CBOR);
+		assertThat(ETagUtils.selectedMediaType("application/cbor, */*")).isEqualTo(MediaType.APPLICATION_CBOR);
+		assertThat(ETagUtils.selectedMediaType("application/json;q=0.5, application/cbor"))
+				.isEqualTo(MediaType.APPLICATION_CBOR);
+	}
+
+	@Test
+	void earlierTypeWinsAtEqualQuality() {
+		assertThat(ETagUtils.selectedMediaType("application/cbor, application/json"))
+				.isEqualTo(MediaType.APPLICATION_CBOR);
+		assertThat(ETagUtils.selectedMediaType("application/json, application/cbor"))
+				.isEqualTo(MediaType.APPLICATION_JSON);
+	}
+
+	@Test
+	void qualityOfMostSpecificRangeApplies() {
+		// application/cbor is named with a lower quality than the wildcard
+		assertThat(ETagUtils.selectedMediaType("application/*, application/cbor;q=0.9"))
+				.isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(ETagUtils.selectedMediaType("application/cbor;q=0, */*"))
+				.isEqualTo(MediaType.APPLICATION_JSON);
+	}
+
+	@Test
+	void etagVariesWithMediaType() {
+		String json = ETagUtils.weakETag("towers", 7, 50, ETagUtils.selectedMediaType("application/json"));
+		String cbor = ETagUtils.weakETag("towers", 7, 50, ETagUtils.selectedMediaType("application/cbor"));
+
+		assertThat(json).startsWith("W/\"").isNotEqualTo(cbor);
+		assertThat(ETagUtils.weakETag("towers", 7, 50, MediaType.APPLICATION_JSON)).isEqualTo(json);
+		assertThat(ETagUtils.matches(json, cbor)).isFalse();
+	}
+
+	@Test
+	void matchesUsesWeakComparison() {
+		String etag = ETagUtils.weakETag("towers", 7);
+		String opaque = etag.substring(2);
+
+		assertThat(ETagUtils.matches(etag, etag)).isTrue();
+		assertThat(ETagUtils.matches(opaque, etag)).isTrue();
+		assertThat(ETagUtils.matches("\"other\", " + etag, etag)).isTrue();
+		assertThat(ETagUtils.matches("*", etag)).isTrue();
+		assertThat(ETagUtils.matches("\"other\"", etag)).isFalse();
+		assertThat(ETagUtils.matches(null, etag)).isFalse();
+	}
+
+	@Test
+	void validatorHeadersVaryOnAccept() {
+		HttpHeaders headers = ETagUtils.validatorHeaders("W/\"abc\"", 1_760_000_000_000L);
+
+		assertThat(headers.getETag()).isEqualTo("W/\"abc\"");
+		assertThat(headers.getVary()).containsExactly(HttpHeaders.ACCEPT);
+		assertThat(headers.getLastModified()).isEqualTo(1_760_000_000_000L);
+	}
+
+	@Test
+	void unknownLastModifiedIsOmitted() {
+		HttpHeaders headers = ETagUtils.validatorHeaders("W/\"abc\"", -1);
+
+		assertThat(headers.containsKey(HttpHeaders.LAST_MODIFIED)).isFalse();
+	}
+}
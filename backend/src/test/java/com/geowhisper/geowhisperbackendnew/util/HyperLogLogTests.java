@@ -0,0 +1,104 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTests {
+
+	@Test
+	void sparseSketchRoundTrips() {
+		HyperLogLog sketch = sketchOf(50);
+
+		byte[] bytes = sketch.toByteArray();
+		HyperLogLog copy = HyperLogLog.fromByteArray(bytes);
+
+		assertThat(bytes[0] & 0x80).isNotZero();
+		assertThat(bytes.length).isLessThan(1 + (1 << HyperLogLog.DEFAULT_PRECISION));
+		assertThat(copy.getPrecision()).isEqualTo(sketch.getPrecision());
+		assertThat(copy.estimate()).isEqualTo(sketch.estimate());
+		assertThat(copy.toByteArray()).isEqualTo(bytes);
+	}
+
+	@Test
+	void denseSketchRoundTrips() {
+		HyperLogLog sketch = sketchOf(10_000);
+
+		byte[] bytes = sketch.toByteArray();
+		HyperLogLog copy = HyperLogLog.fromByteArray(bytes);
+
+		assertThat(bytes[0]).isEqualTo((byte) HyperLogLog.DEFAULT_PRECISION);
+		assertThat(bytes).hasSize(1 + (1 << HyperLogLog.DEFAULT_PRECISION));
+		assertThat(copy.estimate()).isEqualTo(sketch.estimate());
+		assertThat(copy.toByteArray()).isEqualTo(bytes);
+	}
+
+	@Test
+	void emptySketchRoundTrips() {
+		HyperLogLog copy = HyperLogLog.fromByteArray(new HyperLogLog().toByteArray());
+
+		assertThat(copy.estimate()).isZero();
+	}
+
+	@Test
+	void rejectsMalformedSketches() {
+		byte[] sparse = sketchOf(50).toByteArray();
+		byte[] truncated = Arrays.copyOf(sparse, sparse.length - 1);
+		byte[] dense = Arrays.copyOf(sketchOf(10_000).toByteArray(), 100);
+
+		assertThatThrownBy(() -> HyperLogLog.fromByteArray(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> HyperLogLog.fromByteArray(truncated)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> HyperLogLog.fromByteArray(dense)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void estimatesStayWithinErrorBound() {
+		// Three standard errors of 1.04 / sqrt(m)
+		double bound = 3 * 1.04 / Math.sqrt(1 << HyperLogLog.DEFAULT_PRECISION);
+		for (int n : new int[] { 100, 1_000, 10_000, 100_000 }) {
+			assertThat((double) sketchOf(n).estimate()).as("estimate of %d", n).isCloseTo(n, within(n * bound));
+		}
+	}
+
+	@Test
+	void smallCardinalitiesAreNearlyExact() {
+		assertThat(sketchOf(10).estimate()).isEqualTo(10);
+	}
+
+	@Test
+	void duplicatesAreNotCounted() {
+		HyperLogLog sketch = sketchOf(1_000);
+		for (int i = 0; i < 1_000; i++) {
+			sketch.add("user-" + i);
+		}
+
+		assertThat(sketch.estimate()).isEqualTo(sketchOf(1_000).estimate());
+	}
+
+	@Test
+	void mergeEstimatesUnion() {
+		HyperLogLog first = new HyperLogLog();
+		HyperLogLog second = new HyperLogLog();
+		for (int i = 0; i < 6_000; i++) {
+			first.add("user-" + i);
+			second.add("user-" + (i + 4_000));
+		}
+
+		first.merge(second);
+
+		assertThat(first.estimate()).isEqualTo(sketchOf(10_000).estimate());
+	}
+
+	private static HyperLogLog sketchOf(int distinct) {
+		HyperLogLog sketch = new HyperLogLog();
+		for (int i = 0; i < distinct; i++) {
+			sketch.add("user-" + i);
+		}
+		return sketch;
+	}
+
+}
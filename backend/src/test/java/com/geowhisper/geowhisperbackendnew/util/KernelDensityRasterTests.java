@@ -0,0 +1,139 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import com.geowhisper.geowhisperbackendnew.model.HeatPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class KernelDensityRasterTests {
+
+	private static final int ZOOM = 14;
+	private static final int SIZE = 256;
+	private static final double BANDWIDTH = 50;
+	// Tile containing lower Manhattan at zoom 14
+	private static final int TILE_X = 4823;
+	private static final int TILE_Y = 6160;
+
+	@Test
+	void wholeWorldTileSpansMercatorBounds() {
+		double[] bounds = KernelDensityRaster.tileBounds(0, 0, 0);
+
+		assertThat(bounds[0]).isCloseTo(-85.0511, within(1e-4));
+		assertThat(bounds[1]).isEqualTo(-180.0);
+		assertThat(bounds[2]).isCloseTo(85.0511, within(1e-4));
+		assertThat(bounds[3]).isEqualTo(180.0);
+	}
+
+	@Test
+	void tileBoundsSplitAtEquatorAndMeridian() {
+		double[] northEast = KernelDensityRaster.tileBounds(1, 1, 0);
+
+		assertThat(northEast[0]).isCloseTo(0, within(1e-9));
+		assertThat(northEast[1]).isCloseTo(0, within(1e-9));
+		assertThat(northEast[2]).isCloseTo(85.0511, within(1e-4));
+		assertThat(northEast[3]).isEqualTo(180.0);
+	}
+
+	@Test
+	void adjacentTilesShareEdges() {
+		double[] tile = KernelDensityRaster.tileBounds(ZOOM, TILE_X, TILE_Y);
+		double[] east = KernelDensityRaster.tileBounds(ZOOM, TILE_X + 1, TILE_Y);
+		double[] south = KernelDensityRaster.tileBounds(ZOOM, TILE_X, TILE_Y + 1);
+
+		assertThat(east[1]).isEqualTo(tile[3]);
+		assertThat(south[2]).isEqualTo(tile[0]);
+	}
+
+	@Test
+	void reachIsThreeBandwidthsInDegreesLatitude() {
+		// One degree of latitude is about 111.32 km
+		assertThat(KernelDensityRaster.reachDegrees(1000)).isCloseTo(3000 / 111_319.5, within(1e-6));
+	}
+
+	@Test
+	void densityIntegratesToPointWeight() {
+		double[] center = tileCenter();
+		float[] density = render(List.of(new HeatPoint(center[0], center[1], 5)), ForkJoinPool.commonPool());
+
+		double metersPerPixel = Math.cos(Math.toRadians(center[0])) * 2 * Math.PI * 6_378_137.0
+				/ (SIZE * (1L << ZOOM));
+		double pixelKm2 = Math.pow(metersPerPixel / 1000, 2);
+		double total = 0;
+		for (float value : density) {
+			total += value * pixelKm2;
+		}
+
+		assertThat(total).isCloseTo(5, within(0.05));
+	}
+
+	@Test
+	void densityPeaksAtPointAndVanishesBeyondReach() {
+		double[] center = tileCenter();
+		float[] density = render(List.of(new HeatPoint(center[0], center[1], 1)), ForkJoinPool.commonPool());
+
+		int peak = 0;
+		for (int i = 1; i < density.length; i++) {
+			if (density[i] > density[peak]) {
+				peak = i;
+			}
+		}
+		assertThat(peak % SIZE).isBetween(SIZE / 2 - 1, SIZE / 2);
+		assertThat(peak / SIZE).isBetween(SIZE / 2 - 1, SIZE / 2);
+		// Corners are far more than 3 bandwidths (about 16 pixels) away
+		assertThat(density[0]).isZero();
+		assertThat(density[density.length - 1]).isZero();
+	}
+
+	@Test
+	void pointOutOfReachLeavesTileEmpty() {
+		double[] bounds = KernelDensityRaster.tileBounds(ZOOM, TILE_X, TILE_Y);
+		double farNorth = bounds[2] + 2 * KernelDensityRaster.reachDegrees(BANDWIDTH);
+
+		float[] density = render(List.of(new HeatPoint(farNorth, bounds[1], 100)), ForkJoinPool.commonPool());
+
+		assertThat(density).containsOnly(0f);
+	}
+
+	@Test
+	void pointJustOutsideTileStillContributes() {
+		double[] bounds = KernelDensityRaster.tileBounds(ZOOM, TILE_X, TILE_Y);
+		double justNorth = bounds[2] + KernelDensityRaster.reachDegrees(BANDWIDTH) / 6;
+
+		float[] density = render(List.of(new HeatPoint(justNorth, (bounds[1] + bounds[3]) / 2, 1)),
+				ForkJoinPool.commonPool());
+
+		assertThat(density[SIZE / 2]).isPositive();
+	}
+
+	@Test
+	void parallelBandsMatchSequentialRendering() {
+		double[] center = tileCenter();
+		List<HeatPoint> points = List.of(
+				new HeatPoint(center[0], center[1], 3),
+				new HeatPoint(center[0] + 0.001, center[1] - 0.002, 1),
+				new HeatPoint(center[0] - 0.002, center[1] + 0.001, 2));
+
+		ForkJoinPool single = new ForkJoinPool(1);
+		try {
+			assertThat(render(points, ForkJoinPool.commonPool())).containsExactly(render(points, single));
+		} finally {
+			single.shutdown();
+		}
+	}
+
+	private static float[] render(List<HeatPoint> points, ForkJoinPool pool) {
+		return KernelDensityRaster.render(points, ZOOM, TILE_X, TILE_Y, SIZE, BANDWIDTH, pool);
+	}
+
+	/**
+	 * Latitude/longitude of the center pixel corner of the test tile
+	 */
+	private static double[] tileCenter() {
+		double[] bounds = KernelDensityRaster.tileBounds(ZOOM + 1, 2 * TILE_X + 1, 2 * TILE_Y + 1);
+		return new double[] { bounds[2], bounds[1] };
+	}
+}
@@ -0,0 +1,112 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTests {
+
+	private static final long TTL = 60_000;
+
+	@Test
+	void concurrentCallersShareOneComputation() {
+		SingleFlight<String, Integer> flights = new SingleFlight<>(TTL, 100);
+		AtomicInteger loads = new AtomicInteger();
+		CompletableFuture<Integer> pending = new CompletableFuture<>();
+
+		CompletableFuture<Integer> first = flights.get("tower", () -> {
+			loads.incrementAndGet();
+			return pending;
+		});
+		CompletableFuture<Integer> second = flights.get("tower", () -> {
+			loads.incrementAndGet();
+			return CompletableFuture.completedFuture(-1);
+		});
+		pending.complete(42);
+
+		assertThat(loads).hasValue(1);
+		assertThat(first.join()).isEqualTo(42);
+		assertThat(second.join()).isEqualTo(42);
+	}
+
+	@Test
+	void resultIsMemoizedWithinTtl() {
+		SingleFlight<String, Integer> flights = new SingleFlight<>(TTL, 100);
+		AtomicInteger loads = new AtomicInteger();
+
+		flights.get("tower", () -> CompletableFuture.completedFuture(loads.incrementAndGet())).join();
+		int second = flights.get("tower", () -> CompletableFuture.completedFuture(loads.incrementAndGet())).join();
+
+		assertThat(second).isEqualTo(1);
+		assertThat(loads).hasValue(1);
+	}
+
+	@Test
+	void expiredResultIsRecomputed() {
+		SingleFlight<String, Integer> flights = new SingleFlight<>(0, 100);
+		AtomicInteger loads = new AtomicInteger();
+
+		flights.get("tower", () -> CompletableFuture.completedFuture(loads.incrementAndGet())).join();
+		int second = flights.get("tower", () -> CompletableFuture.completedFuture(loads.incrementAndGet())).join();
+
+		assertThat(second).isEqualTo(2);
+	}
+
+	@Test
+	void failureReachesEveryWaiterAndIsNotMemoized() {
+		SingleFlight<String, Integer> flights = new SingleFlight<>(TTL, 100);
+		CompletableFuture<Integer> pending = new CompletableFuture<>();
+
+		CompletableFuture<Integer> first = flights.get("tower", () -> pending);
+		CompletableFuture<Integer> second = flights.get("tower", () -> pending);
+		pending.completeExceptionally(new IllegalStateException("timeout"));
+
+		assertThatThrownBy(first::join).isInstanceOf(CompletionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(second::join).isInstanceOf(CompletionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class);
+
+		assertThat(flights.get("tower", () -> CompletableFuture.completedFuture(7)).join()).isEqualTo(7);
+	}
+
+	@Test
+	void loaderThrowingFailsTheFutureInsteadOfTheCaller() {
+		SingleFlight<String, Integer> flights = new SingleFlight<>(TTL, 100);
+
+		CompletableFuture<Integer> result = flights.get("tower", () -> {
+			throw new IllegalArgumentException("bad tower");
+		});
+
+		assertThatThrownBy(result::join).hasCauseInstanceOf(IllegalArgumentException.class);
+		assertThat(flights.size()).isZero();
+	}
+
+	@Test
+	void cancellingOneCallerDoesNotAffectOthers() {
+		SingleFlight<String, Integer> flights = new SingleFlight<>(TTL, 100);
+		CompletableFuture<Integer> pending = new CompletableFuture<>();
+
+		CompletableFuture<Integer> first = flights.get("tower", () -> pending);
+		CompletableFuture<Integer> second = flights.get("tower", () -> pending);
+		first.cancel(true);
+		pending.complete(42);
+
+		assertThat(second.join()).isEqualTo(42);
+	}
+
+	@Test
+	void expiredEntriesAreSweptWhenFull() {
+		SingleFlight<String, Integer> flights = new SingleFlight<>(0, 2);
+		for (int i = 0; i < 3; i++) {
+			flights.get("tower-" + i, () -> CompletableFuture.completedFuture(1)).join();
+		}
+
+		// The third insert exceeded maxEntries and swept the two expired entries
+		assertThat(flights.size()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,120 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import org.junit.jupiter.api.Test;
+
+import static com.geowhisper.geowhisperbackendnew.util.SlidingWindowCounter.HOUR_MILLIS;
+import static com.geowhisper.geowhisperbackendnew.util.SlidingWindowCounter.MINUTE_MILLIS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlidingWindowCounterTests {
+
+	private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+	// Arbitrary whole hour, well after the epoch
+	private static final long NOW = 20_000 * HOUR_MILLIS;
+
+	@Test
+	void countsEventsInsideTheWindow() {
+		SlidingWindowCounter counter = new SlidingWindowCounter();
+		counter.add(NOW - 30 * MINUTE_MILLIS, NOW);
+		counter.add(NOW - 2 * HOUR_MILLIS, NOW);
+		counter.add(NOW - 3 * DAY_MILLIS, NOW);
+
+		assertThat(counter.sum(HOUR_MILLIS, NOW)).isEqualTo(1);
+		assertThat(counter.sum(DAY_MILLIS, NOW)).isEqualTo(2);
+		assertThat(counter.sum(7 * DAY_MILLIS, NOW)).isEqualTo(3);
+	}
+
+	@Test
+	void eventsLeaveTheWindowAsTimePasses() {
+		SlidingWindowCounter counter = new SlidingWindowCounter();
+		counter.add(NOW, NOW);
+
+		assertThat(counter.sum(5 * MINUTE_MILLIS, NOW + 4 * MINUTE_MILLIS)).isEqualTo(1);
+		assertThat(counter.sum(5 * MINUTE_MILLIS, NOW + 5 * MINUTE_MILLIS)).isZero();
+	}
+
+	@Test
+	void minuteBucketIsResetWhenItsSlotComesAround() {
+		SlidingWindowCounter counter = new SlidingWindowCounter();
+		counter.add(NOW, NOW);
+		counter.add(NOW, NOW);
+
+		// Same minute slot one ring later
+		long later = NOW + SlidingWindowCounter.MINUTE_BUCKETS * MINUTE_MILLIS;
+		counter.add(later, later);
+
+		assertThat(counter.sum(DAY_MILLIS, later)).isEqualTo(1);
+		assertThat(counter.sum(MINUTE_MILLIS, later)).isEqualTo(1);
+	}
+
+	@Test
+	void hourBucketIsResetWhenItsSlotComesAround() {
+		SlidingWindowCounter counter = new SlidingWindowCounter();
+		long hour = NOW / HOUR_MILLIS;
+		counter.add(NOW, NOW);
+		counter.add(NOW + MINUTE_MILLIS, NOW + MINUTE_MILLIS);
+
+		assertThat(counter.countInHour(hour)).isEqualTo(2);
+
+		// Same hour slot one ring later
+		long later = NOW + SlidingWindowCounter.HOUR_BUCKETS * HOUR_MILLIS;
+		counter.add(later, later);
+
+		assertThat(counter.countInHour(hour)).isZero();
+		assertThat(counter.countInHour(hour + SlidingWindowCounter.HOUR_BUCKETS)).isEqualTo(1);
+		assertThat(counter.sum(7 * DAY_MILLIS, later)).isEqualTo(1);
+	}
+
+	@Test
+	void staleSlotsAreNotCountedBeforeTheyAreReused() {
+		SlidingWindowCounter counter = new SlidingWindowCounter();
+		counter.add(NOW, NOW);
+
+		long later = NOW + 8 * DAY_MILLIS;
+		assertThat(counter.sum(DAY_MILLIS, later)).isZero();
+		assertThat(counter.sum(7 * DAY_MILLIS, later)).isZero();
+	}
+
+	@Test
+	void ignoresEventsOlderThanTheLongestWindow() {
+		SlidingWindowCounter counter = new SlidingWindowCounter();
+		counter.add(NOW - SlidingWindowCounter.MAX_WINDOW_MILLIS - HOUR_MILLIS, NOW);
+
+		assertThat(counter.sum(7 * DAY_MILLIS, NOW)).isZero();
+	}
+
+	@Test
+	void countsFutureEventsAsNow() {
+		SlidingWindowCounter counter = new SlidingWindowCounter();
+		counter.add(NOW + HOUR_MILLIS, NOW);
+
+		assertThat(counter.sum(MINUTE_MILLIS, NOW)).isEqualTo(1);
+	}
+
+	@Test
+	void removedEventIsNoLongerCounted() {
+		SlidingWindowCounter counter = new SlidingWindowCounter();
+		counter.add(NOW - 30 * MINUTE_MILLIS, NOW);
+		counter.add(NOW - 3 * DAY_MILLIS, NOW);
+
+		counter.remove(NOW - 30 * MINUTE_MILLIS, NOW);
+		counter.remove(NOW - 3 * DAY_MILLIS, NOW);
+
+		assertThat(counter.sum(HOUR_MILLIS, NOW)).isZero();
+		assertThat(counter.sum(7 * DAY_MILLIS, NOW)).isZero();
+	}
+
+	@Test
+	void removingUncountedEventHasNoEffect() {
+		SlidingWindowCounter counter = new SlidingWindowCounter();
+		counter.add(NOW, NOW);
+
+		counter.remove(NOW - MINUTE_MILLIS, NOW);
+		counter.remove(NOW - SlidingWindowCounter.MAX_WINDOW_MILLIS - HOUR_MILLIS, NOW);
+
+		assertThat(counter.sum(MINUTE_MILLIS, NOW)).isEqualTo(1);
+		assertThat(counter.countInHour(NOW / HOUR_MILLIS)).isEqualTo(1);
+	}
+
+}
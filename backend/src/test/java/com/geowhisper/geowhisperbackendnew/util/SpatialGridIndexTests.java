@@ -0,0 +1,68 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpatialGridIndexTests {
+
+	private static final double RADIUS = 50;
+	// Degrees of latitude per meter
+	private static final double METER = 1 / 111_320.0;
+
+	@Test
+	void findsClosestValueWithinRadius() {
+		SpatialGridIndex<String> index = new SpatialGridIndex<>(RADIUS);
+		index.add(40.7128 + 30 * METER, -74.0060, "far");
+		index.add(40.7128 + 10 * METER, -74.0060, "near");
+
+		assertThat(index.nearest(40.7128, -74.0060, RADIUS)).contains("near");
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	@Test
+	void ignoresValuesBeyondRadius() {
+		SpatialGridIndex<String> index = new SpatialGridIndex<>(RADIUS);
+		index.add(40.7128 + 60 * METER, -74.0060, "outside");
+
+		assertThat(index.nearest(40.7128, -74.0060, RADIUS)).isEmpty();
+	}
+
+	@Test
+	void findsValuesInNeighbouringCells() {
+		SpatialGridIndex<String> index = new SpatialGridIndex<>(RADIUS);
+		double cell = RADIUS * METER;
+		// Just below and just above a cell boundary
+		index.add(100 * cell + 5 * METER, 0, "other cell");
+
+		assertThat(index.nearest(100 * cell - 5 * METER, 0, RADIUS)).contains("other cell");
+	}
+
+	@Test
+	void widensLongitudeSearchAwayFromEquator() {
+		SpatialGridIndex<String> index = new SpatialGridIndex<>(RADIUS);
+		// At 60° a meter east spans twice the degrees it does at the equator
+		double east = 45 * METER / Math.cos(Math.toRadians(60));
+		index.add(60, 10 + east, "east");
+
+		assertThat(index.nearest(60, 10, RADIUS)).contains("east");
+	}
+
+	@Test
+	void handlesNegativeCoordinates() {
+		SpatialGridIndex<String> index = new SpatialGridIndex<>(RADIUS);
+		index.add(-33.8688, -151.2093 + 20 * METER, "west");
+		index.add(-33.8688, 151.2093, "sydney");
+
+		assertThat(index.nearest(-33.8688, 151.2093 + 20 * METER, RADIUS)).contains("sydney");
+		assertThat(index.nearest(-33.8688, -151.2093, RADIUS)).contains("west");
+	}
+
+	@Test
+	void emptyIndexFindsNothing() {
+		SpatialGridIndex<String> index = new SpatialGridIndex<>(RADIUS);
+
+		assertThat(index.nearest(0, 0, RADIUS)).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+}
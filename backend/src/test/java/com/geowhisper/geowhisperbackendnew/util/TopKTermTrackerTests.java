@@ -0,0 +1,118 @@
+package com.geowhisper.geowhisperbackendnew.util;
+
+import com.geowhisper.geowhisperbackendnew.util.TopKTermTracker.TermCount;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TopKTermTrackerTests {
+
+	private static final long HALF_LIFE = 60_000;
+
+	@Test
+	void countsRepeatedTerms() {
+		TopKTermTracker tracker = new TopKTermTracker(4, 0, 0);
+		offer(tracker, "coffee", 0, 3);
+		offer(tracker, "rain", 0, 1);
+
+		assertThat(tracker.top(2, 0)).containsExactly(new TermCount("coffee", 3), new TermCount("rain", 1));
+	}
+
+	@Test
+	void newTermEvictsSmallestCounterAndInheritsItAsError() {
+		TopKTermTracker tracker = new TopKTermTracker(2, 0, 0);
+		offer(tracker, "coffee", 0, 3);
+		offer(tracker, "rain", 0, 1);
+
+		offer(tracker, "concert", 0, 2);
+
+		// concert took over rain's counter: 1 + 2 counted, 1 of it inherited
+		assertThat(tracker.top(3, 0)).containsExactly(new TermCount("coffee", 3), new TermCount("concert", 2));
+	}
+
+	@Test
+	void evictedTermStartsOverWhenItReturns() {
+		TopKTermTracker tracker = new TopKTermTracker(2, 0, 0);
+		offer(tracker, "coffee", 0, 4);
+		offer(tracker, "rain", 0, 1);
+		offer(tracker, "concert", 0, 2);
+
+		// rain takes over concert's counter (3), so only its new occurrence is guaranteed
+		offer(tracker, "rain", 0, 1);
+
+		List<TermCount> top = tracker.top(2, 0);
+		assertThat(top).extracting(TermCount::term).containsExactly("coffee", "rain");
+		assertThat(top.get(1).count()).isEqualTo(1);
+	}
+
+	@Test
+	void keepsHeavyHittersAmongManyRareTerms() {
+		TopKTermTracker tracker = new TopKTermTracker(4, 0, 0);
+		for (int i = 0; i < 400; i++) {
+			offer(tracker, "term" + i, 0, 1);
+			if (i % 2 == 0) {
+				offer(tracker, "festival", 0, 1);
+			}
+		}
+
+		// 200 of 600 occurrences, more than total / capacity
+		assertThat(tracker.top(1, 0)).extracting(TermCount::term).containsExactly("festival");
+	}
+
+	@Test
+	void countsDecayWithHalfLife() {
+		TopKTermTracker tracker = new TopKTermTracker(4, HALF_LIFE, 0);
+		offer(tracker, "coffee", 0, 4);
+
+		assertThat(tracker.top(1, HALF_LIFE).get(0).count()).isCloseTo(2, within(1e-9));
+		assertThat(tracker.top(1, 2 * HALF_LIFE).get(0).count()).isCloseTo(1, within(1e-9));
+	}
+
+	@Test
+	void recentTermsOutrankOlderOnesWithMoreOccurrences() {
+		TopKTermTracker tracker = new TopKTermTracker(4, HALF_LIFE, 0);
+		offer(tracker, "breakfast", 0, 3);
+		offer(tracker, "concert", 2 * HALF_LIFE, 1);
+
+		List<TermCount> top = tracker.top(2, 2 * HALF_LIFE);
+		assertThat(top).extracting(TermCount::term).containsExactly("concert", "breakfast");
+		assertThat(top.get(1).count()).isCloseTo(0.75, within(1e-9));
+	}
+
+	@Test
+	void rescalesLandmarkWithoutLosingCounts() {
+		TopKTermTracker tracker = new TopKTermTracker(4, HALF_LIFE, 0);
+		offer(tracker, "coffee", 0, 1);
+
+		// Far enough ahead that the forward-decay weight has to be rescaled
+		long later = 100 * HALF_LIFE;
+		offer(tracker, "coffee", later, 2);
+		offer(tracker, "rain", later, 1);
+
+		List<TermCount> top = tracker.top(2, later);
+		assertThat(top.get(0).term()).isEqualTo("coffee");
+		assertThat(top.get(0).count()).isCloseTo(2, within(1e-9));
+		assertThat(top.get(1).count()).isCloseTo(1, within(1e-9));
+		assertThat(tracker.top(1, later + HALF_LIFE).get(0).count()).isCloseTo(1, within(1e-9));
+	}
+
+	@Test
+	void matchesTermsFromSharedBuffer() {
+		TopKTermTracker tracker = new TopKTermTracker(4, 0, 0);
+		char[] buffer = "coffeehouse".toCharArray();
+		tracker.offer(buffer, 6, "coffee".hashCode(), 0);
+		offer(tracker, "coffee", 0, 1);
+
+		assertThat(tracker.top(4, 0)).containsExactly(new TermCount("coffee", 2));
+	}
+
+	private static void offer(TopKTermTracker tracker, String term, long timestampMillis, int times) {
+		for (int i = 0; i < times; i++) {
+			tracker.offer(term.toCharArray(), term.length(), term.hashCode(), timestampMillis);
+		}
+	}
+
+}